@@ -18,6 +18,8 @@ import net.kuujo.copycat.EventListener;
 import net.kuujo.copycat.election.Election;
 import net.kuujo.copycat.election.ElectionEvent;
 
+import java.util.concurrent.CompletableFuture;
+
 /**
  * Resource cluster.<p>
  *
@@ -89,6 +91,47 @@ public interface Cluster {
    */
   long term();
 
+  /**
+   * Transfers leadership of the cluster to the given member.<p>
+   *
+   * Leadership transfer can be used to move leadership off a node prior to planned maintenance. The leader brings
+   * the given member's log up to date and then instructs the member to start an election immediately rather than
+   * waiting for an election timeout. Once the member has caught up, the leader rejects new commits until the transfer
+   * completes or is aborted. The transfer must be initiated on the current leader and the given member must be an
+   * {@code ACTIVE} member of the cluster.
+   *
+   * @param uri The URI of the member to which to transfer leadership.
+   * @return A completable future to be completed once the local member has stepped down.
+   * @throws java.lang.NullPointerException If the given {@code uri} is {@code null}
+   */
+  CompletableFuture<Void> transferLeadership(String uri);
+
+  /**
+   * Adds an {@code ACTIVE} member to the cluster.<p>
+   *
+   * Membership changes are committed via joint consensus: the leader first commits a configuration containing both
+   * the old and the new set of members and then commits the new set on its own, so the cluster remains available
+   * throughout the change. Only one membership change may be in progress at a time, and the change must be
+   * initiated on the current leader.
+   *
+   * @param uri The URI of the member to add.
+   * @return A completable future to be completed once the new configuration has been committed.
+   * @throws java.lang.NullPointerException If the given {@code uri} is {@code null}
+   */
+  CompletableFuture<Void> addActiveMember(String uri);
+
+  /**
+   * Removes an {@code ACTIVE} member from the cluster.<p>
+   *
+   * Membership changes are committed via joint consensus and must be initiated on the current leader. If the leader
+   * removes itself, it steps down once the new configuration has been committed.
+   *
+   * @param uri The URI of the member to remove.
+   * @return A completable future to be completed once the new configuration has been committed.
+   * @throws java.lang.NullPointerException If the given {@code uri} is {@code null}
+   */
+  CompletableFuture<Void> removeActiveMember(String uri);
+
   /**
    * Returns the cluster election.
    *
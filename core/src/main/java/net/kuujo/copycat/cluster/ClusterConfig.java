@@ -53,11 +53,13 @@ public class ClusterConfig extends AbstractConfigurable {
   public static final String CLUSTER_ELECTION_TIMEOUT = "election.timeout";
   public static final String CLUSTER_HEARTBEAT_INTERVAL = "heartbeat.interval";
   public static final String CLUSTER_MEMBERS = "members";
+  public static final String CLUSTER_CONNECTIONS = "connections";
 
   private static final Protocol DEFAULT_CLUSTER_PROTOCOL = new LocalProtocol();
   private static final long DEFAULT_CLUSTER_ELECTION_TIMEOUT = 300;
   private static final long DEFAULT_CLUSTER_HEARTBEAT_INTERVAL = 150;
   private static final Set<String> DEFAULT_CLUSTER_MEMBERS = new HashSet<>(10);
+  private static final int DEFAULT_CLUSTER_CONNECTIONS = 1;
 
   public ClusterConfig() {
     super();
@@ -217,6 +219,44 @@ public class ClusterConfig extends AbstractConfigurable {
     return this;
   }
 
+  /**
+   * Sets the number of connections opened to each remote member.<p>
+   *
+   * With a single connection, all messages to a member share the connection and a large append request or snapshot
+   * delays any heartbeats and vote requests queued behind it. With more than one connection, the first connection is
+   * dedicated to latency sensitive heartbeat, vote and leadership transfer requests, and all other messages are spread
+   * over the remaining connections by resource so that messages for a given resource are always sent in order on the
+   * same connection.
+   *
+   * @param connections The number of connections to open to each remote member.
+   * @throws java.lang.IllegalArgumentException If the number of connections is not positive
+   */
+  public void setConnections(int connections) {
+    put(CLUSTER_CONNECTIONS, Assert.arg(connections, connections > 0, "connections must be positive"));
+  }
+
+  /**
+   * Returns the number of connections opened to each remote member.
+   *
+   * @return The number of connections opened to each remote member.
+   */
+  public int getConnections() {
+    return get(CLUSTER_CONNECTIONS, DEFAULT_CLUSTER_CONNECTIONS);
+  }
+
+  /**
+   * Sets the number of connections opened to each remote member, returning the cluster configuration for method
+   * chaining.
+   *
+   * @param connections The number of connections to open to each remote member.
+   * @return The cluster configuration.
+   * @throws java.lang.IllegalArgumentException If the number of connections is not positive
+   */
+  public ClusterConfig withConnections(int connections) {
+    setConnections(connections);
+    return this;
+  }
+
   /**
    * Sets all cluster member URIs.
    *
@@ -259,6 +259,21 @@ public abstract class AbstractCluster implements ClusterManager {
     return context.getTerm();
   }
 
+  @Override
+  public CompletableFuture<Void> transferLeadership(String uri) {
+    return context.transferLeadership(uri);
+  }
+
+  @Override
+  public CompletableFuture<Void> addActiveMember(String uri) {
+    return context.addActiveMember(uri);
+  }
+
+  @Override
+  public CompletableFuture<Void> removeActiveMember(String uri) {
+    return context.removeActiveMember(uri);
+  }
+
   @Override
   public Election election() {
     return election;
@@ -74,6 +74,11 @@ public class CoordinatedMember implements MemberManager {
     return info.state();
   }
 
+  @Override
+  public boolean isConnected() {
+    return coordinator.isConnected();
+  }
+
   @Override
   public <T, U> CompletableFuture<U> send(String topic, T message) {
     return send(topic, USER_ID, message, serializer, executor);
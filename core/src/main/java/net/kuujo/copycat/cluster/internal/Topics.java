@@ -51,4 +51,14 @@ public class Topics {
    */
   public static final String COMMIT = "commit";
 
+  /**
+   * Member leadership transfer topic.
+   */
+  public static final String TRANSFER = "transfer";
+
+  /**
+   * Member snapshot install topic.
+   */
+  public static final String INSTALL = "install";
+
 }
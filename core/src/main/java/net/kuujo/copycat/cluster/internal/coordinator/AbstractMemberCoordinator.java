@@ -53,6 +53,11 @@ abstract class AbstractMemberCoordinator implements MemberCoordinator {
     return info.state();
   }
 
+  @Override
+  public boolean isConnected() {
+    return true;
+  }
+
   @Override
   public CompletableFuture<MemberCoordinator> open() {
     open = true;
@@ -66,7 +66,7 @@ public class DefaultClusterCoordinator implements ClusterCoordinator {
     this.members.put(uri, localMember);
     for (String member : config.getClusterConfig().getMembers()) {
       if (!this.members.containsKey(member)) {
-        this.members.put(member, new DefaultRemoteMemberCoordinator(new MemberInfo(member, Member.Type.ACTIVE, Member.State.ALIVE), config.getClusterConfig().getProtocol(), Executors.newSingleThreadExecutor(threadFactory)));
+        this.members.put(member, new DefaultRemoteMemberCoordinator(new MemberInfo(member, Member.Type.ACTIVE, Member.State.ALIVE), config.getClusterConfig().getProtocol(), config.getClusterConfig().getConnections(), Executors.newSingleThreadExecutor(threadFactory)));
       }
     }
 
@@ -257,12 +257,20 @@ public class DefaultClusterCoordinator implements ClusterCoordinator {
       cluster.member().registerHandler(Topics.APPEND, PROTOCOL_ID, protocol::append, serializer, executor);
       cluster.member().registerHandler(Topics.QUERY, PROTOCOL_ID, protocol::query, serializer, executor);
       cluster.member().registerHandler(Topics.COMMIT, PROTOCOL_ID, protocol::commit, serializer, executor);
+      cluster.member().registerHandler(Topics.TRANSFER, PROTOCOL_ID, protocol::transfer, serializer, executor);
+      cluster.member().registerHandler(Topics.INSTALL, PROTOCOL_ID, protocol::install, serializer, executor);
       protocol.syncHandler(request -> handleOutboundRequest(Topics.SYNC, request, cluster));
       protocol.pingHandler(request -> handleOutboundRequest(Topics.PING, request, cluster));
       protocol.pollHandler(request -> handleOutboundRequest(Topics.POLL, request, cluster));
       protocol.appendHandler(request -> handleOutboundRequest(Topics.APPEND, request, cluster));
       protocol.queryHandler(request -> handleOutboundRequest(Topics.QUERY, request, cluster));
       protocol.commitHandler(request -> handleOutboundRequest(Topics.COMMIT, request, cluster));
+      protocol.transferHandler(request -> handleOutboundRequest(Topics.TRANSFER, request, cluster));
+      protocol.installHandler(request -> handleOutboundRequest(Topics.INSTALL, request, cluster));
+      protocol.connectionHandler(uri -> {
+        MemberManager member = cluster.member(uri);
+        return member != null && member.isConnected();
+      });
     }
 
     /**
@@ -284,12 +292,17 @@ public class DefaultClusterCoordinator implements ClusterCoordinator {
       cluster.member().unregisterHandler(Topics.APPEND, PROTOCOL_ID);
       cluster.member().unregisterHandler(Topics.QUERY, PROTOCOL_ID);
       cluster.member().unregisterHandler(Topics.COMMIT, PROTOCOL_ID);
+      cluster.member().unregisterHandler(Topics.TRANSFER, PROTOCOL_ID);
+      cluster.member().unregisterHandler(Topics.INSTALL, PROTOCOL_ID);
       protocol.syncHandler(null);
       protocol.pingHandler(null);
       protocol.pollHandler(null);
       protocol.appendHandler(null);
       protocol.queryHandler(null);
       protocol.commitHandler(null);
+      protocol.transferHandler(null);
+      protocol.installHandler(null);
+      protocol.connectionHandler(null);
     }
   }
 
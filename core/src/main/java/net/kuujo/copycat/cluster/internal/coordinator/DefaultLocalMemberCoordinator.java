@@ -25,10 +25,13 @@ import net.kuujo.copycat.util.concurrent.Futures;
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.nio.ByteBuffer;
+import java.util.Arrays;
 import java.util.Map;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.Executor;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadLocalRandom;
 
 /**
  * Default local member implementation.
@@ -38,7 +41,14 @@ import java.util.concurrent.Executor;
 public class DefaultLocalMemberCoordinator extends AbstractMemberCoordinator implements LocalMemberCoordinator {
   private final ProtocolServer server;
   private final Executor executor;
-  private final Map<Integer, Map<Integer, Map<Integer, MessageHandler<ByteBuffer, ByteBuffer>>>> handlers = new ConcurrentHashMap<>();
+  private final boolean compression;
+  private final int compressionThreshold;
+  private final int chunkSize;
+  private final int maxMessageSize;
+  private final Map<Long, Route> routes = new ConcurrentHashMap<>();
+  private final Map<Long, MessageStreams.InboundStream> inboundStreams = new ConcurrentHashMap<>();
+  private final Map<Long, MessageStreams.OutboundStream> outboundStreams = new ConcurrentHashMap<>();
+  private ScheduledFuture<?> expiryTimer;
 
   public DefaultLocalMemberCoordinator(MemberInfo info, Protocol protocol, Executor executor) {
     super(info);
@@ -52,56 +62,55 @@ public class DefaultLocalMemberCoordinator extends AbstractMemberCoordinator imp
       throw new ProtocolException(e);
     }
     this.executor = executor;
+    this.compression = MessageCompression.isEnabled(protocol);
+    this.compressionThreshold = MessageCompression.threshold(protocol);
+    this.chunkSize = MessageStreams.chunkSize(protocol);
+    this.maxMessageSize = MessageStreams.maxMessageSize(protocol);
+  }
+
+  /**
+   * Returns the routing key for the given topic and address.
+   */
+  private static long route(int topic, int address) {
+    return ((long) topic << 32) | (address & 0xFFFFFFFFL);
+  }
+
+  /**
+   * Returns the handler registered for the given topic, address and ID.
+   */
+  private MessageHandler<ByteBuffer, ByteBuffer> handler(int topic, int address, int id) {
+    Route route = routes.get(route(topic, address));
+    return route != null ? route.handler(id) : null;
   }
 
   @Override
-  @SuppressWarnings("unchecked")
-  public synchronized CompletableFuture<ByteBuffer> send(String topic, int address, int id, ByteBuffer message) {
-    Map<Integer, Map<Integer, MessageHandler<ByteBuffer, ByteBuffer>>> topicHandlers = handlers.get(topic.hashCode());
-    if (topicHandlers != null) {
-      Map<Integer, MessageHandler<ByteBuffer, ByteBuffer>> addressHandlers = topicHandlers.get(address);
-      if (addressHandlers != null) {
-        MessageHandler<ByteBuffer, ByteBuffer> handler = addressHandlers.get(id);
-        if (handler != null) {
-          return CompletableFuture.completedFuture(null)
-            .thenComposeAsync(v -> handler.apply(message), executor)
-            .thenApplyAsync(v -> v, executor);
-        }
-      }
+  public CompletableFuture<ByteBuffer> send(String topic, int address, int id, ByteBuffer message) {
+    MessageHandler<ByteBuffer, ByteBuffer> handler = handler(topic.hashCode(), address, id);
+    if (handler != null) {
+      // Registered handlers execute on the thread of the resource to which they belong.
+      return handler.apply(message);
     }
     return Futures.exceptionalFuture(new IllegalStateException("No handlers"));
   }
 
   @Override
   public synchronized LocalMemberCoordinator register(String topic, int address, int id, MessageHandler<ByteBuffer, ByteBuffer> handler) {
-    Map<Integer, Map<Integer, MessageHandler<ByteBuffer, ByteBuffer>>> topicHandlers = handlers.get(topic.hashCode());
-    if (topicHandlers == null) {
-      topicHandlers = new ConcurrentHashMap<>();
-      handlers.put(topic.hashCode(), topicHandlers);
-    }
-    Map<Integer, MessageHandler<ByteBuffer, ByteBuffer>> addressHandlers = topicHandlers.get(address);
-    if (addressHandlers == null) {
-      addressHandlers = new ConcurrentHashMap<>();
-      topicHandlers.put(address, addressHandlers);
-    }
-    addressHandlers.put(id, handler);
+    long key = route(topic.hashCode(), address);
+    Route route = routes.get(key);
+    routes.put(key, route != null ? route.with(id, handler) : Route.of(id, handler));
     return this;
   }
 
   @Override
-  @SuppressWarnings("rawtypes")
   public synchronized LocalMemberCoordinator unregister(String topic, int address, int id) {
-    Map<Integer, Map<Integer, MessageHandler<ByteBuffer, ByteBuffer>>> topicHandlers = handlers.get(topic.hashCode());
-    if (topicHandlers != null) {
-      Map<Integer, MessageHandler<ByteBuffer, ByteBuffer>> addressHandlers = topicHandlers.get(address);
-      if (addressHandlers != null) {
-        addressHandlers.remove(id);
-        if (addressHandlers.isEmpty()) {
-          topicHandlers.remove(address);
-          if (topicHandlers.isEmpty()) {
-            handlers.remove(topic.hashCode());
-          }
-        }
+    long key = route(topic.hashCode(), address);
+    Route route = routes.get(key);
+    if (route != null) {
+      route = route.without(id);
+      if (route != null) {
+        routes.put(key, route);
+      } else {
+        routes.remove(key);
       }
     }
     return this;
@@ -113,26 +122,163 @@ public class DefaultLocalMemberCoordinator extends AbstractMemberCoordinator imp
    * @param request The request to handle.
    * @return A completable future to be completed once the response is ready.
    */
-  @SuppressWarnings({ "unchecked", "rawtypes" })
   private CompletableFuture<ByteBuffer> handle(ByteBuffer request) {
-    Map<Integer, Map<Integer, MessageHandler<ByteBuffer, ByteBuffer>>> topicHandlers = handlers.get(request.getInt());
-    if (topicHandlers != null) {
-      Map<Integer, MessageHandler<ByteBuffer, ByteBuffer>> addressHandlers = topicHandlers.get(request.getInt());
-      if (addressHandlers != null) {
-        MessageHandler<ByteBuffer, ByteBuffer> handler = addressHandlers.get(request.getInt());
-        if (handler != null) {
-          return CompletableFuture.runAsync(() -> {}, executor).thenCompose(v -> handler.apply(request.slice()));
+    int topic = request.getInt();
+    int address = request.getInt();
+    int id = request.getInt();
+    byte flags = request.get();
+
+    // Respond to compression negotiation requests with whether this member has compression enabled.
+    if (topic == MessageCompression.HANDSHAKE_TOPIC) {
+      return CompletableFuture.completedFuture(ByteBuffer.wrap(new byte[]{compression ? MessageCompression.ACCEPTS_COMPRESSED : MessageCompression.NONE}));
+    }
+
+    ByteBuffer body;
+    try {
+      if ((flags & MessageStreams.PULL) != 0) {
+        return CompletableFuture.completedFuture(pull(request));
+      } else if ((flags & MessageStreams.STREAM) != 0) {
+        body = receive(request);
+        if (body == null) {
+          return CompletableFuture.completedFuture(ByteBuffer.wrap(new byte[]{MessageCompression.NONE}));
         }
+      } else {
+        body = request.slice();
       }
+    } catch (ProtocolException e) {
+      return Futures.exceptionalFuture(e);
+    }
+
+    MessageHandler<ByteBuffer, ByteBuffer> handler = handler(topic, address, id);
+    if (handler != null) {
+      ByteBuffer message;
+      try {
+        message = (flags & MessageCompression.COMPRESSED) != 0 ? MessageCompression.decompress(body) : body;
+      } catch (ProtocolException e) {
+        return Futures.exceptionalFuture(e);
+      }
+      boolean compress = compression && (flags & MessageCompression.ACCEPTS_COMPRESSED) != 0;
+
+      // Registered handlers execute on the thread of the resource to which they belong, so the request can be
+      // dispatched directly from the protocol thread.
+      return handler.apply(message).thenApply(response -> encodeResponse(response, compress));
     }
     return Futures.exceptionalFuture(new IllegalStateException("No handlers"));
   }
 
+  /**
+   * Receives a request chunk.
+   *
+   * @return The assembled message if the chunk is the final chunk of the stream, otherwise {@code null}.
+   */
+  private ByteBuffer receive(ByteBuffer request) {
+    long streamId = request.getLong();
+    int length = request.getInt();
+    int offset = request.getInt();
+    ByteBuffer chunk = request.slice();
+
+    // Reject streams longer than the maximum message size before allocating a buffer for them.
+    MessageStreams.InboundStream stream = inboundStreams.get(streamId);
+    if (stream == null) {
+      MessageStreams.checkLength(length, maxMessageSize);
+      stream = inboundStreams.computeIfAbsent(streamId, i -> new MessageStreams.InboundStream(length));
+    }
+
+    // The sender only sends the final chunk once all other chunks have been acknowledged.
+    boolean last = offset + chunk.remaining() == length;
+    stream.write(offset, chunk);
+    if (!last) {
+      return null;
+    }
+    inboundStreams.remove(streamId);
+    return stream.message();
+  }
+
+  /**
+   * Returns a chunk of a streamed response.
+   */
+  private ByteBuffer pull(ByteBuffer request) {
+    long streamId = request.getLong();
+    int offset = request.getInt();
+    int length = request.getInt();
+
+    MessageStreams.OutboundStream stream = outboundStreams.get(streamId);
+    if (stream == null) {
+      throw new ProtocolException("Unknown message stream");
+    }
+
+    ByteBuffer chunk = stream.read(offset, length);
+    if (stream.isComplete()) {
+      outboundStreams.remove(streamId);
+    }
+    ByteBuffer response = ByteBuffer.allocate(chunk.remaining() + 1);
+    response.put(MessageCompression.NONE);
+    response.put(chunk);
+    response.flip();
+    return response;
+  }
+
+  /**
+   * Encodes a response, compressing it if the requester accepts compressed responses and streaming it if it's larger
+   * than the chunk size.
+   */
+  private ByteBuffer encodeResponse(ByteBuffer response, boolean compress) {
+    response.rewind();
+    ByteBuffer body = compress && response.remaining() >= compressionThreshold ? MessageCompression.compress(response) : null;
+    byte flags = body != null ? MessageCompression.COMPRESSED : MessageCompression.NONE;
+    if (body == null) {
+      body = response;
+    }
+
+    // If the response is larger than the chunk size then return the first chunk and hold the remainder of the response
+    // for the requester to pull.
+    if (body.remaining() > chunkSize) {
+      long streamId = ThreadLocalRandom.current().nextLong();
+      MessageStreams.OutboundStream stream = new MessageStreams.OutboundStream(body);
+      outboundStreams.put(streamId, stream);
+      ByteBuffer result = ByteBuffer.allocate(chunkSize + 13);
+      result.put((byte) (flags | MessageStreams.STREAM));
+      result.putLong(streamId);
+      result.putInt(stream.length());
+      result.put(stream.read(0, chunkSize));
+      result.flip();
+      return result;
+    }
+
+    ByteBuffer result = ByteBuffer.allocate(body.remaining() + 1);
+    result.put(flags);
+    result.put(body);
+    result.flip();
+    return result;
+  }
+
+  /**
+   * Discards streams that have been idle for longer than the stream timeout.
+   */
+  void expireStreams(long now) {
+    MessageStreams.expire(inboundStreams, now);
+    MessageStreams.expire(outboundStreams, now);
+  }
+
+  /**
+   * Returns the number of inbound and outbound streams in progress.
+   */
+  int streams() {
+    return inboundStreams.size() + outboundStreams.size();
+  }
+
   @Override
   public CompletableFuture<MemberCoordinator> open() {
     return super.open()
       .thenComposeAsync(v -> server.listen(), executor)
-      .thenRun(() -> server.handler(this::handle))
+      .thenRun(() -> {
+        server.handler(this::handle);
+        synchronized (this) {
+          if (expiryTimer == null) {
+            expiryTimer = MessageStreams.scheduleExpiry(() -> expireStreams(System.currentTimeMillis()), MessageStreams.EXPIRY_INTERVAL);
+          }
+        }
+      })
       .thenApply(v -> this);
   }
 
@@ -140,7 +286,17 @@ public class DefaultLocalMemberCoordinator extends AbstractMemberCoordinator imp
   public CompletableFuture<Void> close() {
     return super.close()
       .thenComposeAsync(v -> server.close(), executor)
-      .thenRun(() -> server.handler(null));
+      .thenRun(() -> {
+        server.handler(null);
+        synchronized (this) {
+          if (expiryTimer != null) {
+            expiryTimer.cancel(false);
+            expiryTimer = null;
+          }
+        }
+        inboundStreams.clear();
+        outboundStreams.clear();
+      });
   }
 
   @Override
@@ -148,4 +304,81 @@ public class DefaultLocalMemberCoordinator extends AbstractMemberCoordinator imp
     return String.format("%s[uri=%s]", getClass().getCanonicalName(), uri());
   }
 
+  /**
+   * Handlers registered for a single topic and address.<p>
+   *
+   * Routes are immutable and are replaced whenever a handler is registered or unregistered, so handlers can be looked
+   * up without locking. Each address typically has only one or two handlers per topic, so handlers are looked up by
+   * ID with a linear scan.
+   */
+  static class Route {
+    private final int[] ids;
+    private final MessageHandler<?, ?>[] handlers;
+
+    private Route(int[] ids, MessageHandler<?, ?>[] handlers) {
+      this.ids = ids;
+      this.handlers = handlers;
+    }
+
+    /**
+     * Returns a route with the given handler registered.
+     */
+    static Route of(int id, MessageHandler<ByteBuffer, ByteBuffer> handler) {
+      return new Route(new int[]{id}, new MessageHandler<?, ?>[]{handler});
+    }
+
+    /**
+     * Returns the handler with the given ID.
+     */
+    @SuppressWarnings("unchecked")
+    MessageHandler<ByteBuffer, ByteBuffer> handler(int id) {
+      for (int i = 0; i < ids.length; i++) {
+        if (ids[i] == id) {
+          // Only handlers of ByteBuffer messages are ever added to the route.
+          return (MessageHandler<ByteBuffer, ByteBuffer>) handlers[i];
+        }
+      }
+      return null;
+    }
+
+    /**
+     * Returns a copy of the route with the given handler registered.
+     */
+    Route with(int id, MessageHandler<ByteBuffer, ByteBuffer> handler) {
+      for (int i = 0; i < ids.length; i++) {
+        if (ids[i] == id) {
+          MessageHandler<?, ?>[] handlers = Arrays.copyOf(this.handlers, this.handlers.length);
+          handlers[i] = handler;
+          return new Route(ids, handlers);
+        }
+      }
+      int[] ids = Arrays.copyOf(this.ids, this.ids.length + 1);
+      MessageHandler<?, ?>[] handlers = Arrays.copyOf(this.handlers, this.handlers.length + 1);
+      ids[ids.length - 1] = id;
+      handlers[handlers.length - 1] = handler;
+      return new Route(ids, handlers);
+    }
+
+    /**
+     * Returns a copy of the route with the given handler unregistered, or {@code null} if the route is empty.
+     */
+    Route without(int id) {
+      for (int i = 0; i < ids.length; i++) {
+        if (ids[i] == id) {
+          if (ids.length == 1) {
+            return null;
+          }
+          int[] ids = new int[this.ids.length - 1];
+          MessageHandler<?, ?>[] handlers = new MessageHandler<?, ?>[this.handlers.length - 1];
+          System.arraycopy(this.ids, 0, ids, 0, i);
+          System.arraycopy(this.ids, i + 1, ids, i, ids.length - i);
+          System.arraycopy(this.handlers, 0, handlers, 0, i);
+          System.arraycopy(this.handlers, i + 1, handlers, i, handlers.length - i);
+          return new Route(ids, handlers);
+        }
+      }
+      return this;
+    }
+  }
+
 }
@@ -16,61 +16,229 @@
 package net.kuujo.copycat.cluster.internal.coordinator;
 
 import net.kuujo.copycat.cluster.internal.MemberInfo;
+import net.kuujo.copycat.cluster.internal.Topics;
 import net.kuujo.copycat.protocol.Protocol;
 import net.kuujo.copycat.protocol.ProtocolClient;
 import net.kuujo.copycat.protocol.ProtocolException;
+import net.kuujo.copycat.util.concurrent.Futures;
+import net.kuujo.copycat.util.internal.Assert;
 
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.nio.ByteBuffer;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.Executor;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
- * Default remote member coordinator implementation.
+ * Default remote member coordinator implementation.<p>
+ *
+ * The coordinator may open more than one connection to the remote member. When it does, the first connection is
+ * reserved for heartbeat, vote and leadership transfer requests so that they're never queued behind large append or
+ * snapshot requests. All other messages are assigned to one of the remaining connections by the address of the
+ * resource that sent them.
  *
  * @author <a href="http://github.com/kuujo">Jordan Halterman</a>
  */
 public class DefaultRemoteMemberCoordinator extends AbstractMemberCoordinator {
-  private final ProtocolClient client;
+  private static final int PING_TOPIC = Topics.PING.hashCode();
+  private static final int POLL_TOPIC = Topics.POLL.hashCode();
+  private static final int TRANSFER_TOPIC = Topics.TRANSFER.hashCode();
+  private final ProtocolClient[] clients;
   private final Executor executor;
+  private final boolean compression;
+  private final int compressionThreshold;
+  private final int chunkSize;
+  private final int chunkWindow;
+  private final int maxMessageSize;
+  private final AtomicBoolean negotiating = new AtomicBoolean();
+  private volatile boolean negotiated;
+  private volatile boolean compress;
 
   public DefaultRemoteMemberCoordinator(MemberInfo info, Protocol protocol, Executor executor) {
+    this(info, protocol, 1, executor);
+  }
+
+  public DefaultRemoteMemberCoordinator(MemberInfo info, Protocol protocol, int connections, Executor executor) {
     super(info);
+    Assert.arg(connections, connections > 0, "connections must be positive");
     try {
       URI realUri = new URI(info.uri());
       if (!protocol.isValidUri(realUri)) {
         throw new ProtocolException(String.format("Invalid protocol URI %s", info.uri()));
       }
-      this.client = protocol.createClient(realUri);
+      this.clients = new ProtocolClient[connections];
+      for (int i = 0; i < connections; i++) {
+        this.clients[i] = protocol.createClient(realUri);
+      }
     } catch (URISyntaxException e) {
       throw new ProtocolException(e);
     }
     this.executor = executor;
+    this.compression = MessageCompression.isEnabled(protocol);
+    this.compressionThreshold = MessageCompression.threshold(protocol);
+    this.chunkSize = MessageStreams.chunkSize(protocol);
+    this.chunkWindow = MessageStreams.chunkWindow(protocol);
+    this.maxMessageSize = MessageStreams.maxMessageSize(protocol);
+
+    // The member may have been restarted with a different configuration, so renegotiate compression whenever the
+    // connection is reestablished. Until then, messages are sent uncompressed.
+    this.clients[0].connectHandler(() -> {
+      negotiated = false;
+      compress = false;
+    });
+  }
+
+  /**
+   * Returns the client on which to send a message with the given topic and address.
+   */
+  ProtocolClient client(int topic, int address) {
+    if (clients.length == 1 || topic == PING_TOPIC || topic == POLL_TOPIC || topic == TRANSFER_TOPIC) {
+      return clients[0];
+    }
+    return clients[1 + (address & Integer.MAX_VALUE) % (clients.length - 1)];
   }
 
   @Override
   public CompletableFuture<ByteBuffer> send(String topic, int address, int id, ByteBuffer message) {
-    return CompletableFuture.supplyAsync(() -> {
-      ByteBuffer request = ByteBuffer.allocateDirect(message.capacity() + 12);
-      request.putInt(topic.hashCode());
-      request.putInt(address);
-      request.putInt(id);
-      request.put(message);
-      request.flip();
-      return request;
-    }, executor)
-      .thenCompose(client::write);
+    ProtocolClient client = client(topic.hashCode(), address);
+
+    // Clients that never block the calling thread are written to directly, avoiding a hop onto the executor.
+    if (!client.isBlocking()) {
+      try {
+        return write(client, topic.hashCode(), address, id, message).thenCompose(response -> readResponse(client, response));
+      } catch (Exception e) {
+        return Futures.exceptionalFuture(e);
+      }
+    }
+    return CompletableFuture.supplyAsync(() -> write(client, topic.hashCode(), address, id, message), executor)
+      .thenCompose(future -> future)
+      .thenCompose(response -> readResponse(client, response));
+  }
+
+  /**
+   * Builds a request for the given message and writes it to the given client.
+   */
+  private CompletableFuture<ByteBuffer> write(ProtocolClient client, int topic, int address, int id, ByteBuffer message) {
+    if (compression && !negotiated) {
+      negotiate();
+    }
+
+    // Compress the message only if compression was negotiated with the member and the message is large enough.
+    ByteBuffer body = compress && message.remaining() >= compressionThreshold ? MessageCompression.compress(message) : null;
+    byte flags = compression ? MessageCompression.ACCEPTS_COMPRESSED : MessageCompression.NONE;
+    if (body != null) {
+      flags |= MessageCompression.COMPRESSED;
+    } else {
+      body = message;
+    }
+
+    // Stream messages that are larger than the chunk size.
+    if (body.remaining() > chunkSize) {
+      return new StreamWriter(client, topic, address, id, flags, body).write();
+    }
+    ByteBuffer request = request(topic, address, id, flags, body.remaining());
+    request.put(body);
+    request.flip();
+    return client.write(request);
+  }
+
+  /**
+   * Allocates a request buffer and writes the request header to it.
+   */
+  private ByteBuffer request(int topic, int address, int id, byte flags, int length) {
+    ByteBuffer request = ByteBuffer.allocateDirect(length + 13);
+    request.putInt(topic);
+    request.putInt(address);
+    request.putInt(id);
+    request.put(flags);
+    return request;
+  }
+
+  /**
+   * Reads a response, pulling the remainder of the response from the member if it's streamed.
+   */
+  private CompletableFuture<ByteBuffer> readResponse(ProtocolClient client, ByteBuffer response) {
+    response.rewind();
+    byte flags = response.get();
+    CompletableFuture<ByteBuffer> future;
+    if ((flags & MessageStreams.STREAM) != 0) {
+      long streamId = response.getLong();
+      int length;
+      try {
+        length = MessageStreams.checkLength(response.getInt(), maxMessageSize);
+      } catch (ProtocolException e) {
+        return Futures.exceptionalFuture(e);
+      }
+      future = new StreamReader(client, streamId, length, response.slice()).read();
+    } else {
+      future = CompletableFuture.completedFuture(response.slice());
+    }
+    return (flags & MessageCompression.COMPRESSED) != 0 ? future.thenApply(MessageCompression::decompress) : future;
+  }
+
+  /**
+   * Negotiates compression with the member.<p>
+   *
+   * Messages are sent uncompressed until the member has indicated that it also has compression enabled. If the
+   * handshake fails then it's retried when the next message is sent.
+   */
+  private void negotiate() {
+    if (!negotiating.compareAndSet(false, true)) {
+      return;
+    }
+    ByteBuffer request = ByteBuffer.allocateDirect(13);
+    request.putInt(MessageCompression.HANDSHAKE_TOPIC);
+    request.putInt(0);
+    request.putInt(0);
+    request.put(MessageCompression.ACCEPTS_COMPRESSED);
+    request.flip();
+    clients[0].write(request).whenComplete((response, error) -> {
+      if (error == null) {
+        response.rewind();
+        compress = (response.get() & MessageCompression.ACCEPTS_COMPRESSED) != 0;
+        negotiated = true;
+      }
+      negotiating.set(false);
+    });
+  }
+
+  /**
+   * Returns whether the first connection to the member is connected.<p>
+   *
+   * The first connection carries heartbeats and votes, so it alone determines whether the member is reachable. The
+   * remaining connections reconnect independently, and messages sent on them while they're down fail immediately.
+   */
+  @Override
+  public boolean isConnected() {
+    return clients[0].isConnected();
   }
 
   @Override
   public CompletableFuture<MemberCoordinator> open() {
-    return super.open().thenComposeAsync(v -> client.connect(), executor).thenApply(v -> this);
+    return super.open().thenComposeAsync(v -> {
+      CompletableFuture<?>[] futures = new CompletableFuture<?>[clients.length];
+      for (int i = 0; i < clients.length; i++) {
+        futures[i] = clients[i].connect();
+      }
+      return CompletableFuture.allOf(futures);
+    }, executor).thenRun(() -> {
+      if (compression) {
+        negotiate();
+      }
+    }).thenApply(v -> this);
   }
 
   @Override
   public CompletableFuture<Void> close() {
-    return super.close().thenComposeAsync(v -> client.close(), executor);
+    return super.close().thenComposeAsync(v -> {
+      CompletableFuture<?>[] futures = new CompletableFuture<?>[clients.length];
+      for (int i = 0; i < clients.length; i++) {
+        futures[i] = clients[i].close();
+      }
+      return CompletableFuture.allOf(futures);
+    }, executor);
   }
 
   @Override
@@ -78,4 +246,172 @@ public class DefaultRemoteMemberCoordinator extends AbstractMemberCoordinator {
     return String.format("%s[uri=%s]", getClass().getCanonicalName(), uri());
   }
 
+  /**
+   * Streams a message to the member in chunks.
+   */
+  private class StreamWriter {
+    private final ProtocolClient client;
+    private final int topic;
+    private final int address;
+    private final int id;
+    private final byte flags;
+    private final ByteBuffer body;
+    private final long streamId = ThreadLocalRandom.current().nextLong();
+    private final int lastOffset;
+    private final CompletableFuture<ByteBuffer> future = new CompletableFuture<>();
+    private int offset;
+    private int inFlight;
+    private boolean done;
+
+    private StreamWriter(ProtocolClient client, int topic, int address, int id, byte flags, ByteBuffer body) {
+      this.client = client;
+      this.topic = topic;
+      this.address = address;
+      this.id = id;
+      this.flags = (byte) (flags | MessageStreams.STREAM);
+      this.body = body.slice();
+      this.lastOffset = ((this.body.remaining() - 1) / chunkSize) * chunkSize;
+    }
+
+    /**
+     * Writes the message.
+     */
+    private CompletableFuture<ByteBuffer> write() {
+      writeChunks();
+      return future;
+    }
+
+    /**
+     * Writes chunks until the chunk window is full.
+     */
+    private synchronized void writeChunks() {
+      while (!done && inFlight < chunkWindow && offset < lastOffset) {
+        int chunkOffset = offset;
+        offset += chunkSize;
+        inFlight++;
+        client.write(chunk(chunkOffset)).whenComplete((response, error) -> acknowledge(error));
+      }
+
+      // Once all other chunks have been acknowledged, write the final chunk. Its response is the message response.
+      if (!done && inFlight == 0 && offset == lastOffset) {
+        done = true;
+        client.write(chunk(lastOffset)).whenComplete((response, error) -> {
+          if (error == null) {
+            future.complete(response);
+          } else {
+            future.completeExceptionally(error);
+          }
+        });
+      }
+    }
+
+    /**
+     * Handles a chunk acknowledgement.
+     */
+    private synchronized void acknowledge(Throwable error) {
+      inFlight--;
+      if (error != null) {
+        if (!done) {
+          done = true;
+          future.completeExceptionally(error);
+        }
+      } else {
+        writeChunks();
+      }
+    }
+
+    /**
+     * Returns the chunk at the given offset.
+     */
+    private ByteBuffer chunk(int offset) {
+      int length = Math.min(chunkSize, body.remaining() - offset);
+      ByteBuffer chunk = body.duplicate();
+      chunk.position(offset);
+      chunk.limit(offset + length);
+      ByteBuffer request = request(topic, address, id, flags, length + 16);
+      request.putLong(streamId);
+      request.putInt(body.remaining());
+      request.putInt(offset);
+      request.put(chunk);
+      request.flip();
+      return request;
+    }
+  }
+
+  /**
+   * Pulls a streamed response from the member in chunks.
+   */
+  private class StreamReader {
+    private final ProtocolClient client;
+    private final long streamId;
+    private final ByteBuffer buffer;
+    private final CompletableFuture<ByteBuffer> future = new CompletableFuture<>();
+    private int offset;
+    private int received;
+    private int inFlight;
+    private boolean done;
+
+    private StreamReader(ProtocolClient client, long streamId, int length, ByteBuffer chunk) {
+      this.client = client;
+      this.streamId = streamId;
+      this.buffer = ByteBuffer.allocate(length);
+      this.offset = chunk.remaining();
+      this.received = chunk.remaining();
+      buffer.put(chunk);
+    }
+
+    /**
+     * Reads the response.
+     */
+    private CompletableFuture<ByteBuffer> read() {
+      readChunks();
+      return future;
+    }
+
+    /**
+     * Requests chunks until the chunk window is full.
+     */
+    private synchronized void readChunks() {
+      while (!done && inFlight < chunkWindow && offset < buffer.capacity()) {
+        int chunkOffset = offset;
+        int length = Math.min(chunkSize, buffer.capacity() - offset);
+        offset += length;
+        inFlight++;
+        ByteBuffer request = request(0, 0, 0, MessageStreams.PULL, 16);
+        request.putLong(streamId);
+        request.putInt(chunkOffset);
+        request.putInt(length);
+        request.flip();
+        client.write(request).whenComplete((response, error) -> receive(chunkOffset, response, error));
+      }
+
+      if (!done && received == buffer.capacity()) {
+        done = true;
+        buffer.clear();
+        future.complete(buffer);
+      }
+    }
+
+    /**
+     * Handles a response chunk.
+     */
+    private synchronized void receive(int offset, ByteBuffer response, Throwable error) {
+      inFlight--;
+      if (error != null) {
+        if (!done) {
+          done = true;
+          future.completeExceptionally(error);
+        }
+      } else if (!done) {
+        response.rewind();
+        response.get();
+        received += response.remaining();
+        ByteBuffer chunk = buffer.duplicate();
+        chunk.position(offset);
+        chunk.put(response);
+        readChunks();
+      }
+    }
+  }
+
 }
@@ -49,6 +49,13 @@ public interface MemberCoordinator extends Managed<MemberCoordinator> {
    */
   Member.State state();
 
+  /**
+   * Returns a boolean indicating whether the member is currently reachable.
+   *
+   * @return Indicates whether the member is currently reachable.
+   */
+  boolean isConnected();
+
   /**
    * Sends an internal message.
    *
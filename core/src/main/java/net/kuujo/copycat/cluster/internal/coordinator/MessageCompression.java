@@ -0,0 +1,129 @@
+/*
+ * Copyright 2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.kuujo.copycat.cluster.internal.coordinator;
+
+import net.kuujo.copycat.protocol.AbstractProtocol;
+import net.kuujo.copycat.protocol.Protocol;
+import net.kuujo.copycat.protocol.ProtocolException;
+
+import java.nio.ByteBuffer;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Member message compression.<p>
+ *
+ * Requests between members carry a flags byte after the message header, and responses are prefixed with a flags
+ * byte. The flags indicate whether the message body is compressed and whether the sender accepts compressed
+ * responses. Compressed bodies are prefixed with their uncompressed length. The remaining flags are used for
+ * {@link MessageStreams chunked streaming}.<p>
+ *
+ * The flags byte is written whether or not compression is enabled, so members using this format can't exchange
+ * messages with members that predate it. Requests are laid out as {@code [int topic][int address][int id][byte flags]
+ * [body]} and responses as {@code [byte flags][body]}.
+ *
+ * @author <a href="http://github.com/kuujo">Jordan Halterman</a>
+ */
+final class MessageCompression {
+  static final byte NONE = 0;
+  static final byte COMPRESSED = 1;
+  static final byte ACCEPTS_COMPRESSED = 2;
+
+  /**
+   * Topic used to negotiate compression when a member connects.
+   */
+  static final int HANDSHAKE_TOPIC = "copycat.handshake".hashCode();
+
+  private MessageCompression() {
+  }
+
+  /**
+   * Returns a boolean indicating whether compression is enabled for the given protocol.
+   */
+  static boolean isEnabled(Protocol protocol) {
+    return protocol instanceof AbstractProtocol && ((AbstractProtocol) protocol).isCompression();
+  }
+
+  /**
+   * Returns the minimum size of messages to compress for the given protocol.
+   */
+  static int threshold(Protocol protocol) {
+    return protocol instanceof AbstractProtocol ? ((AbstractProtocol) protocol).getCompressionThreshold() : Integer.MAX_VALUE;
+  }
+
+  /**
+   * Compresses the remaining bytes of the given buffer.
+   *
+   * @return The compressed buffer or {@code null} if the compressed message would not be smaller than the original.
+   */
+  static ByteBuffer compress(ByteBuffer buffer) {
+    byte[] bytes = new byte[buffer.remaining()];
+    buffer.duplicate().get(bytes);
+
+    Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+    try {
+      deflater.setInput(bytes);
+      deflater.finish();
+      byte[] compressed = new byte[bytes.length];
+      int length = 0;
+      while (!deflater.finished() && length < compressed.length) {
+        length += deflater.deflate(compressed, length, compressed.length - length);
+      }
+      if (!deflater.finished() || length + 4 >= bytes.length) {
+        return null;
+      }
+      ByteBuffer result = ByteBuffer.allocate(length + 4);
+      result.putInt(bytes.length);
+      result.put(compressed, 0, length);
+      result.flip();
+      return result;
+    } finally {
+      deflater.end();
+    }
+  }
+
+  /**
+   * Decompresses the remaining bytes of the given buffer.
+   */
+  static ByteBuffer decompress(ByteBuffer buffer) {
+    byte[] bytes = new byte[buffer.remaining()];
+    buffer.duplicate().get(bytes);
+
+    Inflater inflater = new Inflater();
+    try {
+      inflater.setInput(bytes, 4, bytes.length - 4);
+      byte[] decompressed = new byte[ByteBuffer.wrap(bytes).getInt()];
+      int length = 0;
+      while (!inflater.finished() && length < decompressed.length) {
+        int read = inflater.inflate(decompressed, length, decompressed.length - length);
+        if (read == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+          break;
+        }
+        length += read;
+      }
+      if (length != decompressed.length) {
+        throw new ProtocolException("Malformed compressed message");
+      }
+      return ByteBuffer.wrap(decompressed);
+    } catch (DataFormatException e) {
+      throw new ProtocolException(e);
+    } finally {
+      inflater.end();
+    }
+  }
+
+}
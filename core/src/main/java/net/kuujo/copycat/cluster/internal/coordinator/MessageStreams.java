@@ -0,0 +1,228 @@
+/*
+ * Copyright 2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.kuujo.copycat.cluster.internal.coordinator;
+
+import net.kuujo.copycat.protocol.AbstractProtocol;
+import net.kuujo.copycat.protocol.Protocol;
+import net.kuujo.copycat.protocol.ProtocolException;
+
+import java.nio.ByteBuffer;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Member message streams.<p>
+ *
+ * Messages larger than the protocol's chunk size are transferred in chunks so that each chunk is subject to its own
+ * request timeout and the receiver can assemble the message into a single buffer of the exact size. Request chunks
+ * are flagged with {@link #STREAM} and carry the stream ID, the total message length and the chunk offset. The
+ * receiver acknowledges each chunk, and the sender limits the number of unacknowledged chunks to the protocol's
+ * chunk window. The final chunk is only sent once all other chunks have been acknowledged, and its response is the
+ * response to the message.<p>
+ *
+ * Large responses are returned with the {@link #STREAM} flag along with the stream ID, the total response length and
+ * the first chunk. The requester then pulls the remaining chunks with requests flagged with {@link #PULL}.<p>
+ *
+ * Streaming does not reduce heap usage. It bounds the size of each transport frame and the number of chunks in
+ * flight, but message handlers consume complete messages, so the sender holds the entire serialized message until
+ * the final chunk is acknowledged and the receiver allocates a buffer of the entire message length as soon as the
+ * first chunk arrives. To bound that allocation, streams longer than the protocol's maximum message size are
+ * rejected, and streams that are abandoned part way through are discarded by a timer once they've been idle for
+ * {@link #STREAM_TIMEOUT} milliseconds.
+ *
+ * @author <a href="http://github.com/kuujo">Jordan Halterman</a>
+ */
+final class MessageStreams {
+  static final byte STREAM = 4;
+  static final byte PULL = 8;
+
+  /**
+   * Time in milliseconds after which an idle stream is discarded.
+   */
+  static final long STREAM_TIMEOUT = 60000;
+
+  /**
+   * Interval in milliseconds at which idle streams are expired.
+   */
+  static final long EXPIRY_INTERVAL = 5000;
+
+  private static final ScheduledExecutorService TIMER = Executors.newSingleThreadScheduledExecutor(r -> {
+    Thread thread = new Thread(r, "copycat-stream-expiry");
+    thread.setDaemon(true);
+    return thread;
+  });
+
+  private MessageStreams() {
+  }
+
+  /**
+   * Returns the maximum chunk size for the given protocol.
+   */
+  static int chunkSize(Protocol protocol) {
+    return protocol instanceof AbstractProtocol ? ((AbstractProtocol) protocol).getChunkSize() : Integer.MAX_VALUE;
+  }
+
+  /**
+   * Returns the chunk window for the given protocol.
+   */
+  static int chunkWindow(Protocol protocol) {
+    return protocol instanceof AbstractProtocol ? ((AbstractProtocol) protocol).getChunkWindow() : 1;
+  }
+
+  /**
+   * Returns the maximum message size for the given protocol.
+   */
+  static int maxMessageSize(Protocol protocol) {
+    return protocol instanceof AbstractProtocol ? ((AbstractProtocol) protocol).getMaxMessageSize() : Integer.MAX_VALUE;
+  }
+
+  /**
+   * Checks that a streamed message length is within the maximum message size.
+   *
+   * @throws ProtocolException If the length is negative or greater than the maximum message size
+   */
+  static int checkLength(int length, int maxMessageSize) {
+    if (length < 0 || length > maxMessageSize) {
+      throw new ProtocolException(String.format("Message stream of %d bytes exceeds the maximum message size of %d bytes", length, maxMessageSize));
+    }
+    return length;
+  }
+
+  /**
+   * Runs the given expiry task on a shared timer at the given interval until the returned future is cancelled.
+   */
+  static ScheduledFuture<?> scheduleExpiry(Runnable task, long interval) {
+    return TIMER.scheduleWithFixedDelay(task, interval, interval, TimeUnit.MILLISECONDS);
+  }
+
+  /**
+   * Discards streams that have been idle for longer than the stream timeout as of the given time.
+   */
+  static void expire(Map<Long, ? extends Stream> streams, long now) {
+    Iterator<? extends Stream> iterator = streams.values().iterator();
+    while (iterator.hasNext()) {
+      if (iterator.next().isExpired(now)) {
+        iterator.remove();
+      }
+    }
+  }
+
+  /**
+   * Base message stream.
+   */
+  static abstract class Stream {
+    protected final ByteBuffer buffer;
+    private volatile long timestamp = System.currentTimeMillis();
+
+    protected Stream(ByteBuffer buffer) {
+      this.buffer = buffer;
+    }
+
+    /**
+     * Marks the stream as active.
+     */
+    protected void touch() {
+      timestamp = System.currentTimeMillis();
+    }
+
+    /**
+     * Returns a boolean indicating whether the stream has been idle for longer than the stream timeout.
+     */
+    boolean isExpired(long now) {
+      return now - timestamp > STREAM_TIMEOUT;
+    }
+  }
+
+  /**
+   * Stream of request chunks being assembled by the receiver.
+   */
+  static class InboundStream extends Stream {
+    private int received;
+
+    InboundStream(int length) {
+      super(ByteBuffer.allocate(length));
+    }
+
+    /**
+     * Writes a chunk to the stream at the given offset.
+     */
+    synchronized void write(int offset, ByteBuffer chunk) {
+      touch();
+      if (offset < 0 || offset + chunk.remaining() > buffer.capacity()) {
+        throw new ProtocolException("Invalid chunk offset " + offset);
+      }
+      received += chunk.remaining();
+      ByteBuffer slice = buffer.duplicate();
+      slice.position(offset);
+      slice.put(chunk);
+    }
+
+    /**
+     * Returns the assembled message.
+     */
+    synchronized ByteBuffer message() {
+      if (received != buffer.capacity()) {
+        throw new ProtocolException("Incomplete message stream");
+      }
+      return buffer.duplicate();
+    }
+  }
+
+  /**
+   * Stream of response chunks being pulled by the requester.
+   */
+  static class OutboundStream extends Stream {
+    private int sent;
+
+    OutboundStream(ByteBuffer buffer) {
+      super(buffer.slice());
+    }
+
+    /**
+     * Returns the length of the streamed response.
+     */
+    int length() {
+      return buffer.remaining();
+    }
+
+    /**
+     * Reads a chunk from the stream.
+     */
+    synchronized ByteBuffer read(int offset, int length) {
+      touch();
+      if (offset < 0 || length < 0 || offset + length > buffer.remaining()) {
+        throw new ProtocolException("Invalid chunk offset " + offset);
+      }
+      sent += length;
+      ByteBuffer chunk = buffer.duplicate();
+      chunk.position(offset);
+      chunk.limit(offset + length);
+      return chunk.slice();
+    }
+
+    /**
+     * Returns a boolean indicating whether every byte of the stream has been read.
+     */
+    synchronized boolean isComplete() {
+      return sent >= buffer.remaining();
+    }
+  }
+
+}
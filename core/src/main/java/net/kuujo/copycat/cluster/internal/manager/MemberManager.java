@@ -28,6 +28,13 @@ import java.util.concurrent.Executor;
  */
 public interface MemberManager extends Member {
 
+  /**
+   * Returns a boolean indicating whether the member is currently reachable.
+   *
+   * @return Indicates whether the member is currently reachable.
+   */
+  boolean isConnected();
+
   /**
    * Sends a message to the member.
    *
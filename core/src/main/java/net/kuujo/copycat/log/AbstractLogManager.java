@@ -285,12 +285,13 @@ public abstract class AbstractLogManager extends AbstractLoggable implements Log
 
   @Override
   public void compact(long index) throws IOException {
-    // Iterate through all segments in the log. If a segment's first index matches the given index or its last index
-    // is less than the given index then remove/close/delete the segment.
+    // Iterate through all segments in the log. If a segment begins before the given index and contains no entries at
+    // or after the given index then remove/close/delete the segment. The segment beginning at the given index and the
+    // current segment are always retained.
     for (Iterator<Map.Entry<Long, LogSegment>> iterator = segments.entrySet().iterator(); iterator.hasNext();) {
       Map.Entry<Long, LogSegment> entry = iterator.next();
       LogSegment segment = entry.getValue();
-      if (index == segment.firstIndex() || (segment.lastIndex() != null && index > segment.lastIndex())) {
+      if (segment != currentSegment && entry.getKey() < index && (segment.lastIndex() == null || segment.lastIndex() < index)) {
         iterator.remove();
         try {
           segment.close();
@@ -17,6 +17,7 @@ package net.kuujo.copycat.protocol;
 
 import net.kuujo.copycat.util.AbstractConfigurable;
 import net.kuujo.copycat.util.Configurable;
+import net.kuujo.copycat.util.internal.Assert;
 
 import java.util.Map;
 
@@ -26,6 +27,17 @@ import java.util.Map;
  * @author <a href="http://github.com/kuujo">Jordan Halterman</a>
  */
 public abstract class AbstractProtocol extends AbstractConfigurable implements Protocol {
+  public static final String PROTOCOL_COMPRESSION = "compression";
+  public static final String PROTOCOL_COMPRESSION_THRESHOLD = "compression-threshold";
+  public static final String PROTOCOL_CHUNK_SIZE = "chunk-size";
+  public static final String PROTOCOL_CHUNK_WINDOW = "chunk-window";
+  public static final String PROTOCOL_MAX_MESSAGE_SIZE = "max-message-size";
+
+  private static final boolean DEFAULT_PROTOCOL_COMPRESSION = false;
+  private static final int DEFAULT_PROTOCOL_COMPRESSION_THRESHOLD = 1024;
+  private static final int DEFAULT_PROTOCOL_CHUNK_SIZE = 256 * 1024;
+  private static final int DEFAULT_PROTOCOL_CHUNK_WINDOW = 4;
+  private static final int DEFAULT_PROTOCOL_MAX_MESSAGE_SIZE = 64 * 1024 * 1024;
 
   protected AbstractProtocol() {
   }
@@ -38,4 +50,170 @@ public abstract class AbstractProtocol extends AbstractConfigurable implements P
     super(config);
   }
 
+  /**
+   * Sets whether to compress messages.<p>
+   *
+   * Compression is negotiated when a member connects to another member, and messages are only compressed if both
+   * members have compression enabled. Only messages at least as large as the compression threshold are compressed,
+   * so small messages like heartbeats are always sent uncompressed.
+   *
+   * @param compression Whether to compress messages.
+   */
+  public void setCompression(boolean compression) {
+    put(PROTOCOL_COMPRESSION, compression);
+  }
+
+  /**
+   * Returns a boolean indicating whether message compression is enabled.
+   *
+   * @return Indicates whether message compression is enabled.
+   */
+  public boolean isCompression() {
+    return get(PROTOCOL_COMPRESSION, DEFAULT_PROTOCOL_COMPRESSION);
+  }
+
+  /**
+   * Sets whether to compress messages, returning the protocol for method chaining.
+   *
+   * @param compression Whether to compress messages.
+   * @return The protocol.
+   */
+  public AbstractProtocol withCompression(boolean compression) {
+    setCompression(compression);
+    return this;
+  }
+
+  /**
+   * Sets the minimum size in bytes of messages to compress.
+   *
+   * @param threshold The minimum size in bytes of messages to compress.
+   * @throws java.lang.IllegalArgumentException If the threshold is negative
+   */
+  public void setCompressionThreshold(int threshold) {
+    put(PROTOCOL_COMPRESSION_THRESHOLD, Assert.arg(threshold, threshold >= 0, "compression threshold must be non-negative"));
+  }
+
+  /**
+   * Returns the minimum size in bytes of messages to compress.
+   *
+   * @return The minimum size in bytes of messages to compress.
+   */
+  public int getCompressionThreshold() {
+    return get(PROTOCOL_COMPRESSION_THRESHOLD, DEFAULT_PROTOCOL_COMPRESSION_THRESHOLD);
+  }
+
+  /**
+   * Sets the minimum size in bytes of messages to compress, returning the protocol for method chaining.
+   *
+   * @param threshold The minimum size in bytes of messages to compress.
+   * @return The protocol.
+   * @throws java.lang.IllegalArgumentException If the threshold is negative
+   */
+  public AbstractProtocol withCompressionThreshold(int threshold) {
+    setCompressionThreshold(threshold);
+    return this;
+  }
+
+  /**
+   * Sets the maximum size in bytes of a single message chunk.<p>
+   *
+   * Messages larger than the chunk size are streamed to the receiving member in chunks, each of which is sent as a
+   * separate request and so is subject to its own request timeout. Large responses are likewise pulled from the
+   * responding member in chunks.
+   *
+   * @param chunkSize The maximum size in bytes of a single message chunk.
+   * @throws java.lang.IllegalArgumentException If the chunk size is not positive
+   */
+  public void setChunkSize(int chunkSize) {
+    put(PROTOCOL_CHUNK_SIZE, Assert.arg(chunkSize, chunkSize > 0, "chunk size must be positive"));
+  }
+
+  /**
+   * Returns the maximum size in bytes of a single message chunk.
+   *
+   * @return The maximum size in bytes of a single message chunk.
+   */
+  public int getChunkSize() {
+    return get(PROTOCOL_CHUNK_SIZE, DEFAULT_PROTOCOL_CHUNK_SIZE);
+  }
+
+  /**
+   * Sets the maximum size in bytes of a single message chunk, returning the protocol for method chaining.
+   *
+   * @param chunkSize The maximum size in bytes of a single message chunk.
+   * @return The protocol.
+   * @throws java.lang.IllegalArgumentException If the chunk size is not positive
+   */
+  public AbstractProtocol withChunkSize(int chunkSize) {
+    setChunkSize(chunkSize);
+    return this;
+  }
+
+  /**
+   * Sets the maximum number of unacknowledged chunks in flight for a single streamed message.
+   *
+   * @param chunkWindow The maximum number of unacknowledged chunks in flight.
+   * @throws java.lang.IllegalArgumentException If the chunk window is not positive
+   */
+  public void setChunkWindow(int chunkWindow) {
+    put(PROTOCOL_CHUNK_WINDOW, Assert.arg(chunkWindow, chunkWindow > 0, "chunk window must be positive"));
+  }
+
+  /**
+   * Returns the maximum number of unacknowledged chunks in flight for a single streamed message.
+   *
+   * @return The maximum number of unacknowledged chunks in flight.
+   */
+  public int getChunkWindow() {
+    return get(PROTOCOL_CHUNK_WINDOW, DEFAULT_PROTOCOL_CHUNK_WINDOW);
+  }
+
+  /**
+   * Sets the maximum number of unacknowledged chunks in flight for a single streamed message, returning the protocol
+   * for method chaining.
+   *
+   * @param chunkWindow The maximum number of unacknowledged chunks in flight.
+   * @return The protocol.
+   * @throws java.lang.IllegalArgumentException If the chunk window is not positive
+   */
+  public AbstractProtocol withChunkWindow(int chunkWindow) {
+    setChunkWindow(chunkWindow);
+    return this;
+  }
+
+  /**
+   * Sets the maximum size in bytes of a streamed message.<p>
+   *
+   * Streamed messages are assembled in a single buffer of the message's full length, which is allocated when the
+   * first chunk is received. Streams that announce a length greater than the maximum message size are rejected
+   * before any memory is allocated for them.
+   *
+   * @param maxMessageSize The maximum size in bytes of a streamed message.
+   * @throws java.lang.IllegalArgumentException If the maximum message size is not positive
+   */
+  public void setMaxMessageSize(int maxMessageSize) {
+    put(PROTOCOL_MAX_MESSAGE_SIZE, Assert.arg(maxMessageSize, maxMessageSize > 0, "maximum message size must be positive"));
+  }
+
+  /**
+   * Returns the maximum size in bytes of a streamed message.
+   *
+   * @return The maximum size in bytes of a streamed message.
+   */
+  public int getMaxMessageSize() {
+    return get(PROTOCOL_MAX_MESSAGE_SIZE, DEFAULT_PROTOCOL_MAX_MESSAGE_SIZE);
+  }
+
+  /**
+   * Sets the maximum size in bytes of a streamed message, returning the protocol for method chaining.
+   *
+   * @param maxMessageSize The maximum size in bytes of a streamed message.
+   * @return The protocol.
+   * @throws java.lang.IllegalArgumentException If the maximum message size is not positive
+   */
+  public AbstractProtocol withMaxMessageSize(int maxMessageSize) {
+    setMaxMessageSize(maxMessageSize);
+    return this;
+  }
+
 }
@@ -14,21 +14,21 @@
  */
 package net.kuujo.copycat.protocol;
 
-import net.kuujo.copycat.util.concurrent.NamedThreadFactory;
+import net.kuujo.copycat.util.concurrent.Futures;
 
 import java.nio.ByteBuffer;
 import java.util.Map;
 import java.util.concurrent.CompletableFuture;
-import java.util.concurrent.Executor;
-import java.util.concurrent.Executors;
 
 /**
- * Local protocol client implementation.
+ * Local protocol client implementation.<p>
+ *
+ * Requests are passed directly to the server in the calling thread without being copied. The server's handler is
+ * responsible for moving the request onto the thread of the resource to which it's addressed.
  *
  * @author <a href="http://github.com/kuujo">Jordan Halterman</a>
  */
 public class LocalProtocolClient implements ProtocolClient {
-  private final Executor executor = Executors.newSingleThreadExecutor(new NamedThreadFactory("copycat-protocol-thread-%d"));
   private final String address;
   private final Map<String, LocalProtocolServer> registry;
 
@@ -40,22 +40,16 @@ public class LocalProtocolClient implements ProtocolClient {
   @Override
   public CompletableFuture<ByteBuffer> write(ByteBuffer request) {
     request.rewind();
-    CompletableFuture<ByteBuffer> future = new CompletableFuture<>();
-    executor.execute(() -> {
-      LocalProtocolServer server = registry.get(address);
-      if (server != null) {
-        server.handle(request).whenComplete((response, error) -> {
-          if (error != null) {
-            executor.execute(() -> future.completeExceptionally(error));
-          } else {
-            executor.execute(() -> future.complete(response));
-          }
-        });
-      } else {
-        future.completeExceptionally(new ProtocolException(String.format("Invalid server address %s", address)));
-      }
-    });
-    return future;
+    LocalProtocolServer server = registry.get(address);
+    if (server != null) {
+      return server.handle(request);
+    }
+    return Futures.exceptionalFuture(new ProtocolException(String.format("Invalid server address %s", address)));
+  }
+
+  @Override
+  public boolean isBlocking() {
+    return false;
   }
 
   @Override
@@ -15,13 +15,10 @@
 package net.kuujo.copycat.protocol;
 
 import net.kuujo.copycat.util.concurrent.Futures;
-import net.kuujo.copycat.util.concurrent.NamedThreadFactory;
 
 import java.nio.ByteBuffer;
 import java.util.Map;
 import java.util.concurrent.CompletableFuture;
-import java.util.concurrent.Executor;
-import java.util.concurrent.Executors;
 
 /**
  * Local protocol server implementation.
@@ -29,10 +26,9 @@ import java.util.concurrent.Executors;
  * @author <a href="http://github.com/kuujo">Jordan Halterman</a>
  */
 public class LocalProtocolServer implements ProtocolServer {
-  private final Executor executor = Executors.newSingleThreadExecutor(new NamedThreadFactory("copycat-protocol-thread-%d"));
   private final String address;
   private final Map<String, LocalProtocolServer> registry;
-  private ProtocolHandler handler;
+  private volatile ProtocolHandler handler;
 
   LocalProtocolServer(String address, Map<String, LocalProtocolServer> registry) {
     this.address = address;
@@ -45,31 +41,26 @@ public class LocalProtocolServer implements ProtocolServer {
   }
 
   CompletableFuture<ByteBuffer> handle(ByteBuffer request) {
+    ProtocolHandler handler = this.handler;
     if (handler == null) {
       return Futures.exceptionalFuture(new ProtocolException("No protocol handler registered"));
     }
-    return CompletableFuture.supplyAsync(() -> handler, executor)
-      .thenComposeAsync(handler -> handler.apply(request))
-      .thenApply(response -> {
-        response.rewind();
-        return response;
-      });
+    return handler.apply(request).thenApply(response -> {
+      response.rewind();
+      return response;
+    });
   }
 
   @Override
   public CompletableFuture<Void> listen() {
-    return CompletableFuture.supplyAsync(() -> {
-      registry.put(address, this);
-      return null;
-    }, executor);
+    registry.put(address, this);
+    return CompletableFuture.completedFuture(null);
   }
 
   @Override
   public CompletableFuture<Void> close() {
-    return CompletableFuture.supplyAsync(() -> {
-      registry.remove(address);
-      return null;
-    }, executor);
+    registry.remove(address);
+    return CompletableFuture.completedFuture(null);
   }
 
 }
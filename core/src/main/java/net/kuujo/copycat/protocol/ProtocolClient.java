@@ -30,6 +30,41 @@ public interface ProtocolClient extends ProtocolWriter {
    */
   CompletableFuture<Void> connect();
 
+  /**
+   * Returns a boolean indicating whether the client is currently connected.<p>
+   *
+   * Clients that transparently reconnect lost connections report {@code false} while reconnecting, during which
+   * writes are failed immediately. Clients that don't track connection state are always considered connected.
+   *
+   * @return Indicates whether the client is currently connected.
+   */
+  default boolean isConnected() {
+    return true;
+  }
+
+  /**
+   * Returns a boolean indicating whether writing a request may block the calling thread.<p>
+   *
+   * Requests to clients that never block are built and written on the calling thread. Requests to all other clients
+   * are built and written on the member's executor so that the caller is never blocked by the transport.
+   *
+   * @return Indicates whether writing a request may block the calling thread.
+   */
+  default boolean isBlocking() {
+    return true;
+  }
+
+  /**
+   * Sets a handler to be called each time the client establishes a connection.<p>
+   *
+   * Clients that transparently reconnect lost connections call the handler after the initial connection and after
+   * each reconnect. Clients that don't track connection state never call the handler.
+   *
+   * @param handler The handler to call once a connection has been established.
+   */
+  default void connectHandler(Runnable handler) {
+  }
+
   /**
    * Closes the protocol client.
    *
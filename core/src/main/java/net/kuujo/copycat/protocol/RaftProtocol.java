@@ -19,6 +19,7 @@ import net.kuujo.copycat.cluster.MessageHandler;
 import net.kuujo.copycat.protocol.rpc.*;
 
 import java.util.concurrent.CompletableFuture;
+import java.util.function.Predicate;
 
 /**
  * Raft protocol.
@@ -123,4 +124,47 @@ public interface RaftProtocol extends Managed {
    */
   RaftProtocol commitHandler(MessageHandler<CommitRequest, CommitResponse> handler);
 
+  /**
+   * Sends a protocol leadership transfer request.
+   *
+   * @param request The protocol transfer request.
+   * @return A completable future to be completed with the transfer response.
+   */
+  CompletableFuture<TransferResponse> transfer(TransferRequest request);
+
+  /**
+   * Registers a protocol leadership transfer request handler.
+   *
+   * @param handler A protocol transfer request handler.
+   * @return The Raft protocol.
+   */
+  RaftProtocol transferHandler(MessageHandler<TransferRequest, TransferResponse> handler);
+
+  /**
+   * Sends a protocol snapshot install request.
+   *
+   * @param request The protocol install request.
+   * @return A completable future to be completed with the install response.
+   */
+  CompletableFuture<InstallResponse> install(InstallRequest request);
+
+  /**
+   * Registers a protocol snapshot install request handler.
+   *
+   * @param handler A protocol install request handler.
+   * @return The Raft protocol.
+   */
+  RaftProtocol installHandler(MessageHandler<InstallRequest, InstallResponse> handler);
+
+  /**
+   * Registers a connection handler.<p>
+   *
+   * The connection handler is used to determine whether a member is currently reachable so that requests to members
+   * whose connections are known to be down can be skipped rather than left to time out.
+   *
+   * @param handler A predicate indicating whether the given member URI is currently reachable.
+   * @return The Raft protocol.
+   */
+  RaftProtocol connectionHandler(Predicate<String> handler);
+
 }
@@ -54,12 +54,27 @@ abstract class AbstractRequest implements Request {
    * @param <U> The request type.
    */
   protected static abstract class Builder<T extends Builder<T, U>, U extends AbstractRequest> implements Request.Builder<T, U> {
-    protected final U request;
+    protected U request;
 
     protected Builder(U request) {
       this.request = request;
     }
 
+    /**
+     * Resets the builder to build the given request.<p>
+     *
+     * Previously built requests are not modified by the builder once it has been reset, so a builder that is confined
+     * to a single thread can be reset and reused rather than allocating a new builder for each request.
+     *
+     * @param request The request to build.
+     * @return The request builder.
+     */
+    @SuppressWarnings("unchecked")
+    protected T reset(U request) {
+      this.request = request;
+      return (T) this;
+    }
+
     @Override
     @SuppressWarnings("unchecked")
     public T withId(Object id) {
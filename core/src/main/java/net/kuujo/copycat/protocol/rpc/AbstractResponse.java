@@ -66,12 +66,27 @@ abstract class AbstractResponse implements Response {
    * @param <U> The response type.
    */
   protected static abstract class Builder<T extends Builder<T, U>, U extends AbstractResponse> implements Response.Builder<T, U> {
-    protected final U response;
+    protected U response;
 
     protected Builder(U response) {
       this.response = response;
     }
 
+    /**
+     * Resets the builder to build the given response.<p>
+     *
+     * Previously built responses are not modified by the builder once it has been reset, so a builder that is confined
+     * to a single thread can be reset and reused rather than allocating a new builder for each response.
+     *
+     * @param response The response to build.
+     * @return The response builder.
+     */
+    @SuppressWarnings("unchecked")
+    protected T reset(U response) {
+      this.response = response;
+      return (T) this;
+    }
+
     @Override
     @SuppressWarnings("unchecked")
     public T withId(Object id) {
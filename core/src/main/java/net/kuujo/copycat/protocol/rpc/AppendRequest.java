@@ -157,6 +157,15 @@ public class AppendRequest extends AbstractRequest {
       super(request);
     }
 
+    /**
+     * Resets the builder to build a new append request.
+     *
+     * @return The append request builder.
+     */
+    public Builder reset() {
+      return reset(new AppendRequest());
+    }
+
     /**
      * Sets the request term.
      *
@@ -47,6 +47,8 @@ public class AppendResponse extends AbstractResponse {
   private long term;
   private boolean succeeded;
   private Long logIndex;
+  private Long conflictTerm;
+  private Long conflictIndex;
 
   /**
    * Returns the requesting node's current term.
@@ -75,9 +77,27 @@ public class AppendResponse extends AbstractResponse {
     return logIndex;
   }
 
+  /**
+   * Returns the term of the replica's entry that conflicted with the request.
+   *
+   * @return The conflicting term or {@code null} if the append did not fail on a term mismatch.
+   */
+  public Long conflictTerm() {
+    return conflictTerm;
+  }
+
+  /**
+   * Returns the first index in the replica's log for the conflicting term.
+   *
+   * @return The first index of the conflicting term or {@code null} if the append did not fail on a term mismatch.
+   */
+  public Long conflictIndex() {
+    return conflictIndex;
+  }
+
   @Override
   public int hashCode() {
-    return Objects.hash(id, member, term, succeeded, logIndex);
+    return Objects.hash(id, member, term, succeeded, logIndex, conflictTerm, conflictIndex);
   }
 
   @Override
@@ -89,14 +109,16 @@ public class AppendResponse extends AbstractResponse {
         && response.member.equals(member)
         && response.term == term
         && response.succeeded == succeeded
-        && response.logIndex.equals(logIndex);
+        && response.logIndex.equals(logIndex)
+        && Objects.equals(response.conflictTerm, conflictTerm)
+        && Objects.equals(response.conflictIndex, conflictIndex);
     }
     return false;
   }
 
   @Override
   public String toString() {
-    return String.format("%s[id=%s, status=%s, term=%d, succeeded=%b, logIndex=%d]", getClass().getSimpleName(), id, status, term, succeeded, logIndex);
+    return String.format("%s[id=%s, status=%s, term=%d, succeeded=%b, logIndex=%d, conflictTerm=%d, conflictIndex=%d]", getClass().getSimpleName(), id, status, term, succeeded, logIndex, conflictTerm, conflictIndex);
   }
 
   /**
@@ -111,6 +133,15 @@ public class AppendResponse extends AbstractResponse {
       super(response);
     }
 
+    /**
+     * Resets the builder to build a new append response.
+     *
+     * @return The append response builder.
+     */
+    public Builder reset() {
+      return reset(new AppendResponse());
+    }
+
     /**
      * Sets the response term.
      *
@@ -144,6 +175,28 @@ public class AppendResponse extends AbstractResponse {
       return this;
     }
 
+    /**
+     * Sets the term of the replica's entry that conflicted with the request.
+     *
+     * @param term The conflicting term.
+     * @return The append response builder.
+     */
+    public Builder withConflictTerm(Long term) {
+      response.conflictTerm = Assert.arg(term, term == null || term > 0, "conflict term must be greater than zero");
+      return this;
+    }
+
+    /**
+     * Sets the first index in the replica's log for the conflicting term.
+     *
+     * @param index The first index of the conflicting term.
+     * @return The append response builder.
+     */
+    public Builder withConflictIndex(Long index) {
+      response.conflictIndex = Assert.index(index, index == null || index > 0, "conflict index must be greater than zero");
+      return this;
+    }
+
     @Override
     public AppendResponse build() {
       super.build();
@@ -0,0 +1,251 @@
+/*
+ * Copyright 2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.kuujo.copycat.protocol.rpc;
+
+import net.kuujo.copycat.util.internal.Assert;
+
+import java.nio.ByteBuffer;
+import java.util.Objects;
+
+/**
+ * Protocol snapshot install request.<p>
+ *
+ * Install requests are sent by the leader to replicas whose required entries precede the first entry in the leader's
+ * log. The snapshot entry at the head of the leader's log is streamed to the replica in chunks, each identified by its
+ * byte offset within the snapshot. If a chunk is lost, the replica responds with the offset it expects next, allowing
+ * the leader to resume the transfer without restarting it.
+ *
+ * @author <a href="http://github.com/kuujo">Jordan Halterman</a>
+ */
+public class InstallRequest extends AbstractRequest {
+
+  /**
+   * Returns a new install request builder.
+   *
+   * @return A new install request builder.
+   */
+  public static Builder builder() {
+    return new Builder();
+  }
+
+  /**
+   * Returns an install request builder for an existing request.
+   *
+   * @param request The request to build.
+   * @return The install request builder.
+   */
+  public static Builder builder(InstallRequest request) {
+    return new Builder(request);
+  }
+
+  private long term;
+  private String leader;
+  private long snapshotIndex;
+  private long snapshotTerm;
+  private int offset;
+  private ByteBuffer data;
+  private boolean complete;
+
+  /**
+   * Returns the requesting node's current term.
+   *
+   * @return The requesting node's current term.
+   */
+  public long term() {
+    return term;
+  }
+
+  /**
+   * Returns the requesting leader address.
+   *
+   * @return The leader's address.
+   */
+  public String leader() {
+    return leader;
+  }
+
+  /**
+   * Returns the index of the snapshot entry in the leader's log.
+   *
+   * @return The index of the snapshot entry.
+   */
+  public long snapshotIndex() {
+    return snapshotIndex;
+  }
+
+  /**
+   * Returns the term of the snapshot entry in the leader's log.
+   *
+   * @return The term of the snapshot entry.
+   */
+  public long snapshotTerm() {
+    return snapshotTerm;
+  }
+
+  /**
+   * Returns the byte offset of the chunk within the snapshot entry.
+   *
+   * @return The byte offset of the chunk.
+   */
+  public int offset() {
+    return offset;
+  }
+
+  /**
+   * Returns the snapshot chunk.
+   *
+   * @return The snapshot chunk.
+   */
+  public ByteBuffer data() {
+    return data;
+  }
+
+  /**
+   * Returns a boolean indicating whether this is the last chunk of the snapshot.
+   *
+   * @return Indicates whether this is the last chunk of the snapshot.
+   */
+  public boolean complete() {
+    return complete;
+  }
+
+  @Override
+  public int hashCode() {
+    return Objects.hash(id, member, term, leader, snapshotIndex, snapshotTerm, offset, data, complete);
+  }
+
+  @Override
+  public boolean equals(Object object) {
+    if (object instanceof InstallRequest) {
+      InstallRequest request = (InstallRequest) object;
+      return request.id.equals(id)
+        && request.member.equals(member)
+        && request.term == term
+        && request.leader.equals(leader)
+        && request.snapshotIndex == snapshotIndex
+        && request.snapshotTerm == snapshotTerm
+        && request.offset == offset
+        && request.data.equals(data)
+        && request.complete == complete;
+    }
+    return false;
+  }
+
+  @Override
+  public String toString() {
+    return String.format("%s[id=%s, term=%d, leader=%s, snapshotIndex=%d, snapshotTerm=%d, offset=%d, data=[...], complete=%b]", getClass().getSimpleName(), id, term, leader, snapshotIndex, snapshotTerm, offset, complete);
+  }
+
+  /**
+   * Install request builder.
+   */
+  public static class Builder extends AbstractRequest.Builder<Builder, InstallRequest> {
+    private Builder() {
+      this(new InstallRequest());
+    }
+
+    private Builder(InstallRequest request) {
+      super(request);
+    }
+
+    /**
+     * Sets the request term.
+     *
+     * @param term The request term.
+     * @return The install request builder.
+     */
+    public Builder withTerm(long term) {
+      request.term = Assert.arg(term, term > 0, "term must be greater than zero");
+      return this;
+    }
+
+    /**
+     * Sets the request leader.
+     *
+     * @param leader The request leader.
+     * @return The install request builder.
+     */
+    public Builder withLeader(String leader) {
+      request.leader = Assert.isNotNull(leader, "leader");
+      return this;
+    }
+
+    /**
+     * Sets the request snapshot index.
+     *
+     * @param index The request snapshot index.
+     * @return The install request builder.
+     */
+    public Builder withSnapshotIndex(long index) {
+      request.snapshotIndex = Assert.index(index, index > 0, "index must be greater than zero");
+      return this;
+    }
+
+    /**
+     * Sets the request snapshot term.
+     *
+     * @param term The request snapshot term.
+     * @return The install request builder.
+     */
+    public Builder withSnapshotTerm(long term) {
+      request.snapshotTerm = term;
+      return this;
+    }
+
+    /**
+     * Sets the request chunk offset.
+     *
+     * @param offset The byte offset of the chunk within the snapshot.
+     * @return The install request builder.
+     */
+    public Builder withOffset(int offset) {
+      request.offset = Assert.arg(offset, offset >= 0, "offset must not be negative");
+      return this;
+    }
+
+    /**
+     * Sets the request snapshot chunk.
+     *
+     * @param data The snapshot chunk.
+     * @return The install request builder.
+     */
+    public Builder withData(ByteBuffer data) {
+      request.data = Assert.isNotNull(data, "data");
+      return this;
+    }
+
+    /**
+     * Sets whether this is the last chunk of the snapshot.
+     *
+     * @param complete Whether this is the last chunk of the snapshot.
+     * @return The install request builder.
+     */
+    public Builder withComplete(boolean complete) {
+      request.complete = complete;
+      return this;
+    }
+
+    @Override
+    public InstallRequest build() {
+      super.build();
+      Assert.isNotNull(request.leader, "leader");
+      Assert.isNotNull(request.data, "data");
+      Assert.arg(request.term, request.term > 0, "term must be greater than zero");
+      Assert.index(request.snapshotIndex, request.snapshotIndex > 0, "index must be greater than zero");
+      return request;
+    }
+  }
+
+}
@@ -0,0 +1,171 @@
+/*
+ * Copyright 2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.kuujo.copycat.protocol.rpc;
+
+import net.kuujo.copycat.util.internal.Assert;
+
+import java.util.Objects;
+
+/**
+ * Protocol snapshot install response.
+ *
+ * @author <a href="http://github.com/kuujo">Jordan Halterman</a>
+ */
+public class InstallResponse extends AbstractResponse {
+
+  /**
+   * Returns a new install response builder.
+   *
+   * @return A new install response builder.
+   */
+  public static Builder builder() {
+    return new Builder();
+  }
+
+  /**
+   * Returns an install response builder for an existing response.
+   *
+   * @param response The response to build.
+   * @return The install response builder.
+   */
+  public static Builder builder(InstallResponse response) {
+    return new Builder(response);
+  }
+
+  private long term;
+  private boolean succeeded;
+  private int offset;
+
+  /**
+   * Returns the responding node's current term.
+   *
+   * @return The responding node's current term.
+   */
+  public long term() {
+    return term;
+  }
+
+  /**
+   * Returns a boolean indicating whether the chunk was accepted.
+   *
+   * @return Indicates whether the chunk was accepted.
+   */
+  public boolean succeeded() {
+    return succeeded;
+  }
+
+  /**
+   * Returns the offset of the next chunk expected by the responding node.
+   *
+   * @return The offset of the next expected chunk.
+   */
+  public int offset() {
+    return offset;
+  }
+
+  @Override
+  public int hashCode() {
+    return Objects.hash(id, member, status, term, succeeded, offset);
+  }
+
+  @Override
+  public boolean equals(Object object) {
+    if (object instanceof InstallResponse) {
+      InstallResponse response = (InstallResponse) object;
+      return response.id.equals(id)
+        && response.member.equals(member)
+        && response.status == status
+        && response.term == term
+        && response.succeeded == succeeded
+        && response.offset == offset;
+    }
+    return false;
+  }
+
+  @Override
+  public String toString() {
+    return String.format("%s[id=%s, term=%d, succeeded=%b, offset=%d]", getClass().getSimpleName(), id, term, succeeded, offset);
+  }
+
+  /**
+   * Install response builder.
+   */
+  public static class Builder extends AbstractResponse.Builder<Builder, InstallResponse> {
+    private Builder() {
+      this(new InstallResponse());
+    }
+
+    private Builder(InstallResponse response) {
+      super(response);
+    }
+
+    /**
+     * Sets the response term.
+     *
+     * @param term The response term.
+     * @return The install response builder.
+     */
+    public Builder withTerm(long term) {
+      response.term = Assert.arg(term, term > 0, "term must be greater than zero");
+      return this;
+    }
+
+    /**
+     * Sets whether the chunk was accepted.
+     *
+     * @param succeeded Whether the chunk was accepted.
+     * @return The install response builder.
+     */
+    public Builder withSucceeded(boolean succeeded) {
+      response.succeeded = succeeded;
+      return this;
+    }
+
+    /**
+     * Sets the offset of the next expected chunk.
+     *
+     * @param offset The offset of the next expected chunk.
+     * @return The install response builder.
+     */
+    public Builder withOffset(int offset) {
+      response.offset = Assert.arg(offset, offset >= 0, "offset must not be negative");
+      return this;
+    }
+
+    @Override
+    public InstallResponse build() {
+      super.build();
+      Assert.arg(response.term, response.term > 0, "term must be greater than zero");
+      return response;
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(response);
+    }
+
+    @Override
+    public boolean equals(Object object) {
+      return object instanceof Builder && ((Builder) object).response.equals(response);
+    }
+
+    @Override
+    public String toString() {
+      return String.format("%s[response=%s]", getClass().getCanonicalName(), response);
+    }
+
+  }
+
+}
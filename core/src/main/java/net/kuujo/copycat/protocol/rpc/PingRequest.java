@@ -132,6 +132,15 @@ public class PingRequest extends AbstractRequest {
       super(request);
     }
 
+    /**
+     * Resets the builder to build a new ping request.
+     *
+     * @return The ping request builder.
+     */
+    public Builder reset() {
+      return reset(new PingRequest());
+    }
+
     /**
      * Sets the request term.
      *
@@ -110,6 +110,15 @@ public class PingResponse extends AbstractResponse {
       super(response);
     }
 
+    /**
+     * Resets the builder to build a new ping response.
+     *
+     * @return The ping response builder.
+     */
+    public Builder reset() {
+      return reset(new PingResponse());
+    }
+
     /**
      * Sets the response term.
      *
@@ -48,6 +48,7 @@ public class PollRequest extends AbstractRequest {
   private String candidate;
   private Long logIndex;
   private Long logTerm;
+  private boolean preVote;
 
   /**
    * Returns the requesting node's current term.
@@ -85,9 +86,22 @@ public class PollRequest extends AbstractRequest {
     return logTerm;
   }
 
+  /**
+   * Returns a boolean indicating whether the request is a pre-vote request.<p>
+   *
+   * Pre-vote requests are sent by followers prior to starting a new election. Pre-vote requests do not change the
+   * term or vote of the receiving member and are granted only if the receiving member would vote for the candidate
+   * and has not heard from a leader within an election timeout.
+   *
+   * @return Indicates whether the request is a pre-vote request.
+   */
+  public boolean preVote() {
+    return preVote;
+  }
+
   @Override
   public int hashCode() {
-    return Objects.hash(id, member, term, candidate, logIndex, logTerm);
+    return Objects.hash(id, member, term, candidate, logIndex, logTerm, preVote);
   }
 
   @Override
@@ -99,14 +113,15 @@ public class PollRequest extends AbstractRequest {
         && request.term == term
         && request.candidate.equals(candidate)
         && request.logIndex.equals(logIndex)
-        && request.logTerm.equals(logTerm);
+        && request.logTerm.equals(logTerm)
+        && request.preVote == preVote;
     }
     return false;
   }
 
   @Override
   public String toString() {
-    return String.format("%s[id=%s, term=%d, candidate=%s, logIndex=%d, logTerm=%d]", getClass().getSimpleName(), id, term, candidate, logIndex, logTerm);
+    return String.format("%s[id=%s, term=%d, candidate=%s, logIndex=%d, logTerm=%d, preVote=%b]", getClass().getSimpleName(), id, term, candidate, logIndex, logTerm, preVote);
   }
 
   /**
@@ -165,6 +180,17 @@ public class PollRequest extends AbstractRequest {
       return this;
     }
 
+    /**
+     * Sets whether the request is a pre-vote request.
+     *
+     * @param preVote Whether the request is a pre-vote request.
+     * @return The poll request builder.
+     */
+    public Builder withPreVote(boolean preVote) {
+      request.preVote = preVote;
+      return this;
+    }
+
     @Override
     public PollRequest build() {
       super.build();
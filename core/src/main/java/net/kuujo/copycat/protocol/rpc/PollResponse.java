@@ -107,7 +107,7 @@ public class PollResponse extends AbstractResponse {
      * @return The poll response builder.
      */
     public Builder withTerm(long term) {
-      response.term = Assert.arg(term, term > 0, "term must be greater than zero");
+      response.term = Assert.arg(term, term >= 0, "term cannot be negative");
       return this;
     }
 
@@ -125,7 +125,7 @@ public class PollResponse extends AbstractResponse {
     @Override
     public PollResponse build() {
       super.build();
-      Assert.arg(response.term, response.term > 0, "term must be greater than zero");
+      Assert.arg(response.term, response.term >= 0, "term cannot be negative");
       return response;
     }
 
@@ -0,0 +1,137 @@
+/*
+ * Copyright 2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.kuujo.copycat.protocol.rpc;
+
+import net.kuujo.copycat.util.internal.Assert;
+
+import java.util.Objects;
+
+/**
+ * Protocol leadership transfer request.<p>
+ *
+ * The transfer request is sent by the leader to a follower once the follower's log is known to be up to date. On
+ * receiving the request, the follower immediately starts a new election rather than waiting for its election timeout
+ * to expire.
+ *
+ * @author <a href="http://github.com/kuujo">Jordan Halterman</a>
+ */
+public class TransferRequest extends AbstractRequest {
+
+  /**
+   * Returns a new transfer request builder.
+   *
+   * @return A new transfer request builder.
+   */
+  public static Builder builder() {
+    return new Builder();
+  }
+
+  /**
+   * Returns a transfer request builder for an existing request.
+   *
+   * @param request The request to build.
+   * @return The transfer request builder.
+   */
+  public static Builder builder(TransferRequest request) {
+    return new Builder(request);
+  }
+
+  private long term;
+  private String leader;
+
+  /**
+   * Returns the requesting node's current term.
+   *
+   * @return The requesting node's current term.
+   */
+  public long term() {
+    return term;
+  }
+
+  /**
+   * Returns the requesting leader address.
+   *
+   * @return The leader's address.
+   */
+  public String leader() {
+    return leader;
+  }
+
+  @Override
+  public int hashCode() {
+    return Objects.hash(id, member, term, leader);
+  }
+
+  @Override
+  public boolean equals(Object object) {
+    if (object instanceof TransferRequest) {
+      TransferRequest request = (TransferRequest) object;
+      return request.id.equals(id)
+        && request.member.equals(member)
+        && request.term == term
+        && request.leader.equals(leader);
+    }
+    return false;
+  }
+
+  @Override
+  public String toString() {
+    return String.format("%s[id=%s, uri=%s, term=%d, leader=%s]", getClass().getSimpleName(), id, member, term, leader);
+  }
+
+  /**
+   * Transfer request builder.
+   */
+  public static class Builder extends AbstractRequest.Builder<Builder, TransferRequest> {
+    private Builder() {
+      this(new TransferRequest());
+    }
+
+    private Builder(TransferRequest request) {
+      super(request);
+    }
+
+    /**
+     * Sets the request term.
+     *
+     * @param term The request term.
+     * @return The transfer request builder.
+     */
+    public Builder withTerm(long term) {
+      request.term = Assert.arg(term, term > 0, "term must be greater than zero");
+      return this;
+    }
+
+    /**
+     * Sets the request leader.
+     *
+     * @param leader The request leader.
+     * @return The transfer request builder.
+     */
+    public Builder withLeader(String leader) {
+      request.leader = Assert.isNotNull(leader, "leader");
+      return this;
+    }
+
+    @Override
+    public TransferRequest build() {
+      super.build();
+      Assert.isNotNull(request.leader, "leader");
+      Assert.arg(request.term, request.term > 0, "term must be greater than zero");
+      return request;
+    }
+  }
+
+}
@@ -0,0 +1,149 @@
+/*
+ * Copyright 2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.kuujo.copycat.protocol.rpc;
+
+import net.kuujo.copycat.util.internal.Assert;
+
+import java.util.Objects;
+
+/**
+ * Protocol leadership transfer response.
+ *
+ * @author <a href="http://github.com/kuujo">Jordan Halterman</a>
+ */
+public class TransferResponse extends AbstractResponse {
+
+  /**
+   * Returns a new transfer response builder.
+   *
+   * @return A new transfer response builder.
+   */
+  public static Builder builder() {
+    return new Builder();
+  }
+
+  /**
+   * Returns a transfer response builder for an existing response.
+   *
+   * @param response The response to build.
+   * @return The transfer response builder.
+   */
+  public static Builder builder(TransferResponse response) {
+    return new Builder(response);
+  }
+
+  private long term;
+  private boolean succeeded;
+
+  /**
+   * Returns the responding node's current term.
+   *
+   * @return The responding node's current term.
+   */
+  public long term() {
+    return term;
+  }
+
+  /**
+   * Returns a boolean indicating whether the responding node started an election.
+   *
+   * @return Indicates whether the responding node started an election.
+   */
+  public boolean succeeded() {
+    return succeeded;
+  }
+
+  @Override
+  public int hashCode() {
+    return Objects.hash(id, member, status, term, succeeded);
+  }
+
+  @Override
+  public boolean equals(Object object) {
+    if (object instanceof TransferResponse) {
+      TransferResponse response = (TransferResponse) object;
+      return response.id.equals(id)
+        && response.member.equals(member)
+        && response.status == status
+        && response.term == term
+        && response.succeeded == succeeded;
+    }
+    return false;
+  }
+
+  @Override
+  public String toString() {
+    return String.format("%s[id=%s, term=%d, succeeded=%b]", getClass().getSimpleName(), id, term, succeeded);
+  }
+
+  /**
+   * Transfer response builder.
+   */
+  public static class Builder extends AbstractResponse.Builder<Builder, TransferResponse> {
+    private Builder() {
+      this(new TransferResponse());
+    }
+
+    private Builder(TransferResponse response) {
+      super(response);
+    }
+
+    /**
+     * Sets the response term.
+     *
+     * @param term The response term.
+     * @return The transfer response builder.
+     */
+    public Builder withTerm(long term) {
+      response.term = Assert.arg(term, term > 0, "term must be greater than zero");
+      return this;
+    }
+
+    /**
+     * Sets whether the responding node started an election.
+     *
+     * @param succeeded Whether the responding node started an election.
+     * @return The transfer response builder.
+     */
+    public Builder withSucceeded(boolean succeeded) {
+      response.succeeded = succeeded;
+      return this;
+    }
+
+    @Override
+    public TransferResponse build() {
+      super.build();
+      Assert.arg(response.term, response.term > 0, "term must be greater than zero");
+      return response;
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(response);
+    }
+
+    @Override
+    public boolean equals(Object object) {
+      return object instanceof Builder && ((Builder) object).response.equals(response);
+    }
+
+    @Override
+    public String toString() {
+      return String.format("%s[response=%s]", getClass().getCanonicalName(), response);
+    }
+
+  }
+
+}
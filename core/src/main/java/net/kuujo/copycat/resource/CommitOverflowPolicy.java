@@ -0,0 +1,64 @@
+/*
+ * Copyright 2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.kuujo.copycat.resource;
+
+/**
+ * Policy applied to resource commits submitted while the pending commit limit is reached.
+ *
+ * @author <a href="http://github.com/kuujo">Jordan Halterman</a>
+ */
+public enum CommitOverflowPolicy {
+
+  /**
+   * Indicates that new commits should be failed immediately.
+   */
+  REJECT("reject"),
+
+  /**
+   * Indicates that the committing thread should block until a pending commit completes.
+   */
+  BLOCK("block"),
+
+  /**
+   * Indicates that new commits should be queued, failing the oldest queued commit once the queue is full.
+   */
+  SHED("shed");
+
+  public static CommitOverflowPolicy parse(String name) {
+    switch (name) {
+      case "reject":
+        return REJECT;
+      case "block":
+        return BLOCK;
+      case "shed":
+        return SHED;
+      default:
+        throw new IllegalArgumentException("Invalid commit overflow policy " + name);
+    }
+  }
+
+  private final String name;
+
+  private CommitOverflowPolicy(String name) {
+    this.name = name;
+  }
+
+  @Override
+  public String toString() {
+    return name;
+  }
+
+}
@@ -0,0 +1,64 @@
+/*
+ * Copyright 2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.kuujo.copycat.resource;
+
+/**
+ * Mode in which resource members time out and start elections.
+ *
+ * @author <a href="http://github.com/kuujo">Jordan Halterman</a>
+ */
+public enum ElectionMode {
+
+  /**
+   * Indicates that followers should wait a uniformly random delay between one and two election timeouts before
+   * starting an election.
+   */
+  RANDOM("random"),
+
+  /**
+   * Indicates that followers should scale their election delay by how up to date their logs are, and that a leader
+   * that steps down cleanly should immediately hand leadership to its most up to date replica.<p>
+   *
+   * Followers whose logs contain every entry the leader is known to have written time out within the first half of
+   * the election timeout range, while followers that lag behind time out within the second half. The member most
+   * likely to win the election therefore starts it first, and failover is usually bounded by a single election
+   * timeout rather than several rounds of split votes.
+   */
+  RANKED("ranked");
+
+  public static ElectionMode parse(String name) {
+    switch (name) {
+      case "random":
+        return RANDOM;
+      case "ranked":
+        return RANKED;
+      default:
+        throw new IllegalArgumentException("Invalid election mode " + name);
+    }
+  }
+
+  private final String name;
+
+  private ElectionMode(String name) {
+    this.name = name;
+  }
+
+  @Override
+  public String toString() {
+    return name;
+  }
+
+}
@@ -0,0 +1,86 @@
+/*
+ * Copyright 2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.kuujo.copycat.resource;
+
+/**
+ * Mode in which the leader acknowledges resource commits.<p>
+ *
+ * Regardless of the mode, every entry is replicated to all replicas and the cluster commit index only advances once
+ * an entry is stored on a majority of the cluster. No member, including the leader, applies an entry to its state
+ * machine before the entry is committed. The mode only determines when the leader replies to the commit, trading
+ * durability on failover for commit latency and throughput.<p>
+ *
+ * In the {@link #ACKNOWLEDGED} and {@link #LOCAL} modes the reply is sent before the entry is applied, so the reply
+ * carries an empty result rather than the state machine's output. An acknowledged entry that is lost on failover is
+ * never applied anywhere: the deposed leader truncates it and applies the new leader's entries instead.
+ *
+ * @author <a href="http://github.com/kuujo">Jordan Halterman</a>
+ */
+public enum ReplicationMode {
+
+  /**
+   * Indicates that commits should be acknowledged once the entry has been replicated to a majority of the cluster.<p>
+   *
+   * This is the only mode that guarantees that an acknowledged commit survives the failure of a minority of the
+   * cluster, and it's the default.
+   */
+  QUORUM("quorum"),
+
+  /**
+   * Indicates that commits should be acknowledged once the entry has been replicated to a configured number of
+   * replicas that is smaller than a majority.<p>
+   *
+   * Acknowledged entries survive the failure of the leader as long as one of the acknowledging replicas is elected,
+   * but they may be lost if a member that never received the entry wins the election, in which case the client was
+   * told the commit succeeded even though it never takes effect. Witnesses never count towards the acknowledgements
+   * since they don't store entry payloads.
+   */
+  ACKNOWLEDGED("acknowledged"),
+
+  /**
+   * Indicates that commits should be acknowledged once the entry has been written and flushed to the leader's log.<p>
+   *
+   * This mode provides the highest throughput but any entries that have not yet been replicated to a majority of
+   * the cluster are lost if the leader fails, in which case the client was told the commit succeeded even though it
+   * never takes effect.
+   */
+  LOCAL("local");
+
+  public static ReplicationMode parse(String name) {
+    switch (name) {
+      case "quorum":
+        return QUORUM;
+      case "acknowledged":
+        return ACKNOWLEDGED;
+      case "local":
+        return LOCAL;
+      default:
+        throw new IllegalArgumentException("Invalid replication mode " + name);
+    }
+  }
+
+  private final String name;
+
+  private ReplicationMode(String name) {
+    this.name = name;
+  }
+
+  @Override
+  public String toString() {
+    return name;
+  }
+
+}
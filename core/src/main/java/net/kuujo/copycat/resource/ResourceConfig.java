@@ -39,13 +39,31 @@ public abstract class ResourceConfig<T extends ResourceConfig<T>> extends Abstra
   public static final String RESOURCE_EXECUTOR = "executor";
   public static final String RESOURCE_SERIALIZER = "serializer";
   public static final String RESOURCE_ELECTION_TIMEOUT = "election.timeout";
+  public static final String RESOURCE_ELECTION_MODE = "election.mode";
   public static final String RESOURCE_HEARTBEAT_INTERVAL = "heartbeat.interval";
+  public static final String RESOURCE_COMMIT_BATCH_WINDOW = "commit.batch.window";
+  public static final String RESOURCE_COMMIT_BATCH_SIZE = "commit.batch.size";
+  public static final String RESOURCE_COMMIT_PENDING_LIMIT = "commit.pending.limit";
+  public static final String RESOURCE_COMMIT_OVERFLOW_POLICY = "commit.overflow.policy";
+  public static final String RESOURCE_REPLICATION_MODE = "replication.mode";
+  public static final String RESOURCE_REPLICATION_ACKS = "replication.acks";
   public static final String RESOURCE_REPLICAS = "replicas";
+  public static final String RESOURCE_LEARNERS = "learners";
+  public static final String RESOURCE_WITNESSES = "witnesses";
   public static final String RESOURCE_LOG = "log";
 
   private static final long DEFAULT_RESOURCE_ELECTION_TIMEOUT = 300;
+  private static final String DEFAULT_RESOURCE_ELECTION_MODE = "random";
   private static final long DEFAULT_RESOURCE_HEARTBEAT_INTERVAL = 150;
+  private static final long DEFAULT_RESOURCE_COMMIT_BATCH_WINDOW = 0;
+  private static final int DEFAULT_RESOURCE_COMMIT_BATCH_SIZE = 1024;
+  private static final int DEFAULT_RESOURCE_COMMIT_PENDING_LIMIT = 1024 * 16;
+  private static final String DEFAULT_RESOURCE_COMMIT_OVERFLOW_POLICY = "reject";
+  private static final String DEFAULT_RESOURCE_REPLICATION_MODE = "quorum";
+  private static final int DEFAULT_RESOURCE_REPLICATION_ACKS = 1;
   private static final Set<String> DEFAULT_RESOURCE_REPLICAS = new HashSet<>(10);
+  private static final Set<String> DEFAULT_RESOURCE_LEARNERS = new HashSet<>(0);
+  private static final Set<String> DEFAULT_RESOURCE_WITNESSES = new HashSet<>(0);
   private static final Log DEFAULT_RESOURCE_LOG = new FileLog();
 
   private Object defaultSerializer = KryoSerializer.class;
@@ -357,6 +375,43 @@ public abstract class ResourceConfig<T extends ResourceConfig<T>> extends Abstra
     return (T) this;
   }
 
+  /**
+   * Sets the resource election mode.<p>
+   *
+   * In the default {@link net.kuujo.copycat.resource.ElectionMode#RANDOM} mode followers wait a uniformly random
+   * delay before starting an election. In the {@link net.kuujo.copycat.resource.ElectionMode#RANKED} mode the delay
+   * is scaled by how up to date each follower's log is, and a leader that steps down cleanly hands leadership off to
+   * its most up to date replica immediately.
+   *
+   * @param mode The resource election mode.
+   * @throws java.lang.NullPointerException If {@code mode} is {@code null}
+   */
+  public void setElectionMode(ElectionMode mode) {
+    put(RESOURCE_ELECTION_MODE, Assert.isNotNull(mode, "mode").toString());
+  }
+
+  /**
+   * Returns the resource election mode.
+   *
+   * @return The resource election mode.
+   */
+  public ElectionMode getElectionMode() {
+    return ElectionMode.parse(get(RESOURCE_ELECTION_MODE, DEFAULT_RESOURCE_ELECTION_MODE));
+  }
+
+  /**
+   * Sets the resource election mode, returning the resource configuration for method chaining.
+   *
+   * @param mode The resource election mode.
+   * @return The resource configuration.
+   * @throws java.lang.NullPointerException If {@code mode} is {@code null}
+   */
+  @SuppressWarnings("unchecked")
+  public T withElectionMode(ElectionMode mode) {
+    setElectionMode(mode);
+    return (T) this;
+  }
+
   /**
    * Sets the resource heartbeat interval.
    *
@@ -415,7 +470,248 @@ public abstract class ResourceConfig<T extends ResourceConfig<T>> extends Abstra
   }
 
   /**
-   * Sets the set of replicas for the resource.
+   * Sets the resource commit batch window.<p>
+   *
+   * The leader accumulates commits for up to the batch window before appending them to the log as a single batch and
+   * replicating the batch to followers. A window of {@code 0} batches only those commits that are already queued
+   * when the first commit in the batch is handled.
+   *
+   * @param batchWindow The resource commit batch window in milliseconds.
+   * @throws java.lang.IllegalArgumentException If the batch window is negative
+   */
+  public void setCommitBatchWindow(long batchWindow) {
+    put(RESOURCE_COMMIT_BATCH_WINDOW, Assert.arg(batchWindow, batchWindow >= 0, "commit batch window must not be negative"));
+  }
+
+  /**
+   * Sets the resource commit batch window.
+   *
+   * @param batchWindow The resource commit batch window.
+   * @param unit The batch window unit.
+   * @throws java.lang.IllegalArgumentException If the batch window is negative
+   */
+  public void setCommitBatchWindow(long batchWindow, TimeUnit unit) {
+    setCommitBatchWindow(unit.toMillis(batchWindow));
+  }
+
+  /**
+   * Returns the resource commit batch window.
+   *
+   * @return The time in milliseconds for which the leader accumulates commits before appending them to the log.
+   */
+  public long getCommitBatchWindow() {
+    return get(RESOURCE_COMMIT_BATCH_WINDOW, DEFAULT_RESOURCE_COMMIT_BATCH_WINDOW);
+  }
+
+  /**
+   * Sets the resource commit batch window, returning the resource configuration for method chaining.
+   *
+   * @param batchWindow The resource commit batch window in milliseconds.
+   * @return The resource configuration.
+   * @throws java.lang.IllegalArgumentException If the batch window is negative
+   */
+  @SuppressWarnings("unchecked")
+  public T withCommitBatchWindow(long batchWindow) {
+    setCommitBatchWindow(batchWindow);
+    return (T) this;
+  }
+
+  /**
+   * Sets the resource commit batch window, returning the resource configuration for method chaining.
+   *
+   * @param batchWindow The resource commit batch window.
+   * @param unit The batch window unit.
+   * @return The resource configuration.
+   * @throws java.lang.IllegalArgumentException If the batch window is negative
+   */
+  @SuppressWarnings("unchecked")
+  public T withCommitBatchWindow(long batchWindow, TimeUnit unit) {
+    setCommitBatchWindow(batchWindow, unit);
+    return (T) this;
+  }
+
+  /**
+   * Sets the resource commit batch size.<p>
+   *
+   * Once the given number of commits has been accumulated, the batch is appended to the log and replicated
+   * regardless of the commit batch window.
+   *
+   * @param batchSize The maximum number of commits per batch.
+   * @throws java.lang.IllegalArgumentException If the batch size is not positive
+   */
+  public void setCommitBatchSize(int batchSize) {
+    put(RESOURCE_COMMIT_BATCH_SIZE, Assert.arg(batchSize, batchSize > 0, "commit batch size must be positive"));
+  }
+
+  /**
+   * Returns the resource commit batch size.
+   *
+   * @return The maximum number of commits per batch.
+   */
+  public int getCommitBatchSize() {
+    return get(RESOURCE_COMMIT_BATCH_SIZE, DEFAULT_RESOURCE_COMMIT_BATCH_SIZE);
+  }
+
+  /**
+   * Sets the resource commit batch size, returning the resource configuration for method chaining.
+   *
+   * @param batchSize The maximum number of commits per batch.
+   * @return The resource configuration.
+   * @throws java.lang.IllegalArgumentException If the batch size is not positive
+   */
+  @SuppressWarnings("unchecked")
+  public T withCommitBatchSize(int batchSize) {
+    setCommitBatchSize(batchSize);
+    return (T) this;
+  }
+
+  /**
+   * Sets the maximum number of pending commits for the resource.<p>
+   *
+   * Once the given number of commits have been submitted by the local resource without completing, further commits
+   * are handled according to the commit overflow policy.
+   *
+   * @param limit The maximum number of pending commits.
+   * @throws java.lang.IllegalArgumentException If the limit is not positive
+   */
+  public void setCommitPendingLimit(int limit) {
+    put(RESOURCE_COMMIT_PENDING_LIMIT, Assert.arg(limit, limit > 0, "commit pending limit must be positive"));
+  }
+
+  /**
+   * Returns the maximum number of pending commits for the resource.
+   *
+   * @return The maximum number of pending commits.
+   */
+  public int getCommitPendingLimit() {
+    return get(RESOURCE_COMMIT_PENDING_LIMIT, DEFAULT_RESOURCE_COMMIT_PENDING_LIMIT);
+  }
+
+  /**
+   * Sets the maximum number of pending commits for the resource, returning the resource configuration for method chaining.
+   *
+   * @param limit The maximum number of pending commits.
+   * @return The resource configuration.
+   * @throws java.lang.IllegalArgumentException If the limit is not positive
+   */
+  @SuppressWarnings("unchecked")
+  public T withCommitPendingLimit(int limit) {
+    setCommitPendingLimit(limit);
+    return (T) this;
+  }
+
+  /**
+   * Sets the policy applied to commits submitted while the pending commit limit is reached.
+   *
+   * @param policy The commit overflow policy.
+   * @throws java.lang.NullPointerException If {@code policy} is {@code null}
+   */
+  public void setCommitOverflowPolicy(CommitOverflowPolicy policy) {
+    put(RESOURCE_COMMIT_OVERFLOW_POLICY, Assert.isNotNull(policy, "policy").toString());
+  }
+
+  /**
+   * Returns the policy applied to commits submitted while the pending commit limit is reached.
+   *
+   * @return The commit overflow policy.
+   */
+  public CommitOverflowPolicy getCommitOverflowPolicy() {
+    return CommitOverflowPolicy.parse(get(RESOURCE_COMMIT_OVERFLOW_POLICY, DEFAULT_RESOURCE_COMMIT_OVERFLOW_POLICY));
+  }
+
+  /**
+   * Sets the policy applied to commits submitted while the pending commit limit is reached, returning the resource
+   * configuration for method chaining.
+   *
+   * @param policy The commit overflow policy.
+   * @return The resource configuration.
+   * @throws java.lang.NullPointerException If {@code policy} is {@code null}
+   */
+  @SuppressWarnings("unchecked")
+  public T withCommitOverflowPolicy(CommitOverflowPolicy policy) {
+    setCommitOverflowPolicy(policy);
+    return (T) this;
+  }
+
+  /**
+   * Sets the mode in which the leader acknowledges commits.<p>
+   *
+   * In the default {@link net.kuujo.copycat.resource.ReplicationMode#QUORUM} mode, commits are acknowledged once
+   * they've been replicated to a majority of the cluster. The other modes acknowledge commits sooner while
+   * replicating entries in the background, at the risk of losing acknowledged commits on failover. Entries are
+   * still only applied once committed, so early acknowledgements carry an empty result. See
+   * {@link net.kuujo.copycat.resource.ReplicationMode} for the trade-offs of each mode.
+   *
+   * @param mode The replication mode.
+   * @throws java.lang.NullPointerException If {@code mode} is {@code null}
+   */
+  public void setReplicationMode(ReplicationMode mode) {
+    put(RESOURCE_REPLICATION_MODE, Assert.isNotNull(mode, "mode").toString());
+  }
+
+  /**
+   * Returns the mode in which the leader acknowledges commits.
+   *
+   * @return The replication mode.
+   */
+  public ReplicationMode getReplicationMode() {
+    return ReplicationMode.parse(get(RESOURCE_REPLICATION_MODE, DEFAULT_RESOURCE_REPLICATION_MODE));
+  }
+
+  /**
+   * Sets the mode in which the leader acknowledges commits, returning the resource configuration for method chaining.
+   *
+   * @param mode The replication mode.
+   * @return The resource configuration.
+   * @throws java.lang.NullPointerException If {@code mode} is {@code null}
+   */
+  @SuppressWarnings("unchecked")
+  public T withReplicationMode(ReplicationMode mode) {
+    setReplicationMode(mode);
+    return (T) this;
+  }
+
+  /**
+   * Sets the number of replica acknowledgements required to complete a commit.<p>
+   *
+   * The acknowledgement count only applies in the {@link net.kuujo.copycat.resource.ReplicationMode#ACKNOWLEDGED}
+   * mode. If the count is greater than or equal to the number of replicas in a majority, commits are acknowledged
+   * once replicated to a majority as in the {@link net.kuujo.copycat.resource.ReplicationMode#QUORUM} mode.
+   *
+   * @param acks The number of replica acknowledgements required to complete a commit.
+   * @throws java.lang.IllegalArgumentException If the acknowledgement count is not positive
+   */
+  public void setReplicationAcks(int acks) {
+    put(RESOURCE_REPLICATION_ACKS, Assert.arg(acks, acks > 0, "replication acks must be positive"));
+  }
+
+  /**
+   * Returns the number of replica acknowledgements required to complete a commit.
+   *
+   * @return The number of replica acknowledgements required to complete a commit.
+   */
+  public int getReplicationAcks() {
+    return get(RESOURCE_REPLICATION_ACKS, DEFAULT_RESOURCE_REPLICATION_ACKS);
+  }
+
+  /**
+   * Sets the number of replica acknowledgements required to complete a commit, returning the resource configuration
+   * for method chaining.
+   *
+   * @param acks The number of replica acknowledgements required to complete a commit.
+   * @return The resource configuration.
+   * @throws java.lang.IllegalArgumentException If the acknowledgement count is not positive
+   */
+  @SuppressWarnings("unchecked")
+  public T withReplicationAcks(int acks) {
+    setReplicationAcks(acks);
+    return (T) this;
+  }
+
+  /**
+   * Sets the set of replicas for the resource.<p>
+   *
+   * If no replicas are configured, all cluster members other than the resource's learners are replicas.
    *
    * @param replicas The set of replicas for the resource.
    * @throws java.lang.NullPointerException If {@code replicas} is {@code null}
@@ -517,6 +813,199 @@ public abstract class ResourceConfig<T extends ResourceConfig<T>> extends Abstra
     return (T) this;
   }
 
+  /**
+   * Sets the set of learners for the resource.<p>
+   *
+   * Learners are non-voting members to which the leader replicates the log directly. Learners never participate in
+   * elections and are not counted towards the commit quorum, so they can trail the cluster without affecting write
+   * availability. A learner must not also be configured as a replica or witness.
+   *
+   * @param learners The set of learners for the resource.
+   * @throws java.lang.NullPointerException If {@code learners} is {@code null}
+   */
+  public void setLearners(String... learners) {
+    setLearners(Arrays.asList(learners));
+  }
+
+  /**
+   * Sets the set of learners for the resource.
+   *
+   * @param learners The set of learners for the resource.
+   * @throws java.lang.NullPointerException If {@code learners} is {@code null}
+   */
+  public void setLearners(Collection<String> learners) {
+    put(RESOURCE_LEARNERS, new HashSet<>(Assert.isNotNull(learners, "learners")));
+  }
+
+  /**
+   * Returns the set of learners for the resource.
+   *
+   * @return The set of learners for the resource.
+   */
+  public Set<String> getLearners() {
+    return Collections.unmodifiableSet(get(RESOURCE_LEARNERS, DEFAULT_RESOURCE_LEARNERS));
+  }
+
+  /**
+   * Sets the set of learners for the resource, returning the configuration for method chaining.
+   *
+   * @param learners The set of learners for the resource.
+   * @return The resource configuration.
+   * @throws java.lang.NullPointerException If {@code learners} is {@code null}
+   */
+  @SuppressWarnings("unchecked")
+  public T withLearners(String... learners) {
+    setLearners(Arrays.asList(learners));
+    return (T) this;
+  }
+
+  /**
+   * Sets the set of learners for the resource, returning the configuration for method chaining.
+   *
+   * @param learners The set of learners for the resource.
+   * @return The resource configuration.
+   * @throws java.lang.NullPointerException If {@code learners} is {@code null}
+   */
+  @SuppressWarnings("unchecked")
+  public T withLearners(Collection<String> learners) {
+    setLearners(learners);
+    return (T) this;
+  }
+
+  /**
+   * Adds a learner to the set of learners for the resource.
+   *
+   * @param learner The learner URI to add.
+   * @return The resource configuration.
+   * @throws java.lang.NullPointerException If {@code learner} is {@code null}
+   */
+  @SuppressWarnings("unchecked")
+  public T addLearner(String learner) {
+    Set<String> learners = get(RESOURCE_LEARNERS);
+    if (learners == null) {
+      learners = new HashSet<>();
+      put(RESOURCE_LEARNERS, learners);
+    }
+    learners.add(Assert.isNotNull(learner, "learner"));
+    return (T) this;
+  }
+
+  /**
+   * Removes a learner from the set of learners for the resource.
+   *
+   * @param learner The learner URI to remove.
+   * @return The resource configuration.
+   * @throws java.lang.NullPointerException If {@code learner} is {@code null}
+   */
+  @SuppressWarnings("unchecked")
+  public T removeLearner(String learner) {
+    Set<String> learners = get(RESOURCE_LEARNERS);
+    if (learners != null) {
+      learners.remove(Assert.isNotNull(learner, "learner"));
+      if (learners.isEmpty()) {
+        remove(RESOURCE_LEARNERS);
+      }
+    }
+    return (T) this;
+  }
+
+  /**
+   * Sets the set of witnesses for the resource.<p>
+   *
+   * Witnesses are voting members that store only the term of each log entry and never apply entries to the state
+   * machine. A witness takes part in elections and counts towards the commit quorum but can never become the leader,
+   * so it can act as a lightweight tie-breaker, e.g. running a three member quorum with only two full replicas.
+   * Witnesses do not need to be listed as replicas.
+   *
+   * @param witnesses The set of witnesses for the resource.
+   * @throws java.lang.NullPointerException If {@code witnesses} is {@code null}
+   */
+  public void setWitnesses(String... witnesses) {
+    setWitnesses(Arrays.asList(witnesses));
+  }
+
+  /**
+   * Sets the set of witnesses for the resource.
+   *
+   * @param witnesses The set of witnesses for the resource.
+   * @throws java.lang.NullPointerException If {@code witnesses} is {@code null}
+   */
+  public void setWitnesses(Collection<String> witnesses) {
+    put(RESOURCE_WITNESSES, new HashSet<>(Assert.isNotNull(witnesses, "witnesses")));
+  }
+
+  /**
+   * Returns the set of witnesses for the resource.
+   *
+   * @return The set of witnesses for the resource.
+   */
+  public Set<String> getWitnesses() {
+    return Collections.unmodifiableSet(get(RESOURCE_WITNESSES, DEFAULT_RESOURCE_WITNESSES));
+  }
+
+  /**
+   * Sets the set of witnesses for the resource, returning the configuration for method chaining.
+   *
+   * @param witnesses The set of witnesses for the resource.
+   * @return The resource configuration.
+   * @throws java.lang.NullPointerException If {@code witnesses} is {@code null}
+   */
+  @SuppressWarnings("unchecked")
+  public T withWitnesses(String... witnesses) {
+    setWitnesses(Arrays.asList(witnesses));
+    return (T) this;
+  }
+
+  /**
+   * Sets the set of witnesses for the resource, returning the configuration for method chaining.
+   *
+   * @param witnesses The set of witnesses for the resource.
+   * @return The resource configuration.
+   * @throws java.lang.NullPointerException If {@code witnesses} is {@code null}
+   */
+  @SuppressWarnings("unchecked")
+  public T withWitnesses(Collection<String> witnesses) {
+    setWitnesses(witnesses);
+    return (T) this;
+  }
+
+  /**
+   * Adds a witness to the set of witnesses for the resource.
+   *
+   * @param witness The witness URI to add.
+   * @return The resource configuration.
+   * @throws java.lang.NullPointerException If {@code witness} is {@code null}
+   */
+  @SuppressWarnings("unchecked")
+  public T addWitness(String witness) {
+    Set<String> witnesses = get(RESOURCE_WITNESSES);
+    if (witnesses == null) {
+      witnesses = new HashSet<>();
+      put(RESOURCE_WITNESSES, witnesses);
+    }
+    witnesses.add(Assert.isNotNull(witness, "witness"));
+    return (T) this;
+  }
+
+  /**
+   * Removes a witness from the set of witnesses for the resource.
+   *
+   * @param witness The witness URI to remove.
+   * @return The resource configuration.
+   * @throws java.lang.NullPointerException If {@code witness} is {@code null}
+   */
+  @SuppressWarnings("unchecked")
+  public T removeWitness(String witness) {
+    Set<String> witnesses = get(RESOURCE_WITNESSES);
+    if (witnesses != null) {
+      witnesses.remove(Assert.isNotNull(witness, "witness"));
+      if (witnesses.isEmpty()) {
+        remove(RESOURCE_WITNESSES);
+      }
+    }
+    return (T) this;
+  }
+
   /**
    * Sets the resource log.
    *
@@ -549,6 +1038,21 @@ public abstract class ResourceConfig<T extends ResourceConfig<T>> extends Abstra
     return (T) this;
   }
 
+  /**
+   * Returns the set of replicas for the resource within the given cluster.
+   *
+   * @param cluster The global cluster configuration.
+   * @return The configured replicas, or all cluster members other than learners if no replicas are configured.
+   */
+  protected Set<String> resolveReplicas(ClusterConfig cluster) {
+    if (!getReplicas().isEmpty()) {
+      return getReplicas();
+    }
+    Set<String> replicas = new HashSet<>(cluster.getMembers());
+    replicas.removeAll(getLearners());
+    return replicas;
+  }
+
   /**
    * Returns a coordinated resource configuration for this resource.
    *
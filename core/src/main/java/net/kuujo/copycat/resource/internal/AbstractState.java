@@ -21,6 +21,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.concurrent.CompletableFuture;
+import java.util.function.Predicate;
 
 /**
  * Abstract state context.
@@ -36,7 +37,10 @@ abstract class AbstractState implements RaftProtocol {
   protected MessageHandler<AppendRequest, AppendResponse> appendHandler;
   protected MessageHandler<CommitRequest, CommitResponse> commitHandler;
   protected MessageHandler<QueryRequest, QueryResponse> queryHandler;
+  protected MessageHandler<TransferRequest, TransferResponse> transferHandler;
+  protected MessageHandler<InstallRequest, InstallResponse> installHandler;
   protected MessageHandler<CopycatState, CopycatState> transitionHandler;
+  protected Predicate<String> connectionHandler;
   private boolean open;
 
   protected AbstractState(CopycatStateContext context) {
@@ -141,6 +145,41 @@ abstract class AbstractState implements RaftProtocol {
     return exceptionalFuture(new IllegalStateException("Invalid Copycat state"));
   }
 
+  @Override
+  public AbstractState transferHandler(MessageHandler<TransferRequest, TransferResponse> handler) {
+    this.transferHandler = handler;
+    return this;
+  }
+
+  @Override
+  public CompletableFuture<TransferResponse> transfer(TransferRequest request) {
+    return exceptionalFuture(new IllegalStateException("Invalid Copycat state"));
+  }
+
+  @Override
+  public AbstractState installHandler(MessageHandler<InstallRequest, InstallResponse> handler) {
+    this.installHandler = handler;
+    return this;
+  }
+
+  @Override
+  public CompletableFuture<InstallResponse> install(InstallRequest request) {
+    return exceptionalFuture(new IllegalStateException("Invalid Copycat state"));
+  }
+
+  @Override
+  public AbstractState connectionHandler(Predicate<String> handler) {
+    this.connectionHandler = handler;
+    return this;
+  }
+
+  /**
+   * Returns a boolean indicating whether the given member is currently reachable.
+   */
+  protected boolean isConnected(String member) {
+    return connectionHandler == null || connectionHandler.test(member);
+  }
+
   /**
    * Sets a transition registerHandler on the state.
    */
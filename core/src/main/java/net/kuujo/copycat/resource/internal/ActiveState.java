@@ -17,6 +17,7 @@ package net.kuujo.copycat.resource.internal;
 
 import net.kuujo.copycat.protocol.rpc.*;
 
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.nio.ByteBuffer;
 import java.util.concurrent.CompletableFuture;
@@ -28,11 +29,33 @@ import java.util.concurrent.CompletableFuture;
  */
 abstract class ActiveState extends PassiveState {
   protected boolean transition;
+  private Long installIndex;
+  private long installTerm;
+  private ByteArrayOutputStream installBuffer;
+  private final PingResponse.Builder pingResponseBuilder = PingResponse.builder();
+  private final AppendResponse.Builder appendResponseBuilder = AppendResponse.builder();
 
   protected ActiveState(CopycatStateContext context) {
     super(context);
   }
 
+  /**
+   * Returns a ping response builder.<p>
+   *
+   * Ping and append responses are built on every heartbeat and append, always on the context thread, so a single
+   * builder is reset and reused for each response rather than allocating a new builder per request.
+   */
+  protected PingResponse.Builder pingResponse() {
+    return pingResponseBuilder.reset();
+  }
+
+  /**
+   * Returns an append response builder.
+   */
+  protected AppendResponse.Builder appendResponse() {
+    return appendResponseBuilder.reset();
+  }
+
   /**
    * Transitions to a new state.
    */
@@ -72,8 +95,10 @@ abstract class ActiveState extends PassiveState {
     // reply false and return our current term. The leader will receive
     // the updated term and step down.
     if (request.term() < context.getTerm()) {
-      LOGGER.warn("{} - Rejected {}: request term is less than the current term ({})", context.getLocalMember(), request, context.getTerm());
-      return PingResponse.builder()
+      if (LOGGER.isDebugEnabled()) {
+        LOGGER.debug("{} - Rejected {}: request term is less than the current term ({})", context.getLocalMember(), request, context.getTerm());
+      }
+      return pingResponse()
         .withId(request.id())
         .withUri(context.getLocalMember())
         .withTerm(context.getTerm())
@@ -82,7 +107,7 @@ abstract class ActiveState extends PassiveState {
     } else if (request.logIndex() != null && request.logTerm() != null) {
       return doCheckPingEntry(request);
     }
-    return PingResponse.builder()
+    return pingResponse()
       .withId(request.id())
       .withUri(context.getLocalMember())
       .withTerm(context.getTerm())
@@ -95,16 +120,20 @@ abstract class ActiveState extends PassiveState {
    */
   private PingResponse doCheckPingEntry(PingRequest request) {
     if (request.logIndex() != null && context.log().lastIndex() == null) {
-      LOGGER.warn("{} - Rejected {}: previous index ({}) is greater than the local log's last index ({})", context.getLocalMember(), request, request.logIndex(), context.log().lastIndex());
-      return PingResponse.builder()
+      if (LOGGER.isDebugEnabled()) {
+        LOGGER.debug("{} - Rejected {}: previous index ({}) is greater than the local log's last index ({})", context.getLocalMember(), request, request.logIndex(), context.log().lastIndex());
+      }
+      return pingResponse()
         .withId(request.id())
         .withUri(context.getLocalMember())
         .withTerm(context.getTerm())
         .withSucceeded(false)
         .build();
     } else if (request.logIndex() != null && context.log().lastIndex() != null && request.logIndex() > context.log().lastIndex()) {
-      LOGGER.warn("{} - Rejected {}: previous index ({}) is greater than the local log's last index ({})", context.getLocalMember(), request, request.logIndex(), context.log().lastIndex());
-      return PingResponse.builder()
+      if (LOGGER.isDebugEnabled()) {
+        LOGGER.debug("{} - Rejected {}: previous index ({}) is greater than the local log's last index ({})", context.getLocalMember(), request, request.logIndex(), context.log().lastIndex());
+      }
+      return pingResponse()
         .withId(request.id())
         .withUri(context.getLocalMember())
         .withTerm(context.getTerm())
@@ -120,16 +149,16 @@ abstract class ActiveState extends PassiveState {
     // can be overwritten.
     ByteBuffer entry = context.log().getEntry(request.logIndex());
     if (entry == null) {
-      LOGGER.warn("{} - Rejected {}: request entry not found in local log", context.getLocalMember(), request);
-      return PingResponse.builder()
+      LOGGER.debug("{} - Rejected {}: request entry not found in local log", context.getLocalMember(), request);
+      return pingResponse()
         .withId(request.id())
         .withUri(context.getLocalMember())
         .withTerm(context.getTerm())
         .withSucceeded(false)
         .build();
-    } else if (entry.getLong() != request.logTerm()) {
-      LOGGER.warn("{} - Rejected {}: request entry term does not match local log", context.getLocalMember(), request);
-      return PingResponse.builder()
+    } else if (Membership.term(entry) != request.logTerm()) {
+      LOGGER.debug("{} - Rejected {}: request entry term does not match local log", context.getLocalMember(), request);
+      return pingResponse()
         .withId(request.id())
         .withUri(context.getLocalMember())
         .withTerm(context.getTerm())
@@ -137,7 +166,7 @@ abstract class ActiveState extends PassiveState {
         .build();
     } else {
       doApplyCommits(request.commitIndex());
-      return PingResponse.builder()
+      return pingResponse()
         .withId(request.id())
         .withUri(context.getLocalMember())
         .withTerm(context.getTerm())
@@ -175,8 +204,10 @@ abstract class ActiveState extends PassiveState {
     // reply false and return our current term. The leader will receive
     // the updated term and step down.
     if (request.term() < context.getTerm()) {
-      LOGGER.warn("{} - Rejected {}: request term is less than the current term ({})", context.getLocalMember(), request, context.getTerm());
-      return AppendResponse.builder()
+      if (LOGGER.isDebugEnabled()) {
+        LOGGER.debug("{} - Rejected {}: request term is less than the current term ({})", context.getLocalMember(), request, context.getTerm());
+      }
+      return appendResponse()
         .withId(request.id())
         .withUri(context.getLocalMember())
         .withTerm(context.getTerm())
@@ -195,8 +226,10 @@ abstract class ActiveState extends PassiveState {
    */
   private AppendResponse doCheckPreviousEntry(AppendRequest request) {
     if (request.logIndex() != null && context.log().lastIndex() == null) {
-      LOGGER.warn("{} - Rejected {}: previous index ({}) is greater than the local log's last index ({})", context.getLocalMember(), request, request.logIndex(), context.log().lastIndex());
-      return AppendResponse.builder()
+      if (LOGGER.isDebugEnabled()) {
+        LOGGER.debug("{} - Rejected {}: previous index ({}) is greater than the local log's last index ({})", context.getLocalMember(), request, request.logIndex(), context.log().lastIndex());
+      }
+      return appendResponse()
         .withId(request.id())
         .withUri(context.getLocalMember())
         .withTerm(context.getTerm())
@@ -204,8 +237,10 @@ abstract class ActiveState extends PassiveState {
         .withLogIndex(context.log().lastIndex())
         .build();
     } else if (request.logIndex() != null && context.log().lastIndex() != null && request.logIndex() > context.log().lastIndex()) {
-      LOGGER.warn("{} - Rejected {}: previous index ({}) is greater than the local log's last index ({})", context.getLocalMember(), request, request.logIndex(), context.log().lastIndex());
-      return AppendResponse.builder()
+      if (LOGGER.isDebugEnabled()) {
+        LOGGER.debug("{} - Rejected {}: previous index ({}) is greater than the local log's last index ({})", context.getLocalMember(), request, request.logIndex(), context.log().lastIndex());
+      }
+      return appendResponse()
         .withId(request.id())
         .withUri(context.getLocalMember())
         .withTerm(context.getTerm())
@@ -222,28 +257,66 @@ abstract class ActiveState extends PassiveState {
     // can be overwritten.
     ByteBuffer entry = context.log().getEntry(request.logIndex());
     if (entry == null) {
-      LOGGER.warn("{} - Rejected {}: request entry not found in local log", context.getLocalMember(), request);
-      return AppendResponse.builder()
+      LOGGER.debug("{} - Rejected {}: request entry not found in local log", context.getLocalMember(), request);
+      return appendResponse()
         .withId(request.id())
         .withUri(context.getLocalMember())
         .withTerm(context.getTerm())
         .withSucceeded(false)
         .withLogIndex(context.log().lastIndex())
         .build();
-    } else if (entry.getLong() != request.logTerm()) {
-      LOGGER.warn("{} - Rejected {}: request entry term does not match local log", context.getLocalMember(), request);
-      return AppendResponse.builder()
+    }
+
+    long entryTerm = Membership.term(entry);
+    if (entryTerm != request.logTerm()) {
+      LOGGER.debug("{} - Rejected {}: request entry term does not match local log", context.getLocalMember(), request);
+      // Include the conflicting term and the first index of that term so the leader can skip the entire
+      // conflicting term in a single round trip rather than decrementing the next index one entry at a time.
+      return appendResponse()
         .withId(request.id())
         .withUri(context.getLocalMember())
         .withTerm(context.getTerm())
         .withSucceeded(false)
         .withLogIndex(context.log().lastIndex())
+        .withConflictTerm(entryTerm)
+        .withConflictIndex(findFirstIndex(entryTerm, request.logIndex()))
         .build();
     } else {
       return doAppendEntries(request);
     }
   }
 
+  /**
+   * Finds the first index in the local log for the given term, searching backwards from the given index.
+   */
+  private long findFirstIndex(long term, long index) {
+    Long firstIndex = context.log().firstIndex();
+    while (firstIndex != null && index > firstIndex) {
+      ByteBuffer entry = context.log().getEntry(index - 1);
+      if (entry == null || Membership.term(entry) != term) {
+        break;
+      }
+      index--;
+    }
+    return index;
+  }
+
+  /**
+   * Returns the form in which the given entry is stored in the local log.<p>
+   *
+   * Witnesses store only the term of user entries, discarding the entry payload. Configuration entries are always
+   * stored in full.
+   */
+  private ByteBuffer toLocalEntry(ByteBuffer entry) {
+    if (context.isWitness() && entry.limit() > 8 && !Membership.isConfiguration(entry)) {
+      ByteBuffer header = ByteBuffer.allocate(8);
+      header.putLong(entry.getLong(0));
+      header.flip();
+      return header;
+    }
+    return entry;
+  }
+
   /**
    * Appends entries to the local log.
    */
@@ -267,7 +340,7 @@ abstract class ActiveState extends PassiveState {
             doApplyCommits(Math.min(context.log().lastIndex(), request.commitIndex()));
           }
 
-          return AppendResponse.builder()
+          return appendResponse()
             .withId(request.id())
             .withUri(context.getLocalMember())
             .withTerm(context.getTerm())
@@ -286,16 +359,16 @@ abstract class ActiveState extends PassiveState {
         if (context.log().containsIndex(index)) {
           // Compare the term of the received entry with the matching entry in the log.
           ByteBuffer match = context.log().getEntry(index);
-          if (entry.getLong() != match.getLong()) {
+          if (Membership.term(entry) != Membership.term(match)) {
             // We found an invalid entry in the log. Remove the invalid entry and append the new entry.
             // If appending to the log fails, apply commits and reply false to the append request.
             LOGGER.warn("{} - Synced entry does not match local log, removing incorrect entries", context.getLocalMember());
             try {
               context.log().removeAfter(index - 1);
-              context.log().appendEntry(entry);
+              context.log().appendEntry(toLocalEntry(entry));
             } catch (IOException e) {
               doApplyCommits(request.commitIndex());
-              return AppendResponse.builder()
+              return appendResponse()
                 .withId(request.id())
                 .withUri(context.getLocalMember())
                 .withTerm(context.getTerm())
@@ -303,15 +376,17 @@ abstract class ActiveState extends PassiveState {
                 .withLogIndex(context.log().lastIndex())
                 .build();
             }
-            LOGGER.debug("{} - Appended {} to log at index {}", context.getLocalMember(), entry, index);
+            if (LOGGER.isDebugEnabled()) {
+              LOGGER.debug("{} - Appended {} to log at index {}", context.getLocalMember(), entry, index);
+            }
           }
         } else {
           // If appending to the log fails, apply commits and reply false to the append request.
           try {
-            context.log().appendEntry(entry);
+            context.log().appendEntry(toLocalEntry(entry));
           } catch (IOException e) {
             doApplyCommits(request.commitIndex());
-            return AppendResponse.builder()
+            return appendResponse()
               .withId(request.id())
               .withUri(context.getLocalMember())
               .withTerm(context.getTerm())
@@ -319,7 +394,9 @@ abstract class ActiveState extends PassiveState {
               .withLogIndex(context.log().lastIndex())
               .build();
           }
-          LOGGER.debug("{} - Appended {} to log at index {}", context.getLocalMember(), entry, index);
+          if (LOGGER.isDebugEnabled()) {
+            LOGGER.debug("{} - Appended {} to log at index {}", context.getLocalMember(), entry, index);
+          }
         }
       }
 
@@ -331,7 +408,7 @@ abstract class ActiveState extends PassiveState {
       } catch (IOException e) {
         LOGGER.error("{} - Failed to roll over local log", context.getLocalMember());
         doApplyCommits(request.commitIndex());
-        return AppendResponse.builder()
+        return appendResponse()
           .withId(request.id())
           .withUri(context.getLocalMember())
           .withTerm(context.getTerm())
@@ -345,7 +422,7 @@ abstract class ActiveState extends PassiveState {
 
     // If we've made it this far, apply commits and send a successful response.
     doApplyCommits(request.commitIndex());
-    return AppendResponse.builder()
+    return appendResponse()
       .withId(request.id())
       .withUri(context.getLocalMember())
       .withTerm(context.getTerm())
@@ -354,6 +431,141 @@ abstract class ActiveState extends PassiveState {
       .build();
   }
 
+  @Override
+  public CompletableFuture<InstallResponse> install(final InstallRequest request) {
+    context.checkThread();
+    CompletableFuture<InstallResponse> future = CompletableFuture.completedFuture(logResponse(handleInstall(logRequest(request))));
+    // If a transition is required then transition back to the follower state.
+    // If the node is already a follower then the transition will be ignored.
+    if (transition) {
+      transition(CopycatState.FOLLOWER);
+      transition = false;
+    }
+    return future;
+  }
+
+  /**
+   * Handles a snapshot install request.
+   */
+  private InstallResponse handleInstall(InstallRequest request) {
+    // If the request indicates a term that is greater than the current term then
+    // assign that term and leader to the current context and step down as leader.
+    if (request.term() > context.getTerm() || (request.term() == context.getTerm() && context.getLeader() == null)) {
+      context.setTerm(request.term());
+      context.setLeader(request.leader());
+      transition = true;
+    }
+
+    // If the request term is less than the current term then immediately
+    // reply false and return our current term. The leader will receive
+    // the updated term and step down.
+    if (request.term() < context.getTerm()) {
+      if (LOGGER.isDebugEnabled()) {
+        LOGGER.debug("{} - Rejected {}: request term is less than the current term ({})", context.getLocalMember(), request, context.getTerm());
+      }
+      return InstallResponse.builder()
+        .withId(request.id())
+        .withUri(context.getLocalMember())
+        .withTerm(context.getTerm())
+        .withSucceeded(false)
+        .build();
+    }
+
+    // If the request is for a different snapshot than the one currently being received then discard any
+    // partially received snapshot.
+    if (installIndex == null || installIndex != request.snapshotIndex() || installTerm != request.snapshotTerm()) {
+      installIndex = request.snapshotIndex();
+      installTerm = request.snapshotTerm();
+      installBuffer = new ByteArrayOutputStream();
+    }
+
+    // If the chunk does not start where the previous chunk ended then reject it, returning the offset from which
+    // the leader should resume the transfer.
+    if (request.offset() != installBuffer.size()) {
+      LOGGER.debug("{} - Rejected {}: expected offset {}", context.getLocalMember(), request, installBuffer.size());
+      return InstallResponse.builder()
+        .withId(request.id())
+        .withUri(context.getLocalMember())
+        .withTerm(context.getTerm())
+        .withSucceeded(false)
+        .withOffset(installBuffer.size())
+        .build();
+    }
+
+    ByteBuffer data = request.data();
+    byte[] bytes = new byte[data.remaining()];
+    data.get(bytes);
+    installBuffer.write(bytes, 0, bytes.length);
+    int offset = installBuffer.size();
+
+    if (request.complete()) {
+      ByteBuffer snapshot = ByteBuffer.wrap(installBuffer.toByteArray());
+      long index = installIndex;
+      installIndex = null;
+      installBuffer = null;
+      if (!doInstallSnapshot(index, snapshot)) {
+        return InstallResponse.builder()
+          .withId(request.id())
+          .withUri(context.getLocalMember())
+          .withTerm(context.getTerm())
+          .withSucceeded(false)
+          .build();
+      }
+    }
+
+    return InstallResponse.builder()
+      .withId(request.id())
+      .withUri(context.getLocalMember())
+      .withTerm(context.getTerm())
+      .withSucceeded(true)
+      .withOffset(offset)
+      .build();
+  }
+
+  /**
+   * Replaces the local log with the given snapshot entry and applies the snapshot to the state machine.
+   */
+  private boolean doInstallSnapshot(long index, ByteBuffer snapshot) {
+    // If the local log already contains the snapshot entry then the entries following it are retained.
+    // Otherwise, roll the log over to a new segment beginning with the snapshot and remove all prior segments.
+    ByteBuffer entry = context.log().containsIndex(index) ? context.log().getEntry(index) : null;
+    if (entry == null || Membership.term(entry) != Membership.term(snapshot)) {
+      try {
+        if (entry != null) {
+          context.log().removeAfter(index - 1);
+        }
+        context.log().rollOver(index);
+        context.log().appendEntry(toLocalEntry(snapshot));
+        context.log().compact(index);
+      } catch (IOException e) {
+        LOGGER.error("{} - Failed to install snapshot", context.getLocalMember());
+        return false;
+      } finally {
+        context.log().flush();
+      }
+      LOGGER.info("{} - Installed snapshot at index {}", context.getLocalMember(), index);
+    }
+
+    // Snapshots are only taken of committed state, so the snapshot can be applied to the state machine immediately.
+    if (context.getCommitIndex() == null || context.getCommitIndex() < index) {
+      context.setCommitIndex(index);
+    }
+    if (context.getLastApplied() == null || context.getLastApplied() < index) {
+      // Witnesses don't store snapshot state and so never apply the snapshot to the state machine.
+      if (!context.isWitness()) {
+        snapshot.position(8);
+        try {
+          context.consumer().apply(index, snapshot.slice());
+        } catch (Exception e) {
+          LOGGER.error("{} - Failed to apply snapshot at index {}", context.getLocalMember(), index, e);
+          return false;
+        }
+      }
+      context.setLastApplied(index);
+    }
+    return true;
+  }
+
   /**
    * Applies commits to the local state machine.
    */
@@ -398,6 +610,19 @@ abstract class ActiveState extends PassiveState {
         throw new IllegalStateException("null entry cannot be applied to state machine");
       }
 
+      // Configuration entries are applied to the cluster membership rather than the state machine.
+      if (Membership.isConfiguration(entry)) {
+        context.applyMembership(index, entry);
+        context.setLastApplied(index);
+        return;
+      }
+
+      // Witnesses don't store entry payloads and so never apply entries to the state machine.
+      if (context.isWitness()) {
+        context.setLastApplied(index);
+        return;
+      }
+
       // Extract a view of the entry after the entry term.
       entry.position(8);
       ByteBuffer userEntry = entry.slice();
@@ -421,6 +646,11 @@ abstract class ActiveState extends PassiveState {
    * Handles a vote request.
    */
   protected PollResponse handlePoll(PollRequest request) {
+    // Pre-vote requests are handled separately since they must not modify the term or vote.
+    if (request.preVote()) {
+      return handlePreVote(request);
+    }
+
     // If the request indicates a term that is greater than the current term then
     // assign that term and leader to the current context and step down as leader.
     if (request.term() > context.getTerm()) {
@@ -492,7 +722,7 @@ abstract class ActiveState extends PassiveState {
               .build();
           }
 
-          long lastTerm = entry.getLong();
+          long lastTerm = Membership.term(entry);
           if (request.logIndex() != null && request.logIndex() >= lastIndex) {
             if (request.logTerm() >= lastTerm) {
               context.setLastVotedFor(request.candidate());
@@ -545,4 +775,84 @@ abstract class ActiveState extends PassiveState {
     }
   }
 
+  /**
+   * Handles a pre-vote request.
+   */
+  protected PollResponse handlePreVote(PollRequest request) {
+    // Pre-vote requests are evaluated as if the candidate had already incremented its term, but
+    // neither the local term nor the last voted for candidate are updated as a result of the request.
+    if (request.term() < context.getTerm()) {
+      LOGGER.debug("{} - Rejected {}: candidate's term is less than the current term", context.getLocalMember(), request);
+      return PollResponse.builder()
+        .withId(request.id())
+        .withUri(context.getLocalMember())
+        .withTerm(context.getTerm())
+        .withVoted(false)
+        .build();
+    } else if (request.candidate().equals(context.getLocalMember())) {
+      LOGGER.debug("{} - Accepted {}: candidate is the local member", context.getLocalMember(), request);
+      return PollResponse.builder()
+        .withId(request.id())
+        .withUri(context.getLocalMember())
+        .withTerm(context.getTerm())
+        .withVoted(true)
+        .build();
+    } else if (!context.getMembers().contains(request.candidate())) {
+      LOGGER.debug("{} - Rejected {}: candidate is not known do the local member", context.getLocalMember(), request);
+      return PollResponse.builder()
+        .withId(request.id())
+        .withUri(context.getLocalMember())
+        .withTerm(context.getTerm())
+        .withVoted(false)
+        .build();
+    } else if (isLogUpToDate(request.logIndex(), request.logTerm())) {
+      LOGGER.debug("{} - Accepted {}: candidate's log is up-to-date", context.getLocalMember(), request);
+      return PollResponse.builder()
+        .withId(request.id())
+        .withUri(context.getLocalMember())
+        .withTerm(context.getTerm())
+        .withVoted(true)
+        .build();
+    } else {
+      LOGGER.debug("{} - Rejected {}: candidate's log is not up-to-date", context.getLocalMember(), request);
+      return PollResponse.builder()
+        .withId(request.id())
+        .withUri(context.getLocalMember())
+        .withTerm(context.getTerm())
+        .withVoted(false)
+        .build();
+    }
+  }
+
+  @Override
+  public CompletableFuture<TransferResponse> transfer(TransferRequest request) {
+    context.checkThread();
+    logRequest(request);
+
+    // Only followers can take over leadership, so reject the transfer by default.
+    LOGGER.debug("{} - Rejected {}: not a follower", context.getLocalMember(), request);
+    return CompletableFuture.completedFuture(logResponse(TransferResponse.builder()
+      .withId(request.id())
+      .withUri(context.getLocalMember())
+      .withTerm(context.getTerm())
+      .withSucceeded(false)
+      .build()));
+  }
+
+  /**
+   * Returns a boolean indicating whether the given log index and term are at least as up to date as the local log.
+   */
+  protected boolean isLogUpToDate(Long index, Long term) {
+    Long lastIndex = context.log().lastIndex();
+    if (lastIndex == null) {
+      return true;
+    }
+
+    ByteBuffer entry = context.log().getEntry(lastIndex);
+    if (entry == null) {
+      return true;
+    }
+    return index != null && index >= lastIndex && term >= Membership.term(entry);
+  }
+
 }
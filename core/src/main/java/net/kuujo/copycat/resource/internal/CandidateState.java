@@ -14,7 +14,6 @@
  */
 package net.kuujo.copycat.resource.internal;
 
-import net.kuujo.copycat.util.internal.Quorum;
 import net.kuujo.copycat.protocol.rpc.PingRequest;
 import net.kuujo.copycat.protocol.rpc.PingResponse;
 import net.kuujo.copycat.protocol.rpc.PollRequest;
@@ -22,7 +21,6 @@ import net.kuujo.copycat.protocol.rpc.PollResponse;
 
 import java.nio.ByteBuffer;
 import java.util.Random;
-import java.util.UUID;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
@@ -35,7 +33,7 @@ import java.util.concurrent.atomic.AtomicBoolean;
  */
 class CandidateState extends ActiveState {
   private final Random random = new Random();
-  private Quorum quorum;
+  private MembershipQuorum quorum;
   private ScheduledFuture<?> currentTimer;
 
   CandidateState(CopycatStateContext context) {
@@ -76,8 +74,10 @@ class CandidateState extends ActiveState {
     }
 
     // When the election timer is reset, increment the current term and
-    // restart the election.
+    // restart the election. The candidate votes for itself in the new term so
+    // that it can't vote for another candidate in the same term after backing off.
     context.setTerm(context.getTerm() + 1);
+    context.setLastVotedFor(context.getLocalMember());
 
     long delay = context.getElectionTimeout() + (random.nextInt((int) context.getElectionTimeout()) % context.getElectionTimeout());
     currentTimer = context.executor().schedule(() -> {
@@ -98,10 +98,16 @@ class CandidateState extends ActiveState {
     // to this node will be automatically successful.
     // First check if the quorum is null. If the quorum isn't null then that
     // indicates that another vote is already going on.
-    final Quorum quorum = new Quorum((int) Math.floor(context.getActiveMembers().size() / 2) + 1, (elected) -> {
+    final MembershipQuorum quorum = new MembershipQuorum(context.getMembership(), (elected) -> {
       complete.set(true);
       if (elected) {
         transition(CopycatState.LEADER);
+      } else {
+        // If the election was rejected by a majority of the cluster then back off by transitioning back
+        // to the follower state. The follower will wait a randomized election timeout and must win a
+        // pre-vote before the term is incremented again.
+        LOGGER.info("{} - Election rejected, backing off", context.getLocalMember());
+        transition(CopycatState.FOLLOWER);
       }
     });
 
@@ -112,12 +118,12 @@ class CandidateState extends ActiveState {
 
     // Once we got the last log term, iterate through each current member
     // of the cluster and poll each member for a vote.
-    LOGGER.info("{} - Polling members {}", context.getLocalMember(), context.getActiveMembers());
-    final Long lastTerm = lastEntry != null ? lastEntry.getLong() : null;
-    for (String member : context.getActiveMembers()) {
+    LOGGER.info("{} - Polling members {}", context.getLocalMember(), context.getVotingMembers());
+    final Long lastTerm = lastEntry != null ? Membership.term(lastEntry) : null;
+    for (String member : context.getVotingMembers()) {
       LOGGER.debug("{} - Polling {} for term {}", context.getLocalMember(), member, context.getTerm());
       PollRequest request = PollRequest.builder()
-        .withId(UUID.randomUUID().toString())
+        .withId(context.nextRequestId())
         .withUri(member)
         .withTerm(context.getTerm())
         .withCandidate(context.getLocalMember())
@@ -129,16 +135,16 @@ class CandidateState extends ActiveState {
         if (isOpen() && !complete.get()) {
           if (error != null) {
             LOGGER.warn(context.getLocalMember(), error);
-            quorum.fail();
+            quorum.fail(member);
           } else if (!response.voted()) {
             LOGGER.info("{} - Received rejected vote from {}", context.getLocalMember(), member);
-            quorum.fail();
+            quorum.fail(member);
           } else if (response.term() != context.getTerm()) {
             LOGGER.info("{} - Received successful vote for a different term from {}", context.getLocalMember(), member);
-            quorum.fail();
+            quorum.fail(member);
           } else {
             LOGGER.info("{} - Received successful vote from {}", context.getLocalMember(), member);
-            quorum.succeed();
+            quorum.succeed(member);
           }
         }
       }, context.executor());
@@ -162,6 +168,11 @@ class CandidateState extends ActiveState {
   public CompletableFuture<PollResponse> poll(PollRequest request) {
     context.checkThread();
 
+    // Pre-vote requests never change the term, so they're handled without stepping down.
+    if (request.preVote()) {
+      return super.poll(request);
+    }
+
     // If the request indicates a term that is greater than the current term then
     // assign that term and leader to the current context and step down as a candidate.
     if (request.term() > context.getTerm()) {
@@ -31,6 +31,11 @@ public enum CopycatState {
    */
   PASSIVE,
 
+  /**
+   * Learner state.
+   */
+  LEARNER,
+
   /**
    * Follower state.
    */
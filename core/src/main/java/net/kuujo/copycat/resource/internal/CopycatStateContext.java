@@ -19,6 +19,9 @@ import net.kuujo.copycat.CopycatException;
 import net.kuujo.copycat.cluster.MessageHandler;
 import net.kuujo.copycat.cluster.internal.coordinator.CoordinatedResourceConfig;
 import net.kuujo.copycat.election.Election;
+import net.kuujo.copycat.resource.ElectionMode;
+import net.kuujo.copycat.resource.ReplicationMode;
+import net.kuujo.copycat.util.ConfigurationException;
 import net.kuujo.copycat.util.internal.Assert;
 import net.kuujo.copycat.util.concurrent.Futures;
 import net.kuujo.copycat.log.LogManager;
@@ -32,7 +35,10 @@ import java.util.*;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.BiFunction;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
 import java.util.stream.Collectors;
 
 /**
@@ -44,6 +50,7 @@ public class CopycatStateContext extends Observable implements RaftProtocol {
   private final Logger LOGGER = LoggerFactory.getLogger(CopycatStateContext.class);
   private final ScheduledExecutorService executor;
   private Thread thread;
+  private final AtomicLong requestId = new AtomicLong();
   private final LogManager log;
   private AbstractState state;
   private BiFunction<Long, ByteBuffer, ByteBuffer> consumer;
@@ -53,9 +60,14 @@ public class CopycatStateContext extends Observable implements RaftProtocol {
   private MessageHandler<AppendRequest, AppendResponse> appendHandler;
   private MessageHandler<QueryRequest, QueryResponse> queryHandler;
   private MessageHandler<CommitRequest, CommitResponse> commitHandler;
+  private MessageHandler<TransferRequest, TransferResponse> transferHandler;
+  private MessageHandler<InstallRequest, InstallResponse> installHandler;
+  private Predicate<String> connectionHandler;
   private CompletableFuture<Void> openFuture;
   private final String localMember;
-  private final Set<String> activeMembers;
+  private Membership membership;
+  private final Set<String> learnerMembers;
+  private final Set<String> witnessMembers;
   private Set<String> members;
   private final ReplicaInfo localMemberInfo;
   private final Map<String, ReplicaInfo> memberInfo = new HashMap<>();
@@ -67,20 +79,40 @@ public class CopycatStateContext extends Observable implements RaftProtocol {
   private Long commitIndex;
   private Long lastApplied;
   private long electionTimeout = 500;
+  private ElectionMode electionMode = ElectionMode.RANDOM;
   private long heartbeatInterval = 250;
+  private long commitBatchWindow;
+  private int commitBatchSize = 1024;
+  private ReplicationMode replicationMode = ReplicationMode.QUORUM;
+  private int replicationAcks = 1;
   private boolean open;
 
   public CopycatStateContext(String name, String uri, CoordinatedResourceConfig config, ScheduledExecutorService executor) {
     this.executor = executor;
     this.localMember = Assert.isNotNull(uri, "uri");
-    this.activeMembers = new HashSet<>(config.getReplicas());
-    this.members = new HashSet<>(config.getReplicas());
+    this.witnessMembers = new HashSet<>(config.getWitnesses());
+    Set<String> replicas = new HashSet<>(config.getReplicas());
+    replicas.addAll(witnessMembers);
+    this.membership = new Membership(replicas, null);
+    this.learnerMembers = new HashSet<>(config.getLearners());
+    for (String learner : learnerMembers) {
+      if (replicas.contains(learner)) {
+        throw new ConfigurationException("Learner %s is also configured as a voting member", learner);
+      }
+    }
+    this.members = new HashSet<>(replicas);
+    this.members.addAll(learnerMembers);
     this.members.add(uri);
     this.localMemberInfo = new ReplicaInfo(uri);
     this.memberInfo.put(uri, localMemberInfo);
     this.log = config.getLog().getLogManager(name);
     this.electionTimeout = config.getElectionTimeout();
+    this.electionMode = config.getElectionMode();
     this.heartbeatInterval = config.getHeartbeatInterval();
+    this.commitBatchWindow = config.getCommitBatchWindow();
+    this.commitBatchSize = config.getCommitBatchSize();
+    this.replicationMode = config.getReplicationMode();
+    this.replicationAcks = config.getReplicationAcks();
     try {
       executor.submit(() -> this.thread = Thread.currentThread()).get();
     } catch (InterruptedException | ExecutionException e) {
@@ -94,7 +126,97 @@ public class CopycatStateContext extends Observable implements RaftProtocol {
    * @return The full set of active members.
    */
   public Set<String> getActiveMembers() {
-    return activeMembers;
+    return membership.members();
+  }
+
+  /**
+   * Returns the full set of voting members.<p>
+   *
+   * While a membership change is in progress, the voting members include both the previous and the new set of
+   * active members.
+   *
+   * @return The full set of voting members.
+   */
+  public Set<String> getVotingMembers() {
+    if (membership.isJoint()) {
+      Set<String> members = new HashSet<>(membership.members());
+      members.addAll(membership.jointMembers());
+      return members;
+    }
+    return membership.members();
+  }
+
+  /**
+   * Returns the current membership configuration.
+   */
+  Membership getMembership() {
+    return membership;
+  }
+
+  /**
+   * Applies a committed membership configuration entry.
+   */
+  CopycatStateContext applyMembership(long index, ByteBuffer entry) {
+    Membership membership = Membership.fromEntry(entry);
+    LOGGER.info("{} - Applying {} at index {}", localMember, membership, index);
+    this.membership = membership;
+    this.members.addAll(membership.members());
+    if (membership.isJoint()) {
+      this.members.addAll(membership.jointMembers());
+    }
+
+    // Defer any resulting state transition until the current request has been handled.
+    executor.execute(this::checkMembership);
+    return this;
+  }
+
+  /**
+   * Transitions the local member into or out of the voting states according to the current membership.
+   */
+  private void checkMembership() {
+    if (state == null) {
+      return;
+    }
+
+    boolean voting = getVotingMembers().contains(localMember);
+    CopycatState current = state.state();
+    if (voting && (current == CopycatState.PASSIVE || current == CopycatState.LEARNER)) {
+      transition(CopycatState.FOLLOWER);
+    } else if (!voting && (current == CopycatState.FOLLOWER || current == CopycatState.CANDIDATE)) {
+      transition(learnerMembers.contains(localMember) ? CopycatState.LEARNER : CopycatState.PASSIVE);
+    }
+  }
+
+  /**
+   * Returns the full set of learner members.<p>
+   *
+   * Learners are non-voting members to which the leader replicates entries directly.
+   *
+   * @return The full set of learner members.
+   */
+  public Set<String> getLearnerMembers() {
+    return learnerMembers;
+  }
+
+  /**
+   * Returns the full set of witness members.<p>
+   *
+   * Witnesses are voting members that store only the term of each entry and never apply entries to the state
+   * machine, so they can never become the leader.
+   *
+   * @return The full set of witness members.
+   */
+  public Set<String> getWitnessMembers() {
+    return witnessMembers;
+  }
+
+  /**
+   * Returns a boolean indicating whether the local member is a witness.
+   *
+   * @return Indicates whether the local member is a witness.
+   */
+  public boolean isWitness() {
+    return witnessMembers.contains(localMember);
   }
 
   /**
@@ -418,6 +540,15 @@ public class CopycatStateContext extends Observable implements RaftProtocol {
     return electionTimeout;
   }
 
+  /**
+   * Returns the state election mode.
+   *
+   * @return The state election mode.
+   */
+  public ElectionMode getElectionMode() {
+    return electionMode;
+  }
+
   /**
    * Sets the state heartbeat interval.
    *
@@ -438,6 +569,65 @@ public class CopycatStateContext extends Observable implements RaftProtocol {
     return heartbeatInterval;
   }
 
+  /**
+   * Sets the state commit batch window.
+   *
+   * @param commitBatchWindow The state commit batch window.
+   * @return The Copycat state context.
+   */
+  CopycatStateContext setCommitBatchWindow(long commitBatchWindow) {
+    this.commitBatchWindow = commitBatchWindow;
+    return this;
+  }
+
+  /**
+   * Returns the state commit batch window.
+   *
+   * @return The state commit batch window.
+   */
+  public long getCommitBatchWindow() {
+    return commitBatchWindow;
+  }
+
+  /**
+   * Sets the state commit batch size.
+   *
+   * @param commitBatchSize The state commit batch size.
+   * @return The Copycat state context.
+   */
+  CopycatStateContext setCommitBatchSize(int commitBatchSize) {
+    this.commitBatchSize = commitBatchSize;
+    return this;
+  }
+
+  /**
+   * Returns the state commit batch size.
+   *
+   * @return The state commit batch size.
+   */
+  public int getCommitBatchSize() {
+    return commitBatchSize;
+  }
+
+  /**
+   * Returns the mode in which the leader acknowledges commits.
+   *
+   * @return The replication mode.
+   */
+  public ReplicationMode getReplicationMode() {
+    return replicationMode;
+  }
+
+  /**
+   * Returns the number of replica acknowledgements required to complete a commit in the
+   * {@link net.kuujo.copycat.resource.ReplicationMode#ACKNOWLEDGED} mode.
+   *
+   * @return The number of replica acknowledgements required to complete a commit.
+   */
+  public int getReplicationAcks() {
+    return replicationAcks;
+  }
+
   /**
    * Returns the Copycat state.
    *
@@ -551,6 +741,120 @@ public class CopycatStateContext extends Observable implements RaftProtocol {
     return wrapCall(request, state::commit);
   }
 
+  @Override
+  public CopycatStateContext transferHandler(MessageHandler<TransferRequest, TransferResponse> handler) {
+    this.transferHandler = handler;
+    return this;
+  }
+
+  @Override
+  public CompletableFuture<TransferResponse> transfer(TransferRequest request) {
+    return wrapCall(request, state::transfer);
+  }
+
+  @Override
+  public CopycatStateContext installHandler(MessageHandler<InstallRequest, InstallResponse> handler) {
+    this.installHandler = handler;
+    return this;
+  }
+
+  @Override
+  public CompletableFuture<InstallResponse> install(InstallRequest request) {
+    return wrapCall(request, state::install);
+  }
+
+  @Override
+  public CopycatStateContext connectionHandler(Predicate<String> handler) {
+    this.connectionHandler = handler;
+    return this;
+  }
+
+  /**
+   * Transfers leadership to the given member.<p>
+   *
+   * Leadership can only be transferred by the current leader and only to an active member. The leader stops accepting
+   * new commits, brings the given member's log up to date, and then instructs the member to start an election
+   * immediately. The returned future will be completed once the leader has stepped down.
+   *
+   * @param member The URI of the member to which to transfer leadership.
+   * @return A completable future to be completed once leadership has been transferred.
+   */
+  public CompletableFuture<Void> transferLeadership(String member) {
+    Assert.isNotNull(member, "member");
+    CompletableFuture<Void> future = new CompletableFuture<>();
+    executor.execute(() -> {
+      if (!(state instanceof LeaderState)) {
+        future.completeExceptionally(new IllegalStateException("Not the leader"));
+      } else if (member.equals(localMember)) {
+        future.complete(null);
+      } else if (!membership.members().contains(member)) {
+        future.completeExceptionally(new IllegalArgumentException("Invalid active member " + member));
+      } else {
+        ((LeaderState) state).transferLeadership(member).whenComplete((result, error) -> {
+          if (error == null) {
+            future.complete(null);
+          } else {
+            future.completeExceptionally(error);
+          }
+        });
+      }
+    });
+    return future;
+  }
+
+  /**
+   * Adds a voting member to the cluster.<p>
+   *
+   * Membership changes can only be made by the current leader. The change is replicated through the log using joint
+   * consensus, so the cluster remains available while the new member is brought up to date. The member must already
+   * be reachable as a member of the cluster. The returned future will be completed once the new configuration has
+   * been committed.
+   *
+   * @param member The URI of the member to add.
+   * @return A completable future to be completed once the member has been added.
+   */
+  public CompletableFuture<Void> addActiveMember(String member) {
+    Assert.isNotNull(member, "member");
+    return configure(members -> members.add(member));
+  }
+
+  /**
+   * Removes a voting member from the cluster.<p>
+   *
+   * Membership changes can only be made by the current leader. If the leader removes itself, it steps down once the
+   * new configuration has been committed.
+   *
+   * @param member The URI of the member to remove.
+   * @return A completable future to be completed once the member has been removed.
+   */
+  public CompletableFuture<Void> removeActiveMember(String member) {
+    Assert.isNotNull(member, "member");
+    return configure(members -> members.remove(member));
+  }
+
+  /**
+   * Applies a change to the set of active members.
+   */
+  private CompletableFuture<Void> configure(Consumer<Set<String>> change) {
+    CompletableFuture<Void> future = new CompletableFuture<>();
+    executor.execute(() -> {
+      if (!(state instanceof LeaderState)) {
+        future.completeExceptionally(new IllegalStateException("Not the leader"));
+      } else {
+        Set<String> members = new HashSet<>(membership.members());
+        change.accept(members);
+        ((LeaderState) state).configure(members).whenComplete((result, error) -> {
+          if (error == null) {
+            future.complete(null);
+          } else {
+            future.completeExceptionally(error);
+          }
+        });
+      }
+    });
+    return future;
+  }
+
   /**
    * Wraps a call to the state context in the context executor.
    */
@@ -568,11 +872,29 @@ public class CopycatStateContext extends Observable implements RaftProtocol {
     return future;
   }
 
+  /**
+   * Returns the next request ID.<p>
+   *
+   * Request IDs are monotonically increasing numbers local to the state context. Protocol transports correlate
+   * responses by their own request identifiers, so IDs only need to be unique among requests sent by this context,
+   * and a small number is far cheaper to generate and serialize than a random UUID string.
+   */
+  long nextRequestId() {
+    return requestId.incrementAndGet();
+  }
+
+  /**
+   * Returns a boolean indicating whether the current thread is the state context thread.
+   */
+  boolean isContextThread() {
+    return Thread.currentThread() == thread;
+  }
+
   /**
    * Checks that the current thread is the state context thread.
    */
   void checkThread() {
-    if (Thread.currentThread() != thread) {
+    if (!isContextThread()) {
       throw new IllegalStateException("State not running on correct thread");
     }
   }
@@ -600,6 +922,9 @@ public class CopycatStateContext extends Observable implements RaftProtocol {
           case PASSIVE:
             this.state = new PassiveState(this);
             break;
+          case LEARNER:
+            this.state = new LearnerState(this);
+            break;
           case FOLLOWER:
             this.state = new FollowerState(this);
             break;
@@ -627,6 +952,9 @@ public class CopycatStateContext extends Observable implements RaftProtocol {
         case PASSIVE:
           this.state = new PassiveState(this);
           break;
+        case LEARNER:
+          this.state = new LearnerState(this);
+          break;
         case FOLLOWER:
           this.state = new FollowerState(this);
           break;
@@ -662,6 +990,9 @@ public class CopycatStateContext extends Observable implements RaftProtocol {
     state.pollHandler(pollHandler);
     state.queryHandler(queryHandler);
     state.commitHandler(commitHandler);
+    state.transferHandler(transferHandler);
+    state.installHandler(installHandler);
+    state.connectionHandler(connectionHandler);
     state.transitionHandler(this::transition);
   }
 
@@ -675,6 +1006,9 @@ public class CopycatStateContext extends Observable implements RaftProtocol {
     state.pollHandler(null);
     state.queryHandler(null);
     state.commitHandler(null);
+    state.transferHandler(null);
+    state.installHandler(null);
+    state.connectionHandler(null);
     state.transitionHandler(null);
   }
 
@@ -697,7 +1031,8 @@ public class CopycatStateContext extends Observable implements RaftProtocol {
       try {
         open = true;
         log.open();
-        transition(activeMembers.contains(localMember) ? CopycatState.FOLLOWER : CopycatState.PASSIVE);
+        transition(getVotingMembers().contains(localMember) ? CopycatState.FOLLOWER
+          : learnerMembers.contains(localMember) ? CopycatState.LEARNER : CopycatState.PASSIVE);
       } catch (Exception e) {
         openFuture.completeExceptionally(e);
         openFuture = null;
@@ -720,9 +1055,11 @@ public class CopycatStateContext extends Observable implements RaftProtocol {
       return Futures.exceptionalFuture(new IllegalStateException("Context not open"));
     }
 
+    // If the local member is the leader then give it a chance to step down cleanly before closing.
     CompletableFuture<Void> future = new CompletableFuture<>();
     executor.execute(() -> {
-      transition(CopycatState.START).whenComplete((result, error) -> {
+      CompletableFuture<Void> stepDownFuture = state instanceof LeaderState ? ((LeaderState) state).stepDown() : CompletableFuture.completedFuture(null);
+      stepDownFuture.thenCompose(v -> transition(CopycatState.START)).whenComplete((result, error) -> {
         if (error == null) {
           try {
             log.close();
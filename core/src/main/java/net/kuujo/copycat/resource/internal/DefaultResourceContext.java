@@ -25,9 +25,12 @@ import net.kuujo.copycat.protocol.rpc.CommitRequest;
 import net.kuujo.copycat.protocol.Consistency;
 import net.kuujo.copycat.protocol.rpc.QueryRequest;
 import net.kuujo.copycat.protocol.rpc.Response;
+import net.kuujo.copycat.resource.CommitOverflowPolicy;
+import net.kuujo.copycat.resource.ResourceException;
 
 import java.nio.ByteBuffer;
-import java.util.UUID;
+import java.util.ArrayDeque;
+import java.util.Queue;
 import java.util.concurrent.Callable;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ScheduledFuture;
@@ -45,6 +48,10 @@ public class DefaultResourceContext implements ResourceContext {
   private final ClusterManager cluster;
   private final CopycatStateContext context;
   private final DefaultClusterCoordinator coordinator;
+  private final int commitPendingLimit;
+  private final CommitOverflowPolicy commitOverflowPolicy;
+  private final Queue<QueuedCommit> queuedCommits = new ArrayDeque<>();
+  private int inflightCommits;
   private boolean open;
 
   public DefaultResourceContext(String name, CoordinatedResourceConfig config, ClusterManager cluster, CopycatStateContext context, DefaultClusterCoordinator coordinator) {
@@ -53,6 +60,8 @@ public class DefaultResourceContext implements ResourceContext {
     this.cluster = Assert.isNotNull(cluster, "cluster");
     this.context = Assert.isNotNull(context, "context");
     this.coordinator = Assert.isNotNull(coordinator, "coordinator");
+    this.commitPendingLimit = config.getCommitPendingLimit();
+    this.commitOverflowPolicy = config.getCommitOverflowPolicy();
   }
 
   @Override
@@ -125,7 +134,7 @@ public class DefaultResourceContext implements ResourceContext {
 
     CompletableFuture<ByteBuffer> future = new CompletableFuture<>();
     QueryRequest request = QueryRequest.builder()
-      .withId(UUID.randomUUID().toString())
+      .withId(context.nextRequestId())
       .withUri(context.getLocalMember())
       .withEntry(entry)
       .withConsistency(consistency)
@@ -150,13 +159,56 @@ public class DefaultResourceContext implements ResourceContext {
       return Futures.exceptionalFuture(new IllegalStateException("Context not open"));
     }
 
+    // If the pending commit limit has been reached, apply the overflow policy to provide backpressure to the
+    // producer rather than allowing commits to queue up without bound in the state context.
+    if (inflightCommits >= commitPendingLimit) {
+      switch (commitOverflowPolicy) {
+        case REJECT:
+          return Futures.exceptionalFuture(new ResourceException("Pending commit limit (%d) reached", commitPendingLimit));
+        case BLOCK:
+          // Blocking the state context thread would prevent pending commits from ever completing.
+          if (context.isContextThread()) {
+            return Futures.exceptionalFuture(new ResourceException("Pending commit limit (%d) reached", commitPendingLimit));
+          }
+          while (open && inflightCommits >= commitPendingLimit) {
+            try {
+              wait();
+            } catch (InterruptedException e) {
+              Thread.currentThread().interrupt();
+              return Futures.exceptionalFuture(new ResourceException(e));
+            }
+          }
+          if (!open) {
+            return Futures.exceptionalFuture(new IllegalStateException("Context not open"));
+          }
+          break;
+        case SHED:
+          if (queuedCommits.size() >= commitPendingLimit) {
+            queuedCommits.poll().future.completeExceptionally(new ResourceException("Commit shed: pending commit limit (%d) reached", commitPendingLimit));
+          }
+          CompletableFuture<ByteBuffer> future = new CompletableFuture<>();
+          queuedCommits.add(new QueuedCommit(entry, future));
+          return future;
+      }
+    }
+
     CompletableFuture<ByteBuffer> future = new CompletableFuture<>();
+    doCommit(entry, future);
+    return future;
+  }
+
+  /**
+   * Submits a commit to the state context.
+   */
+  private void doCommit(ByteBuffer entry, CompletableFuture<ByteBuffer> future) {
+    inflightCommits++;
     CommitRequest request = CommitRequest.builder()
-      .withId(UUID.randomUUID().toString())
+      .withId(context.nextRequestId())
       .withUri(context.getLocalMember())
       .withEntry(entry)
       .build();
     context.commit(request).whenComplete((response, error) -> {
+      releaseCommit();
       if (error == null) {
         if (response.status() == Response.Status.OK) {
           future.complete(ByteBuffer.wrap(response.result()));
@@ -167,7 +219,23 @@ public class DefaultResourceContext implements ResourceContext {
         future.completeExceptionally(error);
       }
     });
-    return future;
+  }
+
+  /**
+   * Releases a pending commit, submitting queued commits and waking blocked producers.
+   */
+  private synchronized void releaseCommit() {
+    inflightCommits--;
+    while (open && inflightCommits < commitPendingLimit && !queuedCommits.isEmpty()) {
+      QueuedCommit commit = queuedCommits.poll();
+      doCommit(commit.entry, commit.future);
+    }
+    notifyAll();
+  }
+
+  @Override
+  public synchronized int pendingCommits() {
+    return inflightCommits + queuedCommits.size();
   }
 
   @Override
@@ -187,7 +255,15 @@ public class DefaultResourceContext implements ResourceContext {
   public synchronized CompletableFuture<Void> close() {
     return coordinator.releaseResource(name)
       .thenRun(() -> {
-        open = false;
+        synchronized (this) {
+          open = false;
+          QueuedCommit commit = queuedCommits.poll();
+          while (commit != null) {
+            commit.future.completeExceptionally(new IllegalStateException("Context not open"));
+            commit = queuedCommits.poll();
+          }
+          notifyAll();
+        }
       });
   }
 
@@ -196,4 +272,17 @@ public class DefaultResourceContext implements ResourceContext {
     return !open;
   }
 
+  /**
+   * Commit queued while the pending commit limit is reached.
+   */
+  private static class QueuedCommit {
+    private final ByteBuffer entry;
+    private final CompletableFuture<ByteBuffer> future;
+
+    private QueuedCommit(ByteBuffer entry, CompletableFuture<ByteBuffer> future) {
+      this.entry = entry;
+      this.future = future;
+    }
+  }
+
 }
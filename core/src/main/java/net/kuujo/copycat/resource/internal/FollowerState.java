@@ -15,7 +15,9 @@
 package net.kuujo.copycat.resource.internal;
 
 import net.kuujo.copycat.protocol.rpc.*;
+import net.kuujo.copycat.resource.ElectionMode;
 
+import java.nio.ByteBuffer;
 import java.util.Random;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ScheduledFuture;
@@ -29,6 +31,9 @@ import java.util.concurrent.TimeUnit;
 class FollowerState extends ActiveState {
   private final Random random = new Random();
   private ScheduledFuture<?> currentTimer;
+  private MembershipQuorum quorum;
+  private long lastHeartbeat;
+  private Long leaderIndex;
 
   FollowerState(CopycatStateContext context) {
     super(context);
@@ -67,38 +72,204 @@ class FollowerState extends ActiveState {
 
     // Set the election timeout in a semi-random fashion with the random range
     // being election timeout and 2 * election timeout.
-    long delay = context.getElectionTimeout() + (random.nextInt((int) context.getElectionTimeout()) % context.getElectionTimeout());
+    long delay = context.getElectionMode() == ElectionMode.RANKED ? getRankedTimeout()
+      : context.getElectionTimeout() + (random.nextInt((int) context.getElectionTimeout()) % context.getElectionTimeout());
     currentTimer = context.executor().schedule(() -> {
-      // If the node has not yet voted for anyone then transition to
-      // candidate and start a new election.
+      // When the heartbeat times out, poll the cluster for a pre-vote. The pre-vote is sent even if the node
+      // already voted in the current term since it neither changes the term nor casts a vote. Otherwise, members
+      // that voted for a candidate whose election was rejected (including candidates that voted for themselves
+      // and backed off) would never start another election and a split vote would leave the cluster leaderless.
       currentTimer = null;
-      if (context.getLastVotedFor() == null) {
-        LOGGER.info("{} - Heartbeat timed out in {} milliseconds", context.getLocalMember(), delay);
-        transition(CopycatState.CANDIDATE);
+      if (context.isWitness()) {
+        // Witnesses don't store entry payloads and can never become the leader, so they never start an election.
+        resetHeartbeatTimer();
+      } else if (!context.getVotingMembers().contains(context.getLocalMember())) {
+        // A passive member becomes a follower when the leader replicates to it after adding it to the cluster. If it
+        // hasn't yet applied the configuration that made it a voting member, it can't start an election.
+        LOGGER.info("{} - Heartbeat timed out before joining the cluster", context.getLocalMember());
+        transition(context.getLearnerMembers().contains(context.getLocalMember()) ? CopycatState.LEARNER : CopycatState.PASSIVE);
       } else {
-        // If the node voted for a candidate then reset the election timer.
+        LOGGER.info("{} - Heartbeat timed out in {} milliseconds", context.getLocalMember(), delay);
         resetHeartbeatTimer();
+        sendPreVotes();
       }
     }, delay, TimeUnit.MILLISECONDS);
   }
 
+  /**
+   * Returns a randomized election timeout ranked by how up to date the local log is.<p>
+   *
+   * Followers whose logs contain every entry the leader is known to have written time out within the first half of
+   * the election timeout range, and followers that lag behind time out within the second half. Since only a member
+   * with an up to date log can win the election, this ensures the most likely winner starts the election first.
+   */
+  long getRankedTimeout() {
+    long timeout = context.getElectionTimeout();
+    int range = (int) Math.max(timeout / 2, 1);
+    Long lastIndex = context.log().lastIndex();
+    boolean upToDate = leaderIndex == null || (lastIndex != null && lastIndex >= leaderIndex);
+    return timeout + (upToDate ? 0 : range) + random.nextInt(range);
+  }
+
+  /**
+   * Records the highest log index the leader is known to have written.
+   */
+  void updateLeaderIndex(Long index) {
+    if (index != null && (leaderIndex == null || index > leaderIndex)) {
+      leaderIndex = index;
+    }
+  }
+
+  /**
+   * Polls all active members for a pre-vote.<p>
+   *
+   * The pre-vote is performed without incrementing the local term. Only if a majority of the cluster agrees that
+   * this member's log is up to date and that no leader has been heard from within an election timeout will the
+   * member transition to the candidate state and start a real election.
+   */
+  private void sendPreVotes() {
+    context.checkThread();
+    cancelPreVotes();
+
+    final MembershipQuorum quorum = new MembershipQuorum(context.getMembership(), (elected) -> {
+      this.quorum = null;
+      if (elected) {
+        LOGGER.info("{} - Pre-vote succeeded", context.getLocalMember());
+        transition(CopycatState.CANDIDATE);
+      } else {
+        LOGGER.info("{} - Pre-vote failed", context.getLocalMember());
+      }
+    });
+    this.quorum = quorum;
+
+    final Long lastIndex = context.log().lastIndex();
+    ByteBuffer lastEntry = lastIndex != null ? context.log().getEntry(lastIndex) : null;
+    final Long lastTerm = lastEntry != null ? Membership.term(lastEntry) : null;
+
+    LOGGER.info("{} - Polling members {} for pre-vote", context.getLocalMember(), context.getVotingMembers());
+    for (String member : context.getVotingMembers()) {
+      LOGGER.debug("{} - Polling {} for pre-vote in term {}", context.getLocalMember(), member, context.getTerm() + 1);
+      PollRequest request = PollRequest.builder()
+        .withId(context.nextRequestId())
+        .withUri(member)
+        .withTerm(context.getTerm() + 1)
+        .withCandidate(context.getLocalMember())
+        .withLogIndex(lastIndex)
+        .withLogTerm(lastTerm)
+        .withPreVote(true)
+        .build();
+      pollHandler.apply(request).whenCompleteAsync((response, error) -> {
+        context.checkThread();
+        if (isOpen() && this.quorum == quorum) {
+          if (error != null) {
+            LOGGER.warn(context.getLocalMember(), error);
+            quorum.fail(member);
+          } else if (!response.voted()) {
+            LOGGER.debug("{} - Received rejected pre-vote from {}", context.getLocalMember(), member);
+            quorum.fail(member);
+          } else {
+            LOGGER.debug("{} - Received successful pre-vote from {}", context.getLocalMember(), member);
+            quorum.succeed(member);
+          }
+        }
+      }, context.executor());
+    }
+  }
+
+  /**
+   * Cancels the current pre-vote, if any.
+   */
+  private void cancelPreVotes() {
+    if (quorum != null) {
+      quorum.cancel();
+      quorum = null;
+    }
+  }
+
   @Override
   public CompletableFuture<PingResponse> ping(PingRequest request) {
+    if (request.term() >= context.getTerm()) {
+      lastHeartbeat = System.currentTimeMillis();
+      cancelPreVotes();
+      updateLeaderIndex(request.logIndex());
+      updateLeaderIndex(request.commitIndex());
+    }
     resetHeartbeatTimer();
     return super.ping(request);
   }
 
   @Override
   public CompletableFuture<AppendResponse> append(AppendRequest request) {
+    if (request.term() >= context.getTerm()) {
+      lastHeartbeat = System.currentTimeMillis();
+      cancelPreVotes();
+      updateLeaderIndex(request.logIndex() != null ? request.logIndex() + request.entries().size() : (long) request.entries().size());
+      updateLeaderIndex(request.commitIndex());
+    }
     resetHeartbeatTimer();
     return super.append(request);
   }
 
+  @Override
+  public CompletableFuture<InstallResponse> install(InstallRequest request) {
+    if (request.term() >= context.getTerm()) {
+      lastHeartbeat = System.currentTimeMillis();
+      cancelPreVotes();
+    }
+    resetHeartbeatTimer();
+    return super.install(request);
+  }
+
+  @Override
+  public CompletableFuture<TransferResponse> transfer(TransferRequest request) {
+    context.checkThread();
+    logRequest(request);
+
+    // Only accept the transfer from the current leader for the current term. Once the request is accepted, skip
+    // the election timeout and pre-vote and immediately start a new election.
+    if (request.term() == context.getTerm() && request.leader().equals(context.getLeader()) && !context.isWitness()) {
+      LOGGER.info("{} - Accepted leadership transfer from {}", context.getLocalMember(), request.leader());
+      TransferResponse response = TransferResponse.builder()
+        .withId(request.id())
+        .withUri(context.getLocalMember())
+        .withTerm(context.getTerm())
+        .withSucceeded(true)
+        .build();
+      transition(CopycatState.CANDIDATE);
+      return CompletableFuture.completedFuture(logResponse(response));
+    }
+
+    LOGGER.debug("{} - Rejected {}: request is not from the current leader or local member is a witness", context.getLocalMember(), request);
+    return CompletableFuture.completedFuture(logResponse(TransferResponse.builder()
+      .withId(request.id())
+      .withUri(context.getLocalMember())
+      .withTerm(context.getTerm())
+      .withSucceeded(false)
+      .build()));
+  }
+
+  @Override
+  protected PollResponse handlePreVote(PollRequest request) {
+    // If a leader has been heard from within the election timeout then reject the pre-vote. This prevents
+    // members that have been partitioned from the leader from disrupting the cluster once they rejoin.
+    if (!request.candidate().equals(context.getLocalMember()) && context.getLeader() != null
+      && System.currentTimeMillis() - lastHeartbeat < context.getElectionTimeout()) {
+      LOGGER.debug("{} - Rejected {}: leader {} is still alive", context.getLocalMember(), request, context.getLeader());
+      return PollResponse.builder()
+        .withId(request.id())
+        .withUri(context.getLocalMember())
+        .withTerm(context.getTerm())
+        .withVoted(false)
+        .build();
+    }
+    return super.handlePreVote(request);
+  }
+
   @Override
   protected PollResponse handlePoll(PollRequest request) {
     // Reset the heartbeat timer if we voted for another candidate.
     PollResponse response = super.handlePoll(request);
-    if (response.voted()) {
+    if (response.voted() && !request.preVote()) {
       resetHeartbeatTimer();
     }
     return response;
@@ -112,6 +283,7 @@ class FollowerState extends ActiveState {
       LOGGER.debug("{} - Cancelling heartbeat timer", context.getLocalMember());
       currentTimer.cancel(false);
     }
+    cancelPreVotes();
   }
 
   @Override
@@ -15,9 +15,10 @@
 package net.kuujo.copycat.resource.internal;
 
 import net.kuujo.copycat.CopycatException;
-import net.kuujo.copycat.util.internal.Quorum;
 import net.kuujo.copycat.protocol.*;
 import net.kuujo.copycat.protocol.rpc.*;
+import net.kuujo.copycat.resource.ElectionMode;
+import net.kuujo.copycat.resource.ReplicationMode;
 
 import java.io.IOException;
 import java.nio.ByteBuffer;
@@ -34,8 +35,19 @@ import java.util.function.BiFunction;
  */
 class LeaderState extends ActiveState {
   private static final int MAX_BATCH_SIZE = 1024 * 1024;
+  private static final int MAX_CHUNK_SIZE = 1024 * 512;
   private ScheduledFuture<?> currentTimer;
   private final Replicator replicator = new Replicator();
+  private CompletableFuture<Void> transferFuture;
+  private CompletableFuture<Void> configureFuture;
+  private ScheduledFuture<?> transferTimer;
+  private boolean transferring;
+  private long lastActivity = System.currentTimeMillis();
+  private List<PendingCommit> pendingCommits = new ArrayList<>();
+  private ScheduledFuture<?> batchTimer;
+  // Heartbeats and appends are only sent from the context thread, so a single builder is reused for each.
+  private final PingRequest.Builder pingRequestBuilder = PingRequest.builder();
+  private final AppendRequest.Builder appendRequestBuilder = AppendRequest.builder();
 
   LeaderState(CopycatStateContext context) {
     super(context);
@@ -52,6 +64,7 @@ class LeaderState extends ActiveState {
       .thenRun(replicator::pingAll)
       .thenRun(this::takeLeadership)
       .thenRun(this::applyEntries)
+      .thenRun(this::resumeConfiguration)
       .thenRun(this::startPingTimer);
   }
 
@@ -66,6 +79,12 @@ class LeaderState extends ActiveState {
    * Applies all unapplied entries to the log.
    */
   private void applyEntries() {
+    // In replication modes that acknowledge commits early, entries are only applied once they're known to be committed.
+    if (context.getReplicationMode() != ReplicationMode.QUORUM) {
+      applyCommits();
+      return;
+    }
+
     Long lastIndex = context.log().lastIndex();
     if (lastIndex != null) {
       int count = 0;
@@ -85,26 +104,43 @@ class LeaderState extends ActiveState {
     // in the cluster. This timer acts as a heartbeat to ensure this node remains
     // the leader.
     LOGGER.debug("{} - Setting ping timer", context.getLocalMember());
-    currentTimer = context.executor().scheduleAtFixedRate(this::pingMembers, 0, context.getHeartbeatInterval(), TimeUnit.MILLISECONDS);
+    currentTimer = context.executor().schedule(this::pingMembers, 0, TimeUnit.MILLISECONDS);
   }
 
   /**
-   * Sets the ping timer.
+   * Pings members that are due a heartbeat and reschedules the ping timer.
    */
   private void pingMembers() {
     context.checkThread();
     if (isOpen()) {
-      replicator.pingAll();
+      long delay = replicator.heartbeat(getHeartbeatInterval());
+      currentTimer = context.executor().schedule(this::pingMembers, delay, TimeUnit.MILLISECONDS);
     }
   }
 
+  /**
+   * Returns the current heartbeat interval.<p>
+   *
+   * While the leader is idle the heartbeat interval is doubled for each interval that passes without any new commits,
+   * up to half the election timeout. Any commit resets the interval to the configured heartbeat interval.
+   */
+  private long getHeartbeatInterval() {
+    long interval = context.getHeartbeatInterval();
+    long maxInterval = Math.max(interval, context.getElectionTimeout() / 2);
+    long idle = System.currentTimeMillis() - lastActivity;
+    while (interval < maxInterval && idle >= interval * 2) {
+      interval *= 2;
+    }
+    return Math.min(interval, maxInterval);
+  }
+
   @Override
   public CompletableFuture<PingResponse> ping(final PingRequest request) {
     context.checkThread();
     if (request.term() > context.getTerm()) {
       return super.ping(request);
     } else if (request.term() < context.getTerm()) {
-      return CompletableFuture.completedFuture(logResponse(PingResponse.builder()
+      return CompletableFuture.completedFuture(logResponse(pingResponse()
         .withId(logRequest(request).id())
         .withUri(context.getLocalMember())
         .withTerm(context.getTerm())
@@ -118,7 +154,9 @@ class LeaderState extends ActiveState {
 
   @Override
   public CompletableFuture<PollResponse> poll(final PollRequest request) {
-    if (request.term() > context.getTerm()) {
+    // The leader always rejects pre-vote requests since the request indicates that the candidate
+    // believes the leader to have failed.
+    if (request.term() > context.getTerm() && !request.preVote()) {
       transition(CopycatState.FOLLOWER);
       return super.poll(request);
     } else {
@@ -137,7 +175,7 @@ class LeaderState extends ActiveState {
     if (request.term() > context.getTerm()) {
       return super.append(request);
     } else if (request.term() < context.getTerm()) {
-      return CompletableFuture.completedFuture(logResponse(AppendResponse.builder()
+      return CompletableFuture.completedFuture(logResponse(appendResponse()
         .withId(logRequest(request).id())
         .withUri(context.getLocalMember())
         .withTerm(context.getTerm())
@@ -150,6 +188,24 @@ class LeaderState extends ActiveState {
     }
   }
 
+  @Override
+  public CompletableFuture<InstallResponse> install(final InstallRequest request) {
+    context.checkThread();
+    if (request.term() > context.getTerm()) {
+      return super.install(request);
+    } else if (request.term() < context.getTerm()) {
+      return CompletableFuture.completedFuture(logResponse(InstallResponse.builder()
+        .withId(logRequest(request).id())
+        .withUri(context.getLocalMember())
+        .withTerm(context.getTerm())
+        .withSucceeded(false)
+        .build()));
+    } else {
+      transition(CopycatState.FOLLOWER);
+      return super.install(request);
+    }
+  }
+
   @Override
   public CompletableFuture<QueryResponse> query(QueryRequest request) {
     context.checkThread();
@@ -209,66 +265,451 @@ class LeaderState extends ActiveState {
     context.checkThread();
     logRequest(request);
 
+    // While leadership is being handed off, reject new commits so that the transfer target's log remains up to date.
+    if (transferring) {
+      return CompletableFuture.completedFuture(logResponse(CommitResponse.builder()
+        .withId(request.id())
+        .withUri(context.getLocalMember())
+        .withStatus(Response.Status.ERROR)
+        .withError(new IllegalStateException("Leadership transfer in progress"))
+        .build()));
+    }
+
+    lastActivity = System.currentTimeMillis();
     CompletableFuture<CommitResponse> future = new CompletableFuture<>();
-    ByteBuffer entry = request.entry();
-    BiFunction<Long, ByteBuffer, ByteBuffer> consumer = context.consumer();
+    pendingCommits.add(new PendingCommit(request, future));
 
-    // Create a log entry containing the current term and entry.
-    ByteBuffer logEntry = ByteBuffer.allocate(entry.capacity() + 8);
-    logEntry.putLong(context.getTerm());
-    logEntry.put(entry);
-    entry.flip();
+    // If the batch is full then append and replicate it immediately. Otherwise, flush the batch once the batch window
+    // expires. With a zero window, the batch contains all commits that were queued on the context executor before the
+    // flush task runs.
+    if (pendingCommits.size() >= context.getCommitBatchSize()) {
+      flushCommits();
+    } else if (batchTimer == null) {
+      batchTimer = context.executor().schedule(this::flushCommits, context.getCommitBatchWindow(), TimeUnit.MILLISECONDS);
+    }
+    return future;
+  }
 
-    // Try to append the entry to the log. If appending the entry fails then just reply with an exception immediately.
-    final long index;
-    try {
-      index = context.log().appendEntry(logEntry);
-      context.log().flush();
-    } catch (IOException e) {
-      future.completeExceptionally(new CopycatException(e));
-      return future;
+  /**
+   * Appends all pending commits to the log and replicates them as a single batch.
+   */
+  private void flushCommits() {
+    context.checkThread();
+    if (batchTimer != null) {
+      batchTimer.cancel(false);
+      batchTimer = null;
     }
 
-    LOGGER.debug("{} - Appended entry to log at index {}", context.getLocalMember(), index);
-    LOGGER.debug("{} - Replicating logs up to index {} for write", context.getLocalMember(), index);
+    if (!isOpen() || pendingCommits.isEmpty()) {
+      return;
+    }
 
-    // Attempt to replicate the entry to a quorum of the cluster.
-    replicator.commit(index).whenComplete((resultIndex, error) -> {
+    List<PendingCommit> batch = pendingCommits;
+    pendingCommits = new ArrayList<>();
+
+    // Append each entry to the log, flushing the log once for the entire batch. If appending an entry fails then
+    // just reply to that commit with an exception immediately.
+    Long lastIndex = null;
+    for (PendingCommit commit : batch) {
+      ByteBuffer entry = commit.request.entry();
+
+      // Create a log entry containing the current term and entry.
+      ByteBuffer logEntry = ByteBuffer.allocate(entry.capacity() + 8);
+      logEntry.putLong(context.getTerm());
+      logEntry.put(entry);
+      entry.flip();
+
+      try {
+        commit.index = context.log().appendEntry(logEntry);
+        lastIndex = commit.index;
+      } catch (IOException e) {
+        commit.future.completeExceptionally(new CopycatException(e));
+      }
+    }
+    context.log().flush();
+
+    if (lastIndex == null) {
+      return;
+    }
+
+    if (LOGGER.isDebugEnabled()) {
+      LOGGER.debug("{} - Appended {} entries to log up to index {}", context.getLocalMember(), batch.size(), lastIndex);
+    }
+    LOGGER.debug("{} - Replicating logs up to index {} for write", context.getLocalMember(), lastIndex);
+
+    // Attempt to replicate the batch to a quorum of the cluster. Once the last entry in the batch has been committed,
+    // apply each entry in log order and reply to its commit request. If the replication mode allows commits to be
+    // acknowledged before they're committed, reply to each commit request once it has been acknowledged but only apply
+    // entries once they're committed, since uncommitted entries may still be replaced if this leader is deposed.
+    boolean quorum = context.getReplicationMode() == ReplicationMode.QUORUM;
+    replicator.commit(lastIndex, getRequiredAcks()).whenComplete((resultIndex, error) -> {
       context.checkThread();
       if (isOpen()) {
-        if (error == null) {
-          try {
-            ByteBuffer result = consumer.apply(index, entry);
-            byte[] bytes = new byte[result.remaining()];
-            result.get(bytes);
-            future.complete(logResponse(CommitResponse.builder()
-              .withId(request.id())
-              .withUri(context.getLocalMember())
-              .withResult(bytes)
-              .build()));
-          } catch (Exception e) {
-            future.complete(logResponse(CommitResponse.builder()
-              .withId(request.id())
-              .withUri(context.getLocalMember())
-              .withStatus(Response.Status.ERROR)
-              .withError(e)
-              .build()));
-          } finally {
-            context.setLastApplied(index);
+        for (PendingCommit commit : batch) {
+          if (commit.index != null) {
+            if (quorum || error != null) {
+              completeCommit(commit, error);
+            } else {
+              acknowledgeCommit(commit);
+            }
           }
+        }
+        if (!quorum) {
+          applyCommits();
+        }
+      }
+    });
+  }
+
+  /**
+   * Returns the number of replica acknowledgements required to complete a commit in the current replication mode.
+   */
+  private int getRequiredAcks() {
+    switch (context.getReplicationMode()) {
+      case LOCAL:
+        return 0;
+      case ACKNOWLEDGED:
+        return context.getReplicationAcks();
+      default:
+        return Integer.MAX_VALUE;
+    }
+  }
+
+  /**
+   * Applies a committed entry and replies to its commit request.
+   */
+  private void completeCommit(PendingCommit commit, Throwable error) {
+    if (error == null) {
+      try {
+        ByteBuffer result = context.consumer().apply(commit.index, commit.request.entry());
+        byte[] bytes = new byte[result.remaining()];
+        result.get(bytes);
+        commit.future.complete(logResponse(CommitResponse.builder()
+          .withId(commit.request.id())
+          .withUri(context.getLocalMember())
+          .withResult(bytes)
+          .build()));
+      } catch (Exception e) {
+        commit.future.complete(logResponse(CommitResponse.builder()
+          .withId(commit.request.id())
+          .withUri(context.getLocalMember())
+          .withStatus(Response.Status.ERROR)
+          .withError(e)
+          .build()));
+      } finally {
+        context.setLastApplied(commit.index);
+      }
+    } else {
+      commit.future.complete(logResponse(CommitResponse.builder()
+        .withId(commit.request.id())
+        .withUri(context.getLocalMember())
+        .withStatus(Response.Status.ERROR)
+        .withError(error)
+        .build()));
+    }
+  }
+
+  /**
+   * Replies to a commit request that has been acknowledged but not necessarily committed.<p>
+   *
+   * The entry has not been applied to the state machine, so the response has an empty result.
+   */
+  private void acknowledgeCommit(PendingCommit commit) {
+    commit.future.complete(logResponse(CommitResponse.builder()
+      .withId(commit.request.id())
+      .withUri(context.getLocalMember())
+      .withResult(new byte[0])
+      .build()));
+  }
+
+  /**
+   * Applies committed entries that have not yet been applied to the state machine.<p>
+   *
+   * This is only used in replication modes that reply to commits before they're committed. In the default mode, each
+   * entry is applied when its commit request completes so the result can be returned.
+   */
+  private void applyCommits() {
+    Long commitIndex = context.getCommitIndex();
+    Long lastIndex = context.log().lastIndex();
+    if (commitIndex != null && lastIndex != null) {
+      long index = context.getLastApplied() != null ? context.getLastApplied() + 1 : context.log().firstIndex();
+      for (; index <= Math.min(commitIndex, lastIndex); index++) {
+        applyEntry(index);
+      }
+    }
+  }
+
+  /**
+   * Fails all commits that have not yet been appended to the log.
+   */
+  private void failPendingCommits() {
+    if (batchTimer != null) {
+      batchTimer.cancel(false);
+      batchTimer = null;
+    }
+    for (PendingCommit commit : pendingCommits) {
+      commit.future.complete(logResponse(CommitResponse.builder()
+        .withId(commit.request.id())
+        .withUri(context.getLocalMember())
+        .withStatus(Response.Status.ERROR)
+        .withError(new CopycatException("Not the leader"))
+        .build()));
+    }
+    pendingCommits.clear();
+  }
+
+  /**
+   * Transfers leadership to the given member.<p>
+   *
+   * The replica is first brought up to date while the leader continues to accept commits. Catching up a replica that
+   * is far behind can take longer than an election timeout, so this phase is only aborted if the replica stops
+   * responding for an election timeout. Once the replica has caught up, new commits are rejected, any remaining
+   * entries are synced, and the replica is told to start an election. If the leader has not stepped down within an
+   * election timeout of blocking commits, the transfer is aborted and the leader resumes accepting commits.
+   */
+  CompletableFuture<Void> transferLeadership(String member) {
+    context.checkThread();
+    if (transferFuture != null) {
+      return exceptionalFuture(new IllegalStateException("Leadership transfer already in progress"));
+    }
+
+    Replica replica = replicator.replicaMap.get(member);
+    if (replica == null || !context.getActiveMembers().contains(member) || context.getWitnessMembers().contains(member)) {
+      return exceptionalFuture(new IllegalArgumentException("Invalid replica " + member));
+    }
+
+    LOGGER.info("{} - Transferring leadership to {}", context.getLocalMember(), member);
+    CompletableFuture<Void> future = new CompletableFuture<>();
+    transferFuture = future;
+    scheduleCatchUpTimer(replica, future);
+
+    replica.sync().thenCompose(index -> {
+      if (!isOpen() || transferFuture != future) {
+        return exceptionalFuture(new CopycatException("Leadership transfer aborted"));
+      }
+      transferring = true;
+      transferTimer.cancel(false);
+      transferTimer = context.executor().schedule(() -> failTransfer(new CopycatException("Leadership transfer timed out")), context.getElectionTimeout(), TimeUnit.MILLISECONDS);
+      flushCommits();
+      return replica.sync();
+    }).thenCompose(index -> {
+      // Don't tell the replica to start an election if the transfer timed out while it was being synced.
+      if (!isOpen() || transferFuture != future) {
+        return exceptionalFuture(new CopycatException("Leadership transfer aborted"));
+      }
+      return replica.transfer();
+    }).whenComplete((succeeded, error) -> {
+      context.checkThread();
+      if (isOpen() && transferFuture == future) {
+        if (error != null) {
+          failTransfer(error);
+        } else if (!succeeded) {
+          failTransfer(new CopycatException("Leadership transfer rejected by " + member));
+        }
+      }
+    });
+    return future;
+  }
+
+  /**
+   * Aborts the transfer if the replica stops responding for an election timeout while it's catching up.
+   */
+  private void scheduleCatchUpTimer(Replica replica, CompletableFuture<Void> future) {
+    transferTimer = context.executor().schedule(() -> {
+      if (transferFuture == future && !transferring) {
+        if (System.currentTimeMillis() - replica.lastContact >= context.getElectionTimeout()) {
+          failTransfer(new CopycatException("Leadership transfer timed out: " + replica.member + " is not responding"));
         } else {
-          future.complete(logResponse(CommitResponse.builder()
-            .withId(request.id())
-            .withUri(context.getLocalMember())
-            .withStatus(Response.Status.ERROR)
-            .withError(error)
-            .build()));
+          scheduleCatchUpTimer(replica, future);
         }
       }
+    }, context.getElectionTimeout(), TimeUnit.MILLISECONDS);
+  }
+
+  /**
+   * Prepares the leader to step down cleanly.<p>
+   *
+   * In the {@link net.kuujo.copycat.resource.ElectionMode#RANKED} election mode, the leader hands leadership off to
+   * its most up to date replica so that the cluster doesn't have to wait for an election timeout to elect a new leader.
+   * In all other modes the returned future is completed immediately.
+   */
+  CompletableFuture<Void> stepDown() {
+    context.checkThread();
+    if (context.getElectionMode() != ElectionMode.RANKED || transferFuture != null) {
+      return CompletableFuture.completedFuture(null);
+    }
+
+    // Choose the replica with the highest match index, since it's the replica most likely to win the election.
+    Replica target = null;
+    for (Replica replica : replicator.replicas) {
+      if (context.getActiveMembers().contains(replica.member) && !context.getWitnessMembers().contains(replica.member)
+        && isConnected(replica.member) && replica.matchIndex != null && (target == null || replica.matchIndex > target.matchIndex)) {
+        target = replica;
+      }
+    }
+    if (target == null) {
+      return CompletableFuture.completedFuture(null);
+    }
+
+    // Reject new commits, bring the replica up to date, and then tell it to start an election immediately. The hand
+    // off is bounded by an election timeout so that the leader never blocks indefinitely while stepping down.
+    LOGGER.info("{} - Handing off leadership to {}", context.getLocalMember(), target.member);
+    transferring = true;
+    CompletableFuture<Void> future = new CompletableFuture<>();
+    ScheduledFuture<?> timer = context.executor().schedule(() -> {
+      future.complete(null);
+    }, context.getElectionTimeout(), TimeUnit.MILLISECONDS);
+    Replica replica = target;
+    flushCommits();
+    replica.sync().thenCompose(index -> replica.transfer()).whenComplete((succeeded, error) -> {
+      timer.cancel(false);
+      future.complete(null);
     });
     return future;
   }
 
+  /**
+   * Aborts an in progress leadership transfer and resumes accepting commits.
+   */
+  private void failTransfer(Throwable error) {
+    context.checkThread();
+    if (transferFuture != null) {
+      LOGGER.warn("{} - Leadership transfer failed: {}", context.getLocalMember(), error.getMessage());
+      CompletableFuture<Void> future = transferFuture;
+      transferFuture = null;
+      transferring = false;
+      if (transferTimer != null) {
+        transferTimer.cancel(false);
+        transferTimer = null;
+      }
+      future.completeExceptionally(error);
+    }
+  }
+
+  /**
+   * Completes an in progress leadership transfer once the leader has stepped down.
+   */
+  private void completeTransfer() {
+    if (transferTimer != null) {
+      transferTimer.cancel(false);
+      transferTimer = null;
+    }
+    if (transferFuture != null) {
+      transferFuture.complete(null);
+      transferFuture = null;
+    }
+    transferring = false;
+  }
+
+  /**
+   * Resumes any membership change that was interrupted by a change in leadership.<p>
+   *
+   * If the previous leader committed a joint configuration but failed before committing the final configuration,
+   * the new leader completes the change on its behalf.
+   */
+  private void resumeConfiguration() {
+    replicator.configure();
+    Membership membership = context.getMembership();
+    if (membership.isJoint()) {
+      LOGGER.info("{} - Resuming membership change to {}", context.getLocalMember(), membership.members());
+      configureFuture = new CompletableFuture<>();
+      appendMembership(new Membership(membership.members(), null));
+    }
+  }
+
+  /**
+   * Changes the set of voting members.<p>
+   *
+   * Membership changes are made via joint consensus. The leader first commits a joint configuration containing both
+   * the current and the new set of members, during which elections and commits require a majority of each set. Once
+   * the joint configuration has been committed, the leader commits the new configuration on its own. Only one change
+   * may be in progress at a time.
+   */
+  CompletableFuture<Void> configure(Set<String> members) {
+    context.checkThread();
+    if (configureFuture != null || context.getMembership().isJoint()) {
+      return exceptionalFuture(new IllegalStateException("Membership change already in progress"));
+    }
+    if (transferring) {
+      return exceptionalFuture(new IllegalStateException("Leadership transfer in progress"));
+    }
+    if (members.isEmpty()) {
+      return exceptionalFuture(new IllegalArgumentException("Cluster must contain at least one active member"));
+    }
+    if (members.equals(context.getActiveMembers())) {
+      return CompletableFuture.completedFuture(null);
+    }
+
+    LOGGER.info("{} - Changing active members from {} to {}", context.getLocalMember(), context.getActiveMembers(), members);
+    lastActivity = System.currentTimeMillis();
+    CompletableFuture<Void> future = new CompletableFuture<>();
+    configureFuture = future;
+    appendMembership(new Membership(members, context.getActiveMembers()));
+    return future;
+  }
+
+  /**
+   * Appends and commits a membership configuration entry.
+   */
+  private void appendMembership(Membership membership) {
+    long index;
+    ByteBuffer entry = membership.toEntry(context.getTerm());
+    try {
+      index = context.log().appendEntry(entry);
+      context.log().flush();
+    } catch (IOException e) {
+      failConfiguration(new CopycatException(e));
+      return;
+    }
+
+    // Entries are committed using the configuration in effect when they were appended, so the replica set must
+    // include any new members before the configuration entry is replicated.
+    replicator.configure();
+    replicator.commit(index).whenComplete((resultIndex, error) -> {
+      context.checkThread();
+      if (!isOpen() || configureFuture == null) {
+        return;
+      }
+      if (error != null) {
+        failConfiguration(error);
+        return;
+      }
+
+      // In replication modes that apply entries as they're committed, the configuration may already have been applied.
+      if (context.getLastApplied() == null || context.getLastApplied() < index) {
+        context.applyMembership(index, context.log().getEntry(index));
+        context.setLastApplied(index);
+      }
+      replicator.configure();
+
+      // Once the joint configuration has been committed, commit the final configuration.
+      if (membership.isJoint()) {
+        appendMembership(new Membership(membership.members(), null));
+      } else {
+        CompletableFuture<Void> future = configureFuture;
+        configureFuture = null;
+        future.complete(null);
+
+        // If this node was removed from the cluster then step down.
+        if (!membership.members().contains(context.getLocalMember())) {
+          CopycatState state = context.getLearnerMembers().contains(context.getLocalMember()) ? CopycatState.LEARNER : CopycatState.PASSIVE;
+          stepDown().whenComplete((result, stepDownError) -> transition(state));
+        }
+      }
+    });
+  }
+
+  /**
+   * Fails an in progress membership change.
+   */
+  private void failConfiguration(Throwable error) {
+    if (configureFuture != null) {
+      LOGGER.warn("{} - Membership change failed: {}", context.getLocalMember(), error.getMessage());
+      CompletableFuture<Void> future = configureFuture;
+      configureFuture = null;
+      future.completeExceptionally(error);
+    }
+  }
 
   /**
    * Cancels the ping timer.
@@ -282,7 +723,25 @@ class LeaderState extends ActiveState {
 
   @Override
   public CompletableFuture<Void> close() {
-    return super.close().thenRun(this::cancelPingTimer);
+    return super.close()
+      .thenRun(this::cancelPingTimer)
+      .thenRun(this::failPendingCommits)
+      .thenRun(this::completeTransfer)
+      .thenRun(() -> failConfiguration(new CopycatException("Not the leader")));
+  }
+
+  /**
+   * Commit request awaiting append and replication.
+   */
+  private static class PendingCommit {
+    private final CommitRequest request;
+    private final CompletableFuture<CommitResponse> future;
+    private Long index;
+
+    private PendingCommit(CommitRequest request, CompletableFuture<CommitResponse> future) {
+      this.request = request;
+      this.future = future;
+    }
   }
 
   /**
@@ -291,24 +750,85 @@ class LeaderState extends ActiveState {
   private class Replicator {
     private final Map<String, Replica> replicaMap;
     private final List<Replica> replicas;
-    private int quorum;
-    private int quorumIndex;
+    private final List<Replica> learners;
     private final TreeMap<Long, CompletableFuture<Long>> commitFutures = new TreeMap<>();
+    private Long batchIndex;
+    private Long batchFirstIndex;
+    private Long batchLastIndex;
+    private List<ByteBuffer> batch;
 
     private Replicator() {
       this.replicaMap = new HashMap<>(context.getActiveMembers().size());
       this.replicas = new ArrayList<>(context.getActiveMembers().size());
-      for (String uri : context.getActiveMembers()) {
+      this.learners = new ArrayList<>(context.getLearnerMembers().size());
+      configure();
+    }
+
+    /**
+     * Reconciles the set of replicas with the current membership configuration.<p>
+     *
+     * Voting members of both the current and, during joint consensus, the previous configuration are replicated to
+     * as replicas. Learners are replicated to directly but are never counted towards the quorum.
+     */
+    private void configure() {
+      Set<String> voting = context.getVotingMembers();
+      replicas.clear();
+      learners.clear();
+      for (String uri : voting) {
         if (!uri.equals(context.getLocalMember())) {
-          Replica replica = new Replica(uri, context);
-          replicaMap.put(uri, replica);
-          replicas.add(replica);
+          replicas.add(replicaMap.computeIfAbsent(uri, u -> new Replica(u, context)));
         }
       }
+      for (String uri : context.getLearnerMembers()) {
+        if (!uri.equals(context.getLocalMember()) && !voting.contains(uri)) {
+          learners.add(replicaMap.computeIfAbsent(uri, u -> new Replica(u, context)));
+        }
+      }
+      replicaMap.keySet().retainAll(union(voting, context.getLearnerMembers()));
+    }
 
-      // Quorum is floor(replicas.size / 2) since this node is implicitly counted in the quorum count.
-      this.quorum = (int) Math.floor(context.getActiveMembers().size() / 2);
-      this.quorumIndex = quorum - 1;
+    /**
+     * Returns the union of two sets of members.
+     */
+    private Set<String> union(Set<String> members1, Set<String> members2) {
+      Set<String> members = new HashSet<>(members1);
+      members.addAll(members2);
+      return members;
+    }
+
+    /**
+     * Returns a batch of up to 1MB of entries starting at the given index.
+     * The most recently read batch is shared by all replicas with the same next index, so followers that are
+     * in step with one another don't each re-read and re-assemble the same entries from the log. The batch is
+     * discarded once the log's bounds change.
+     */
+    private List<ByteBuffer> getEntries(long index) {
+      Long firstIndex = context.log().firstIndex();
+      Long lastIndex = context.log().lastIndex();
+      if (batch == null || batchIndex != index || !Objects.equals(batchFirstIndex, firstIndex) || !Objects.equals(batchLastIndex, lastIndex)) {
+        List<ByteBuffer> entries = new ArrayList<>(1024);
+        int size = 0;
+        while (size < MAX_BATCH_SIZE && index <= lastIndex) {
+          ByteBuffer entry = context.log().getEntry(index);
+          size += entry.limit();
+          entries.add(entry);
+          index++;
+        }
+        batchIndex = index - entries.size();
+        batchFirstIndex = firstIndex;
+        batchLastIndex = lastIndex;
+        batch = entries;
+      }
+
+      // Hand out independent views of the shared entries so that reading one replica's request doesn't
+      // move the position of the buffers sent to another.
+      List<ByteBuffer> entries = new ArrayList<>(batch.size());
+      for (ByteBuffer entry : batch) {
+        ByteBuffer view = entry.duplicate();
+        view.rewind();
+        entries.add(view);
+      }
+      return entries;
     }
 
     /**
@@ -326,31 +846,69 @@ class LeaderState extends ActiveState {
 
       CompletableFuture<Long> future = new CompletableFuture<>();
 
-      // Set up a read quorum. Once the required number of replicas have been
-      // contacted the quorum will succeed.
-      final Quorum quorum = new Quorum(this.quorum, succeeded -> {
+      // Set up a read quorum. Once a majority of the voting members - including this node - have been contacted
+      // the quorum will succeed.
+      final MembershipQuorum quorum = new MembershipQuorum(context.getMembership(), succeeded -> {
         if (succeeded) {
           future.complete(index);
         } else {
           future.completeExceptionally(new CopycatException("Failed to obtain quorum"));
         }
       });
+      quorum.succeed(context.getLocalMember());
 
       // Iterate through replicas and ping each replica. Internally, this
       // should cause the replica to send any remaining entries if necessary.
-      for (Replica replica : replicaMap.values()) {
+      for (Replica learner : learners) {
+        if (isConnected(learner.member)) {
+          learner.ping(index);
+        }
+      }
+      for (Replica replica : replicas) {
+        // Replicas whose connections are known to be down are counted as failed rather than waiting on the request
+        // to time out, allowing the quorum to fail fast if too few replicas are reachable.
+        if (!isConnected(replica.member)) {
+          quorum.fail(replica.member);
+          continue;
+        }
         replica.ping(index).whenComplete((resultIndex, error) -> {
           context.checkThread();
           if (error == null) {
-            quorum.succeed();
+            quorum.succeed(replica.member);
           } else {
-            quorum.fail();
+            quorum.fail(replica.member);
           }
         });
       }
       return future;
     }
 
+    /**
+     * Pings replicas that have not been contacted within the given heartbeat interval.<p>
+     *
+     * Replicas that have successfully received a ping or append request within the interval are skipped since the
+     * request will already have reset their election timers.
+     *
+     * @return The delay in milliseconds until the next replica is due a heartbeat.
+     */
+    public long heartbeat(long interval) {
+      context.checkThread();
+      long now = System.currentTimeMillis();
+      long delay = interval;
+      Long index = context.log().lastIndex();
+      for (Replica replica : replicaMap.values()) {
+        long elapsed = now - replica.lastContact;
+        if (!isConnected(replica.member)) {
+          continue;
+        } else if (elapsed >= interval) {
+          replica.ping(index);
+        } else {
+          delay = Math.min(delay, interval - elapsed);
+        }
+      }
+      return Math.max(delay, 1);
+    }
+
     /**
      * Commits the log to all nodes in the cluster.
      */
@@ -362,10 +920,33 @@ class LeaderState extends ActiveState {
      * Commits the log up to the given index.
      */
     public CompletableFuture<Long> commit(Long index) {
+      return commit(index, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Commits the log up to the given index.<p>
+     *
+     * The returned future is completed once the entry has been committed or once the given number of replicas have
+     * acknowledged the entry, whichever happens first. Witnesses don't store entry payloads and so never count towards
+     * the acknowledgements. Entries are replicated to all replicas regardless of the number of acknowledgements.
+     */
+    public CompletableFuture<Long> commit(Long index, int acks) {
       context.checkThread();
 
+      // Stream entries to learners without waiting on them. Learners don't count towards the quorum.
+      if (index != null) {
+        for (Replica learner : learners) {
+          if (isConnected(learner.member)) {
+            learner.commit(index);
+          }
+        }
+      }
+
       // If there are no replicas in the replica set the immediately indicate that the entry is committed.
       if (replicas.isEmpty()) {
+        if (index != null && (context.getCommitIndex() == null || index > context.getCommitIndex())) {
+          context.setCommitIndex(index);
+        }
         return CompletableFuture.completedFuture(null);
       }
 
@@ -377,17 +958,41 @@ class LeaderState extends ActiveState {
       CompletableFuture<Long> future = new CompletableFuture<>();
       commitFutures.put(index, future);
 
+      // If fewer acknowledgements than a quorum are required then complete the acknowledgement future early, but
+      // never later than the entry is committed.
+      CompletableFuture<Long> ackFuture = acks < replicas.size() ? new CompletableFuture<>() : future;
+      if (acks <= 0) {
+        ackFuture.complete(index);
+      } else if (ackFuture != future) {
+        future.whenComplete((resultIndex, error) -> {
+          if (error == null) {
+            ackFuture.complete(resultIndex);
+          } else {
+            ackFuture.completeExceptionally(error);
+          }
+        });
+      }
+
       // Iterate through replicas and commit all entries up to the given index.
-      for (Replica replica : replicaMap.values()) {
+      // Replicas whose connections are down are skipped. They'll be brought up to date by the heartbeat once they've
+      // reconnected.
+      int[] acknowledged = new int[1];
+      for (Replica replica : replicas) {
+        if (!isConnected(replica.member)) {
+          continue;
+        }
         replica.commit(index).whenComplete((resultIndex, error) -> {
           context.checkThread();
           // Once the commit succeeds, check the commit index of all replicas.
           if (error == null) {
             checkCommits();
+            if (!context.getWitnessMembers().contains(replica.member) && ++acknowledged[0] == acks) {
+              ackFuture.complete(index);
+            }
           }
         });
       }
-      return future;
+      return ackFuture;
     }
 
     /**
@@ -395,26 +1000,51 @@ class LeaderState extends ActiveState {
      */
     private void checkCommits() {
       context.checkThread();
-      if (!replicas.isEmpty() && quorumIndex >= 0) {
-        // Sort the list of replicas, order by the last index that was replicated
-        // to the replica. This will allow us to determine the median index
-        // for all known replicated entries across all cluster members.
-        Collections.sort(replicas, (o1, o2) -> Long.compare(o1.matchIndex != null ? o1.matchIndex : 0, o2.matchIndex != null ? o2.matchIndex : 0));
-
-        // Set the current commit index as the median replicated index.
-        // Since replicas is a list with zero based indexes, use the negation of
-        // the required quorum size to get the index of the replica with the least
-        // possible quorum replication. That replica's match index is the commit index.
-        // Set the commit index. Once the commit index has been set we can run
-        // all tasks up to the given commit.
-        Long commitIndex = replicas.get(quorumIndex).matchIndex;
-        if (commitIndex != null) {
-          context.setCommitIndex(commitIndex);
+      if (!replicas.isEmpty()) {
+        // The commit index is the highest index replicated to a majority of the voting members. During joint
+        // consensus an entry must be replicated to a majority of both the new and the previous configuration.
+        Membership membership = context.getMembership();
+        long commitIndex = getQuorumIndex(membership.members());
+        if (membership.isJoint()) {
+          commitIndex = Math.min(commitIndex, getQuorumIndex(membership.jointMembers()));
+        }
+
+        // Set the commit index. Once the commit index has been set we can run all tasks up to the given commit.
+        if (commitIndex > 0) {
+          if (context.getCommitIndex() == null || commitIndex > context.getCommitIndex()) {
+            context.setCommitIndex(commitIndex);
+            if (context.getReplicationMode() != ReplicationMode.QUORUM) {
+              applyCommits();
+            }
+          }
           triggerCommitFutures(commitIndex);
         }
       }
     }
 
+    /**
+     * Returns the highest index known to be replicated to a majority of the given members.
+     */
+    private long getQuorumIndex(Set<String> members) {
+      // Sort the match indexes of all members in descending order. The index at position floor(n / 2) is stored on
+      // at least a majority of the members. This node's own log counts towards the quorum if it's a member.
+      List<Long> indexes = new ArrayList<>(members.size());
+      for (String member : members) {
+        if (member.equals(context.getLocalMember())) {
+          Long lastIndex = context.log().lastIndex();
+          indexes.add(lastIndex != null ? lastIndex : 0);
+        } else {
+          Replica replica = replicaMap.get(member);
+          indexes.add(replica != null && replica.matchIndex != null ? replica.matchIndex : 0);
+        }
+      }
+      if (indexes.isEmpty()) {
+        return 0;
+      }
+      Collections.sort(indexes, Collections.reverseOrder());
+      return indexes.get(indexes.size() / 2);
+    }
+
     /**
      * Triggers commit futures up to the given index.
      */
@@ -443,11 +1073,16 @@ class LeaderState extends ActiveState {
     private final TreeMap<Long, CompletableFuture<Long>> pingFutures = new TreeMap<>();
     private final TreeMap<Long, CompletableFuture<Long>> commitFutures = new TreeMap<>();
     private boolean committing;
+    private long lastContact;
+    private Long installIndex;
+    private int installOffset;
 
     private Replica(String member, CopycatStateContext context) {
       this.member = member;
       this.context = context;
-      this.nextIndex = context.log().lastIndex() != null ? context.log().lastIndex() + 1 : null;
+      // Nothing is yet known about the replica's log, so start by resending the last entry to force a consistency
+      // check. Otherwise, heartbeats to the replica would have no entries to send until the next commit.
+      this.nextIndex = context.log().lastIndex();
     }
 
     /**
@@ -467,24 +1102,32 @@ class LeaderState extends ActiveState {
         pingFutures.put(index, future);
       }
 
-      PingRequest request = PingRequest.builder()
-        .withId(UUID.randomUUID().toString())
+      PingRequest request = pingRequestBuilder.reset()
+        .withId(context.nextRequestId())
         .withUri(member)
         .withTerm(context.getTerm())
         .withLeader(context.getLocalMember())
         .withLogIndex(index)
-        .withLogTerm(index != null && context.log().containsIndex(index) ? context.log().getEntry(index).getLong() : null)
+        .withLogTerm(index != null && context.log().containsIndex(index) ? Membership.term(context.log().getEntry(index)) : null)
         .withCommitIndex(context.getCommitIndex())
         .build();
-      LOGGER.debug("{} - Sent {} to {}", context.getLocalMember(), request, member);
+      if (LOGGER.isDebugEnabled()) {
+        LOGGER.debug("{} - Sent {} to {}", context.getLocalMember(), request, member);
+      }
+      long timestamp = System.currentTimeMillis();
       pingHandler.apply(request).whenCompleteAsync((response, error) -> {
         context.checkThread();
         if (isOpen()) {
           if (error != null) {
             triggerPingFutures(index, error);
           } else {
-            LOGGER.debug("{} - Received {} from {}", context.getLocalMember(), response, member);
+            if (LOGGER.isDebugEnabled()) {
+              LOGGER.debug("{} - Received {} from {}", context.getLocalMember(), response, member);
+            }
             if (response.status().equals(Response.Status.OK)) {
+              if (response.term() <= context.getTerm()) {
+                lastContact = Math.max(lastContact, timestamp);
+              }
               if (response.term() > context.getTerm()) {
                 context.setTerm(response.term());
                 transition(CopycatState.FOLLOWER);
@@ -524,6 +1167,58 @@ class LeaderState extends ActiveState {
       return future;
     }
 
+    /**
+     * Brings the replica's log up to date with the leader's log.
+     */
+    public CompletableFuture<Long> sync() {
+      Long lastIndex = context.log().lastIndex();
+      if (lastIndex == null) {
+        return CompletableFuture.completedFuture(null);
+      }
+
+      // If nothing is yet known about the replica's log, resend the last entry to force a consistency check.
+      if (matchIndex == null && nextIndex != null && nextIndex > lastIndex) {
+        nextIndex = lastIndex;
+      }
+      return commit(lastIndex);
+    }
+
+    /**
+     * Instructs the replica to start an election.
+     */
+    public CompletableFuture<Boolean> transfer() {
+      CompletableFuture<Boolean> future = new CompletableFuture<>();
+      TransferRequest request = TransferRequest.builder()
+        .withId(context.nextRequestId())
+        .withUri(member)
+        .withTerm(context.getTerm())
+        .withLeader(context.getLocalMember())
+        .build();
+      if (LOGGER.isDebugEnabled()) {
+        LOGGER.debug("{} - Sent {} to {}", context.getLocalMember(), request, member);
+      }
+      transferHandler.apply(request).whenCompleteAsync((response, error) -> {
+        context.checkThread();
+        if (isOpen()) {
+          if (error != null) {
+            future.completeExceptionally(error);
+          } else {
+            if (LOGGER.isDebugEnabled()) {
+              LOGGER.debug("{} - Received {} from {}", context.getLocalMember(), response, member);
+            }
+            if (response.status().equals(Response.Status.OK)) {
+              future.complete(response.succeeded());
+            } else {
+              future.completeExceptionally(response.error());
+            }
+          }
+        } else {
+          future.completeExceptionally(new CopycatException("Leader state closed"));
+        }
+      }, context.executor());
+      return future;
+    }
+
     /**
      * Performs a commit operation.
      */
@@ -533,19 +1228,21 @@ class LeaderState extends ActiveState {
           nextIndex = context.log().lastIndex();
         }
 
-        if (context.log().containsIndex(nextIndex)) {
+        // If the replica requires entries at or before the first entry in a compacted log then stream the snapshot
+        // at the head of the log to the replica rather than replicating the log history.
+        Long firstIndex = context.log().firstIndex();
+        if (firstIndex > 1 && nextIndex <= firstIndex) {
+          committing = true;
+          doInstall(firstIndex);
+        } else if (context.log().containsIndex(nextIndex)) {
           final Long prevIndex = nextIndex - 1 == 0 ? null : nextIndex - 1;
           final ByteBuffer prevEntry = prevIndex != null ? context.log().getEntry(prevIndex) : null;
 
-          // Create a list of up to 1MB of entries to send to the follower.
-          List<ByteBuffer> entries = new ArrayList<>(1024);
-          long index = nextIndex;
-          int size = 0;
-          while (size < MAX_BATCH_SIZE && index <= context.log().lastIndex()) {
-            ByteBuffer entry = context.log().getEntry(index);
-            size += entry.limit();
-            entries.add(entry);
-            index++;
+          // Get a list of up to 1MB of entries to send to the follower. Witnesses only store the term of each user
+          // entry, so only entry headers are sent to them.
+          List<ByteBuffer> entries = replicator.getEntries(nextIndex);
+          if (context.getWitnessMembers().contains(member)) {
+            entries = toHeaders(entries);
           }
 
           if (!entries.isEmpty()) {
@@ -556,23 +1253,47 @@ class LeaderState extends ActiveState {
       }
     }
 
+    /**
+     * Strips the payload from all user entries in the given list, leaving only the entry term.
+     */
+    private List<ByteBuffer> toHeaders(List<ByteBuffer> entries) {
+      List<ByteBuffer> headers = new ArrayList<>(entries.size());
+      for (ByteBuffer entry : entries) {
+        headers.add(Membership.isConfiguration(entry) ? entry : toHeader(entry));
+      }
+      return headers;
+    }
+
+    /**
+     * Returns a copy of the term header of the given entry.
+     */
+    private ByteBuffer toHeader(ByteBuffer entry) {
+      ByteBuffer header = ByteBuffer.allocate(8);
+      header.putLong(entry.getLong(0));
+      header.flip();
+      return header;
+    }
+
     /**
      * Sends a append request.
      */
     private void doSync(final Long prevIndex, final ByteBuffer prevEntry, final List<ByteBuffer> entries) {
-      AppendRequest request = AppendRequest.builder()
-        .withId(UUID.randomUUID().toString())
+      AppendRequest request = appendRequestBuilder.reset()
+        .withId(context.nextRequestId())
         .withUri(member)
         .withTerm(context.getTerm())
         .withLeader(context.getLocalMember())
         .withLogIndex(prevIndex)
-        .withLogTerm(prevEntry != null ? prevEntry.getLong() : null)
+        .withLogTerm(prevEntry != null ? Membership.term(prevEntry) : null)
         .withEntries(entries)
         .withFirstIndex(prevIndex == null || context.log().firstIndex() == prevIndex + 1)
         .withCommitIndex(context.getCommitIndex())
         .build();
 
-      LOGGER.debug("{} - Sent {} to {}", context.getLocalMember(), request, member);
+      if (LOGGER.isDebugEnabled()) {
+        LOGGER.debug("{} - Sent {} to {}", context.getLocalMember(), request, member);
+      }
+      long timestamp = System.currentTimeMillis();
       appendHandler.apply(request).whenCompleteAsync((response, error) -> {
         context.checkThread();
         committing = false;
@@ -580,10 +1301,15 @@ class LeaderState extends ActiveState {
           if (error != null) {
             triggerCommitFutures(prevIndex != null ? prevIndex + 1 : context.log().firstIndex(),
               prevIndex != null ? prevIndex + entries.size() : context.log().firstIndex() + entries.size() - 1, error);
-            doSync();
+            retrySync();
           } else {
-            LOGGER.debug("{} - Received {} from {}", context.getLocalMember(), response, member);
+            if (LOGGER.isDebugEnabled()) {
+              LOGGER.debug("{} - Received {} from {}", context.getLocalMember(), response, member);
+            }
             if (response.status().equals(Response.Status.OK)) {
+              if (response.term() <= context.getTerm()) {
+                lastContact = Math.max(lastContact, timestamp);
+              }
               if (response.succeeded()) {
                 // Update the next index to send and the last index known to be replicated.
                 if (!entries.isEmpty()) {
@@ -604,9 +1330,14 @@ class LeaderState extends ActiveState {
                   // If replication failed then use the last log index indicated by
                   // the replica in the response to generate a new nextIndex. This allows
                   // us to skip repeatedly replicating one entry at a time if it's not
-                  // necessary.
-                  nextIndex = response.logIndex() != null ? response.logIndex() + 1
-                    : prevIndex != null ? prevIndex : context.log().firstIndex();
+                  // necessary. If the replica reported a conflicting term then skip
+                  // the entire conflicting term in a single round trip.
+                  if (response.conflictTerm() != null && response.conflictIndex() != null && prevIndex != null) {
+                    nextIndex = findConflictIndex(prevIndex, response.conflictTerm(), response.conflictIndex());
+                  } else {
+                    // A replica with an empty log - e.g. one that was just restarted - needs the log from the start.
+                    nextIndex = response.logIndex() != null ? response.logIndex() + 1 : context.log().firstIndex();
+                  }
                   doSync();
                 }
               }
@@ -614,13 +1345,131 @@ class LeaderState extends ActiveState {
               triggerCommitFutures(prevIndex != null ? prevIndex + 1 : context.log().firstIndex(),
                 prevIndex != null ? prevIndex + entries.size() : context.log().firstIndex() + entries.size() - 1,
                 response.error());
-              doSync();
+              retrySync();
             }
           }
         }
       }, context.executor());
     }
 
+    /**
+     * Sends the next chunk of the snapshot at the given index to the replica.
+     */
+    private void doInstall(final long index) {
+      // If a different snapshot was previously being sent then restart the transfer from the beginning.
+      if (installIndex == null || installIndex != index) {
+        installIndex = index;
+        installOffset = 0;
+      }
+
+      // Witnesses don't store snapshot state, so only the snapshot header is sent to them.
+      ByteBuffer snapshot = context.log().getEntry(index);
+      if (context.getWitnessMembers().contains(member)) {
+        snapshot = toHeader(snapshot);
+      }
+      final int offset = installOffset;
+      final int length = Math.min(MAX_CHUNK_SIZE, snapshot.limit() - offset);
+      final boolean complete = offset + length >= snapshot.limit();
+      ByteBuffer chunk = snapshot.duplicate();
+      chunk.position(0);
+      chunk.limit(offset + length);
+      chunk.position(offset);
+
+      InstallRequest request = InstallRequest.builder()
+        .withId(context.nextRequestId())
+        .withUri(member)
+        .withTerm(context.getTerm())
+        .withLeader(context.getLocalMember())
+        .withSnapshotIndex(index)
+        .withSnapshotTerm(Membership.term(snapshot))
+        .withOffset(offset)
+        .withData(chunk.slice())
+        .withComplete(complete)
+        .build();
+
+      if (LOGGER.isDebugEnabled()) {
+        LOGGER.debug("{} - Sent {} to {}", context.getLocalMember(), request, member);
+      }
+      long timestamp = System.currentTimeMillis();
+      installHandler.apply(request).whenCompleteAsync((response, error) -> {
+        context.checkThread();
+        committing = false;
+        if (isOpen()) {
+          if (error != null) {
+            retrySync();
+          } else {
+            if (LOGGER.isDebugEnabled()) {
+              LOGGER.debug("{} - Received {} from {}", context.getLocalMember(), response, member);
+            }
+            if (response.status().equals(Response.Status.OK)) {
+              if (response.term() > context.getTerm()) {
+                context.setTerm(response.term());
+                transition(CopycatState.FOLLOWER);
+              } else {
+                lastContact = Math.max(lastContact, timestamp);
+                if (response.succeeded() && complete) {
+                  // Once the snapshot has been installed, continue replicating the entries that follow it.
+                  LOGGER.debug("{} - Installed snapshot at index {} on {}", context.getLocalMember(), index, member);
+                  installIndex = null;
+                  installOffset = 0;
+                  matchIndex = matchIndex != null ? Math.max(matchIndex, index) : index;
+                  nextIndex = matchIndex + 1;
+                  if (!commitFutures.isEmpty()) {
+                    triggerCommitFutures(commitFutures.firstKey(), matchIndex);
+                  }
+                  doSync();
+                } else if (response.succeeded() || response.offset() != offset) {
+                  // Resume the transfer from the offset expected by the replica.
+                  installOffset = response.offset();
+                  doSync();
+                } else {
+                  retrySync();
+                }
+              }
+            } else {
+              retrySync();
+            }
+          }
+        }
+      }, context.executor());
+    }
+
+    /**
+     * Computes the next index to send to a replica whose log conflicted with the leader's log.
+     * If the leader's log contains entries for the conflicting term, the next index is the index following
+     * the leader's last entry for that term, otherwise it's the first index of the conflicting term in the
+     * replica's log.
+     */
+    private long findConflictIndex(long prevIndex, long conflictTerm, long conflictIndex) {
+      Long firstIndex = context.log().firstIndex();
+      long index = prevIndex;
+      while (firstIndex != null && index >= firstIndex) {
+        ByteBuffer entry = context.log().getEntry(index);
+        if (entry == null) {
+          break;
+        }
+        long term = Membership.term(entry);
+        if (term == conflictTerm) {
+          return Math.min(index + 1, prevIndex);
+        } else if (term < conflictTerm) {
+          break;
+        }
+        index--;
+      }
+      return Math.min(conflictIndex, prevIndex);
+    }
+
+    /**
+     * Retries synchronizing the replica after a heartbeat interval.
+     */
+    private void retrySync() {
+      context.executor().schedule(() -> {
+        if (isOpen()) {
+          doSync();
+        }
+      }, context.getHeartbeatInterval(), TimeUnit.MILLISECONDS);
+    }
+
     /**
      * Triggers ping futures with a completion result.
      */
@@ -0,0 +1,63 @@
+/*
+ * Copyright 2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.kuujo.copycat.resource.internal;
+
+import net.kuujo.copycat.protocol.rpc.PollRequest;
+import net.kuujo.copycat.protocol.rpc.PollResponse;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Learner state.<p>
+ *
+ * Learners accept entries replicated directly by the leader just like followers, but they never start elections,
+ * never vote, and are not counted towards the commit quorum.
+ *
+ * @author <a href="http://github.com/kuujo">Jordan Halterman</a>
+ */
+class LearnerState extends ActiveState {
+
+  LearnerState(CopycatStateContext context) {
+    super(context);
+  }
+
+  @Override
+  public CopycatState state() {
+    return CopycatState.LEARNER;
+  }
+
+  @Override
+  protected CompletableFuture<CopycatState> transition(CopycatState state) {
+    // Learners remain learners when they discover a new leader rather than becoming followers.
+    if (state == CopycatState.FOLLOWER) {
+      return CompletableFuture.completedFuture(state());
+    }
+    return super.transition(state);
+  }
+
+  @Override
+  public CompletableFuture<PollResponse> poll(PollRequest request) {
+    context.checkThread();
+    logRequest(request);
+    LOGGER.debug("{} - Rejected {}: learners do not vote", context.getLocalMember(), request);
+    return CompletableFuture.completedFuture(logResponse(PollResponse.builder()
+      .withId(request.id())
+      .withUri(context.getLocalMember())
+      .withTerm(context.getTerm())
+      .withVoted(false)
+      .build()));
+  }
+
+}
@@ -0,0 +1,181 @@
+/*
+ * Copyright 2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.kuujo.copycat.resource.internal;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Membership configuration.<p>
+ *
+ * Changes to the set of voting members are replicated as configuration entries in the log. Configuration entries
+ * are distinguished from user entries by a flag in the term prefix of the entry, so the term of a log entry must
+ * always be read via {@link #term(java.nio.ByteBuffer)}. While the cluster transitions from one set of voting members
+ * to another, the configuration holds both the new and the previous set of members, and elections and commits
+ * require a majority of each set.
+ *
+ * @author <a href="http://github.com/kuujo">Jordan Halterman</a>
+ */
+final class Membership {
+  private static final long CONFIGURATION_FLAG = 1L << 62;
+  private final Set<String> members;
+  private final Set<String> jointMembers;
+
+  Membership(Set<String> members, Set<String> jointMembers) {
+    this.members = Collections.unmodifiableSet(new HashSet<>(members));
+    this.jointMembers = jointMembers != null ? Collections.unmodifiableSet(new HashSet<>(jointMembers)) : null;
+  }
+
+  /**
+   * Returns the term of the given log entry.
+   */
+  static long term(ByteBuffer entry) {
+    return entry.getLong(0) & ~CONFIGURATION_FLAG;
+  }
+
+  /**
+   * Returns a boolean indicating whether the given log entry is a configuration entry.
+   */
+  static boolean isConfiguration(ByteBuffer entry) {
+    return (entry.getLong(0) & CONFIGURATION_FLAG) != 0;
+  }
+
+  /**
+   * Reads a membership configuration from a configuration entry.
+   */
+  static Membership fromEntry(ByteBuffer entry) {
+    ByteBuffer buffer = entry.duplicate();
+    buffer.position(8);
+    Set<String> members = readMembers(buffer);
+    Set<String> jointMembers = readMembers(buffer);
+    return new Membership(members, jointMembers);
+  }
+
+  /**
+   * Reads a set of members from the given buffer.
+   */
+  private static Set<String> readMembers(ByteBuffer buffer) {
+    int size = buffer.getInt();
+    if (size < 0) {
+      return null;
+    }
+    Set<String> members = new HashSet<>(size);
+    for (int i = 0; i < size; i++) {
+      byte[] bytes = new byte[buffer.getInt()];
+      buffer.get(bytes);
+      members.add(new String(bytes, StandardCharsets.UTF_8));
+    }
+    return members;
+  }
+
+  /**
+   * Writes a set of members to the given buffer.
+   */
+  private static void writeMembers(Set<String> members, ByteBuffer buffer) {
+    if (members == null) {
+      buffer.putInt(-1);
+    } else {
+      buffer.putInt(members.size());
+      for (String member : members) {
+        byte[] bytes = member.getBytes(StandardCharsets.UTF_8);
+        buffer.putInt(bytes.length);
+        buffer.put(bytes);
+      }
+    }
+  }
+
+  /**
+   * Returns the encoded size of a set of members.
+   */
+  private static int sizeOf(Set<String> members) {
+    int size = 4;
+    if (members != null) {
+      for (String member : members) {
+        size += 4 + member.getBytes(StandardCharsets.UTF_8).length;
+      }
+    }
+    return size;
+  }
+
+  /**
+   * Returns the set of voting members.
+   */
+  Set<String> members() {
+    return members;
+  }
+
+  /**
+   * Returns the previous set of voting members during joint consensus, or {@code null} if the configuration is not
+   * a joint configuration.
+   */
+  Set<String> jointMembers() {
+    return jointMembers;
+  }
+
+  /**
+   * Returns a boolean indicating whether the configuration is a joint configuration.
+   */
+  boolean isJoint() {
+    return jointMembers != null;
+  }
+
+  /**
+   * Returns a boolean indicating whether the given set of members forms a majority of the configuration.
+   */
+  boolean isQuorum(Set<String> votes) {
+    return isMajority(members, votes) && (jointMembers == null || isMajority(jointMembers, votes));
+  }
+
+  /**
+   * Returns a boolean indicating whether the given set of members can no longer form a majority of the configuration.
+   */
+  boolean isRejected(Set<String> rejections) {
+    return isMajority(members, rejections) || (jointMembers != null && isMajority(jointMembers, rejections));
+  }
+
+  /**
+   * Returns a boolean indicating whether the given set of votes is a majority of the given members.
+   */
+  private static boolean isMajority(Set<String> members, Set<String> votes) {
+    int count = 0;
+    for (String member : members) {
+      if (votes.contains(member)) {
+        count++;
+      }
+    }
+    return count > members.size() / 2;
+  }
+
+  /**
+   * Encodes the configuration as a log entry for the given term.
+   */
+  ByteBuffer toEntry(long term) {
+    ByteBuffer entry = ByteBuffer.allocate(8 + sizeOf(members) + sizeOf(jointMembers));
+    entry.putLong(term | CONFIGURATION_FLAG);
+    writeMembers(members, entry);
+    writeMembers(jointMembers, entry);
+    entry.flip();
+    return entry;
+  }
+
+  @Override
+  public String toString() {
+    return String.format("%s[members=%s, jointMembers=%s]", getClass().getSimpleName(), members, jointMembers);
+  }
+
+}
@@ -0,0 +1,80 @@
+/*
+ * Copyright 2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.kuujo.copycat.resource.internal;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.function.Consumer;
+
+/**
+ * Quorum of the voting members of a membership configuration.<p>
+ *
+ * Unlike a simple counting quorum, successes and failures are tracked per member so that a joint configuration
+ * can require a majority of both the previous and the new set of members.
+ *
+ * @author <a href="http://github.com/kuujo">Jordan Halterman</a>
+ */
+class MembershipQuorum {
+  private final Membership membership;
+  private final Set<String> succeeded = new HashSet<>();
+  private final Set<String> failed = new HashSet<>();
+  private Consumer<Boolean> callback;
+  private boolean complete;
+
+  MembershipQuorum(Membership membership, Consumer<Boolean> callback) {
+    this.membership = membership;
+    this.callback = callback;
+  }
+
+  private void checkComplete() {
+    if (!complete && callback != null) {
+      if (membership.isQuorum(succeeded)) {
+        complete = true;
+        callback.accept(true);
+      } else if (membership.isRejected(failed)) {
+        complete = true;
+        callback.accept(false);
+      }
+    }
+  }
+
+  /**
+   * Indicates that the call to the given member succeeded.
+   */
+  MembershipQuorum succeed(String member) {
+    succeeded.add(member);
+    checkComplete();
+    return this;
+  }
+
+  /**
+   * Indicates that the call to the given member failed.
+   */
+  MembershipQuorum fail(String member) {
+    failed.add(member);
+    checkComplete();
+    return this;
+  }
+
+  /**
+   * Cancels the quorum. Once this method has been called, the quorum
+   * will be marked complete and the handler will never be called.
+   */
+  void cancel() {
+    callback = null;
+    complete = true;
+  }
+
+}
@@ -64,6 +64,9 @@ public class PassiveState extends AbstractState {
     context.checkThread();
     if (isClosed()) return;
 
+    // Witnesses don't store entry payloads, so they never gossip entries to passive members.
+    if (context.isWitness()) return;
+
     // Create a list of passive members.
     List<ReplicaInfo> passiveMembers = new ArrayList<>(context.getMembers().size());
     for (String uri : context.getMembers()) {
@@ -130,7 +133,7 @@ public class PassiveState extends AbstractState {
       LOGGER.debug("{} - Sending sync request to {}", context.getLocalMember(), member.getUri());
 
       syncHandler.apply(SyncRequest.builder()
-        .withId(UUID.randomUUID().toString())
+        .withId(context.nextRequestId())
         .withUri(member.getUri())
         .withLeader(context.getLeader())
         .withTerm(context.getTerm())
@@ -215,17 +218,24 @@ public class PassiveState extends AbstractState {
           context.log().appendEntry(entry);
           context.setCommitIndex(index);
 
-          // Extract a view of the entry after the entry term.
-          entry.position(8);
-          ByteBuffer userEntry = entry.slice();
+          // Configuration entries are applied to the cluster membership rather than the state machine.
+          if (Membership.isConfiguration(entry)) {
+            context.applyMembership(index, entry);
+          } else {
+            // Extract a view of the entry after the entry term.
+            entry.position(8);
+            ByteBuffer userEntry = entry.slice();
 
-          try {
-            context.consumer().apply(index, userEntry);
-          } catch (Exception e) {
+            try {
+              context.consumer().apply(index, userEntry);
+            } catch (Exception e) {
+            }
           }
 
           context.setLastApplied(index);
-          LOGGER.debug("{} - Appended {} to log at index {}", context.getLocalMember(), entry, index);
+          if (LOGGER.isDebugEnabled()) {
+            LOGGER.debug("{} - Appended {} to log at index {}", context.getLocalMember(), entry, index);
+          }
         } catch (IOException e) {
           break;
         }
@@ -253,12 +263,51 @@ public class PassiveState extends AbstractState {
       .build()));
   }
 
+  @Override
+  public CompletableFuture<PingResponse> ping(PingRequest request) {
+    context.checkThread();
+    if (isCurrentLeader(request.term(), request.leader())) {
+      return transitionHandler.apply(CopycatState.FOLLOWER).thenCompose(state -> context.ping(request));
+    }
+    return super.ping(request);
+  }
+
+  @Override
+  public CompletableFuture<AppendResponse> append(AppendRequest request) {
+    context.checkThread();
+    if (isCurrentLeader(request.term(), request.leader())) {
+      return transitionHandler.apply(CopycatState.FOLLOWER).thenCompose(state -> context.append(request));
+    }
+    return super.append(request);
+  }
+
+  @Override
+  public CompletableFuture<InstallResponse> install(InstallRequest request) {
+    context.checkThread();
+    if (isCurrentLeader(request.term(), request.leader())) {
+      return transitionHandler.apply(CopycatState.FOLLOWER).thenCompose(state -> context.install(request));
+    }
+    return super.install(request);
+  }
+
+  /**
+   * Returns a boolean indicating whether a replication request was sent by a leader in the current or a later term.<p>
+   *
+   * Leaders only replicate to voting members and learners, so a passive member that receives a replication request
+   * from the leader has been added to the cluster but has not yet applied the configuration change. Rather than
+   * rejecting requests until the configuration arrives via gossip, the member becomes a follower and handles them.
+   */
+  private boolean isCurrentLeader(long term, String leader) {
+    return leader != null && term >= context.getTerm() && transitionHandler != null;
+  }
+
   @Override
   public CompletableFuture<QueryResponse> query(QueryRequest request) {
     context.checkThread();
     logRequest(request);
-    // If the request allows inconsistency, immediately execute the query and return the result.
-    if (request.consistency() == Consistency.WEAK) {
+    // If the request allows inconsistency, immediately execute the query and return the result. Witnesses have no
+    // state machine state, so they always forward queries to the leader.
+    if (request.consistency() == Consistency.WEAK && !context.isWitness()) {
       return CompletableFuture.completedFuture(logResponse(QueryResponse.builder()
         .withId(request.id())
         .withUri(context.getLocalMember())
@@ -135,6 +135,16 @@ public interface ResourceContext extends Managed<ResourceContext> {
    */
   CompletableFuture<ByteBuffer> commit(ByteBuffer entry);
 
+  /**
+   * Returns the number of entries submitted to the context that have not yet been committed.<p>
+   *
+   * The count includes both commits that are in flight and commits queued by the
+   * {@link net.kuujo.copycat.resource.CommitOverflowPolicy#SHED} policy.
+   *
+   * @return The number of pending commits.
+   */
+  int pendingCommits();
+
   /**
    * Submits a synchronous entry to the context.
    *
@@ -0,0 +1,127 @@
+/*
+ * Copyright 2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.kuujo.copycat.cluster.internal.coordinator;
+
+import net.kuujo.copycat.cluster.Member;
+import net.kuujo.copycat.cluster.MessageHandler;
+import net.kuujo.copycat.cluster.internal.MemberInfo;
+import net.kuujo.copycat.protocol.LocalProtocol;
+import org.testng.annotations.Test;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.testng.Assert.*;
+
+/**
+ * Local member coordinator test.
+ *
+ * @author <a href="http://github.com/kuujo">Jordan Halterman</a>
+ */
+@Test
+public class DefaultLocalMemberCoordinatorTest {
+
+  /**
+   * Returns a handler that responds with the given value.
+   */
+  private static MessageHandler<ByteBuffer, ByteBuffer> handler(int value) {
+    return message -> CompletableFuture.completedFuture((ByteBuffer) ByteBuffer.allocate(4).putInt(0, value));
+  }
+
+  /**
+   * Tests that adding a handler to a route returns a copy and leaves the original route unchanged.
+   */
+  public void testRouteWithCopiesOnWrite() {
+    MessageHandler<ByteBuffer, ByteBuffer> first = handler(1);
+    MessageHandler<ByteBuffer, ByteBuffer> second = handler(2);
+    DefaultLocalMemberCoordinator.Route route = DefaultLocalMemberCoordinator.Route.of(1, first);
+    DefaultLocalMemberCoordinator.Route copy = route.with(2, second);
+    assertNotSame(copy, route);
+    assertSame(copy.handler(1), first);
+    assertSame(copy.handler(2), second);
+    assertSame(route.handler(1), first);
+    assertNull(route.handler(2));
+  }
+
+  /**
+   * Tests that registering a handler with an existing ID replaces the handler without changing the original route.
+   */
+  public void testRouteWithReplacesExistingId() {
+    MessageHandler<ByteBuffer, ByteBuffer> first = handler(1);
+    MessageHandler<ByteBuffer, ByteBuffer> second = handler(2);
+    MessageHandler<ByteBuffer, ByteBuffer> replacement = handler(3);
+    DefaultLocalMemberCoordinator.Route route = DefaultLocalMemberCoordinator.Route.of(1, first).with(2, second);
+    DefaultLocalMemberCoordinator.Route copy = route.with(1, replacement);
+    assertSame(copy.handler(1), replacement);
+    assertSame(copy.handler(2), second);
+    assertSame(route.handler(1), first);
+
+    // Replacing a handler doesn't add another entry, so removing it once removes it entirely.
+    DefaultLocalMemberCoordinator.Route removed = copy.without(1);
+    assertNull(removed.handler(1));
+    assertSame(removed.handler(2), second);
+  }
+
+  /**
+   * Tests that removing a handler from a route returns a copy and leaves the original route unchanged.
+   */
+  public void testRouteWithoutCopiesOnWrite() {
+    MessageHandler<ByteBuffer, ByteBuffer> first = handler(1);
+    MessageHandler<ByteBuffer, ByteBuffer> second = handler(2);
+    MessageHandler<ByteBuffer, ByteBuffer> third = handler(3);
+    DefaultLocalMemberCoordinator.Route route = DefaultLocalMemberCoordinator.Route.of(1, first).with(2, second).with(3, third);
+    DefaultLocalMemberCoordinator.Route copy = route.without(2);
+    assertNotSame(copy, route);
+    assertSame(copy.handler(1), first);
+    assertNull(copy.handler(2));
+    assertSame(copy.handler(3), third);
+    assertSame(route.handler(2), second);
+  }
+
+  /**
+   * Tests that removing an unknown ID returns the same route and removing the last handler empties the route.
+   */
+  public void testRouteWithoutUnknownAndLastId() {
+    DefaultLocalMemberCoordinator.Route route = DefaultLocalMemberCoordinator.Route.of(1, handler(1));
+    assertSame(route.without(2), route);
+    assertNull(route.without(1));
+  }
+
+  /**
+   * Tests that messages are routed to the handler registered for the message ID until it's unregistered.
+   */
+  public void testRegisterAndUnregister() throws Exception {
+    DefaultLocalMemberCoordinator coordinator = new DefaultLocalMemberCoordinator(new MemberInfo("local://foo", Member.Type.ACTIVE, Member.State.ALIVE), new LocalProtocol(), Runnable::run);
+    coordinator.register("test", 1, 1, handler(1));
+    coordinator.register("test", 1, 2, handler(2));
+    assertEquals(coordinator.send("test", 1, 1, ByteBuffer.allocate(0)).get(5, TimeUnit.SECONDS).getInt(0), 1);
+    assertEquals(coordinator.send("test", 1, 2, ByteBuffer.allocate(0)).get(5, TimeUnit.SECONDS).getInt(0), 2);
+
+    coordinator.register("test", 1, 1, handler(3));
+    assertEquals(coordinator.send("test", 1, 1, ByteBuffer.allocate(0)).get(5, TimeUnit.SECONDS).getInt(0), 3);
+
+    coordinator.unregister("test", 1, 1);
+    coordinator.unregister("test", 1, 2);
+    try {
+      coordinator.send("test", 1, 2, ByteBuffer.allocate(0)).get(5, TimeUnit.SECONDS);
+      fail("Message routed to unregistered handler");
+    } catch (ExecutionException e) {
+    }
+  }
+
+}
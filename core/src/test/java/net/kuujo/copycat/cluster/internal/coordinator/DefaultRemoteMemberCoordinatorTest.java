@@ -0,0 +1,266 @@
+/*
+ * Copyright 2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.kuujo.copycat.cluster.internal.coordinator;
+
+import net.kuujo.copycat.cluster.Member;
+import net.kuujo.copycat.cluster.internal.MemberInfo;
+import net.kuujo.copycat.cluster.internal.Topics;
+import net.kuujo.copycat.protocol.LocalProtocol;
+import net.kuujo.copycat.protocol.ProtocolException;
+import net.kuujo.copycat.protocol.ProtocolServer;
+import org.testng.annotations.Test;
+
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.testng.Assert.*;
+
+/**
+ * Remote member coordinator test.
+ *
+ * @author <a href="http://github.com/kuujo">Jordan Halterman</a>
+ */
+@Test
+public class DefaultRemoteMemberCoordinatorTest {
+
+  /**
+   * Creates a remote member coordinator with the given number of connections.
+   */
+  private DefaultRemoteMemberCoordinator createCoordinator(TestProtocol protocol, int connections) {
+    return new DefaultRemoteMemberCoordinator(new MemberInfo("local://foo", Member.Type.ACTIVE, Member.State.ALIVE), protocol, connections, Runnable::run);
+  }
+
+  /**
+   * Tests that heartbeat, vote and transfer messages are always sent on the first connection.
+   */
+  public void testControlTopicsUseFirstConnection() {
+    TestProtocol protocol = new TestProtocol();
+    DefaultRemoteMemberCoordinator coordinator = createCoordinator(protocol, 3);
+    assertEquals(protocol.clients.size(), 3);
+    for (int address = -2; address <= 2; address++) {
+      assertSame(coordinator.client(Topics.PING.hashCode(), address), protocol.clients.get(0));
+      assertSame(coordinator.client(Topics.POLL.hashCode(), address), protocol.clients.get(0));
+      assertSame(coordinator.client(Topics.TRANSFER.hashCode(), address), protocol.clients.get(0));
+    }
+  }
+
+  /**
+   * Tests that other messages are sharded across the remaining connections by address.
+   */
+  public void testMessagesAreShardedByAddress() {
+    TestProtocol protocol = new TestProtocol();
+    DefaultRemoteMemberCoordinator coordinator = createCoordinator(protocol, 3);
+    int topic = Topics.APPEND.hashCode();
+    assertSame(coordinator.client(topic, 0), protocol.clients.get(1));
+    assertSame(coordinator.client(topic, 1), protocol.clients.get(2));
+    assertSame(coordinator.client(topic, 2), protocol.clients.get(1));
+    assertSame(coordinator.client("foo".hashCode(), 1), protocol.clients.get(2));
+    assertSame(coordinator.client(topic, Integer.MIN_VALUE + 1), protocol.clients.get(2));
+    for (int address = -100; address <= 100; address++) {
+      assertNotSame(coordinator.client(topic, address), protocol.clients.get(0));
+      assertSame(coordinator.client(topic, address), coordinator.client(Topics.SYNC.hashCode(), address));
+    }
+  }
+
+  /**
+   * Tests that all messages are sent on the only connection when a single connection is configured.
+   */
+  public void testSingleConnection() {
+    TestProtocol protocol = new TestProtocol();
+    DefaultRemoteMemberCoordinator coordinator = createCoordinator(protocol, 1);
+    assertSame(coordinator.client(Topics.PING.hashCode(), 1), protocol.clients.get(0));
+    assertSame(coordinator.client(Topics.APPEND.hashCode(), 1), protocol.clients.get(0));
+  }
+
+  /**
+   * Tests that the member is connected as long as its first connection is connected.
+   */
+  public void testIsConnectedUsesFirstConnection() {
+    TestProtocol protocol = new TestProtocol();
+    DefaultRemoteMemberCoordinator coordinator = createCoordinator(protocol, 3);
+    assertTrue(coordinator.isConnected());
+    protocol.clients.get(2).connected = false;
+    assertTrue(coordinator.isConnected());
+    protocol.clients.get(0).connected = false;
+    assertFalse(coordinator.isConnected());
+  }
+
+  /**
+   * Creates a remote member coordinator with compression enabled.
+   */
+  private DefaultRemoteMemberCoordinator createCompressingCoordinator(TestProtocol protocol) throws Exception {
+    protocol.setCompression(true);
+    protocol.setCompressionThreshold(64);
+    DefaultRemoteMemberCoordinator coordinator = createCoordinator(protocol, 1);
+    coordinator.open().get(5, TimeUnit.SECONDS);
+    return coordinator;
+  }
+
+  /**
+   * Returns a compressible message of the given size.
+   */
+  private static ByteBuffer message(int size) {
+    ByteBuffer buffer = ByteBuffer.allocate(size);
+    for (int i = 0; i < size; i++) {
+      buffer.put((byte) (i % 16));
+    }
+    buffer.flip();
+    return buffer;
+  }
+
+  /**
+   * Returns a response with the given flags and body.
+   */
+  private static ByteBuffer response(byte flags, ByteBuffer body) {
+    ByteBuffer response = ByteBuffer.allocate(body.remaining() + 1);
+    response.put(flags);
+    response.put(body.duplicate());
+    response.flip();
+    return response;
+  }
+
+  /**
+   * Asserts that the given write is a compression handshake and responds to it.
+   */
+  private static void handshake(TestProtocolClient.Write write, byte flags) {
+    assertEquals(write.request.getInt(0), MessageCompression.HANDSHAKE_TOPIC);
+    assertEquals(write.request.get(12), MessageCompression.ACCEPTS_COMPRESSED);
+    write.respond(response(flags, ByteBuffer.allocate(0)));
+  }
+
+  /**
+   * Sends a message and returns whether it was written compressed.
+   */
+  private static boolean sendCompressed(DefaultRemoteMemberCoordinator coordinator, TestProtocolClient client, ByteBuffer message) throws Exception {
+    ByteBuffer expected = message.duplicate();
+    CompletableFuture<ByteBuffer> future = coordinator.send("test", 1, 1, message);
+    TestProtocolClient.Write write = client.next();
+    assertEquals(write.request.getInt(0), "test".hashCode());
+    byte flags = write.request.get(12);
+    assertTrue((flags & MessageCompression.ACCEPTS_COMPRESSED) != 0);
+    write.request.position(13);
+    ByteBuffer body = (flags & MessageCompression.COMPRESSED) != 0 ? MessageCompression.decompress(write.request) : write.request.slice();
+    assertEquals(body, expected);
+    write.respond(response(MessageCompression.NONE, ByteBuffer.wrap("Hello world!".getBytes())));
+    assertEquals(future.get(5, TimeUnit.SECONDS), ByteBuffer.wrap("Hello world!".getBytes()));
+    return (flags & MessageCompression.COMPRESSED) != 0;
+  }
+
+  /**
+   * Tests that messages are compressed once the member accepts compression.
+   */
+  public void testCompressesWhenMemberAcceptsCompression() throws Exception {
+    TestProtocol protocol = new TestProtocol();
+    DefaultRemoteMemberCoordinator coordinator = createCompressingCoordinator(protocol);
+    TestProtocolClient client = protocol.clients.get(0);
+    handshake(client.next(), MessageCompression.ACCEPTS_COMPRESSED);
+    assertTrue(sendCompressed(coordinator, client, message(1024)));
+    assertFalse(sendCompressed(coordinator, client, message(32)));
+  }
+
+  /**
+   * Tests that messages are not compressed if the member doesn't accept compression.
+   */
+  public void testDoesNotCompressWhenMemberRejectsCompression() throws Exception {
+    TestProtocol protocol = new TestProtocol();
+    DefaultRemoteMemberCoordinator coordinator = createCompressingCoordinator(protocol);
+    TestProtocolClient client = protocol.clients.get(0);
+    handshake(client.next(), MessageCompression.NONE);
+    assertFalse(sendCompressed(coordinator, client, message(1024)));
+    assertTrue(client.writes.isEmpty());
+  }
+
+  /**
+   * Tests that the compression threshold applies to the remaining bytes of a message.
+   */
+  public void testCompressionThresholdUsesRemainingBytes() throws Exception {
+    TestProtocol protocol = new TestProtocol();
+    DefaultRemoteMemberCoordinator coordinator = createCompressingCoordinator(protocol);
+    TestProtocolClient client = protocol.clients.get(0);
+    handshake(client.next(), MessageCompression.ACCEPTS_COMPRESSED);
+    ByteBuffer message = message(1024);
+    message.position(1024 - 32);
+    assertFalse(sendCompressed(coordinator, client, message));
+  }
+
+  /**
+   * Sends a message while compression is being renegotiated and returns the handshake.
+   */
+  private static TestProtocolClient.Write sendDuringHandshake(DefaultRemoteMemberCoordinator coordinator, TestProtocolClient client) throws Exception {
+    CompletableFuture<ByteBuffer> future = coordinator.send("test", 1, 1, message(1024));
+    TestProtocolClient.Write handshake = client.next();
+    assertEquals(handshake.request.getInt(0), MessageCompression.HANDSHAKE_TOPIC);
+
+    // Messages are sent uncompressed until the handshake completes.
+    TestProtocolClient.Write write = client.next();
+    assertEquals(write.request.get(12) & MessageCompression.COMPRESSED, 0);
+    write.respond(response(MessageCompression.NONE, ByteBuffer.allocate(0)));
+    future.get(5, TimeUnit.SECONDS);
+    return handshake;
+  }
+
+  /**
+   * Tests that compression is renegotiated when the next message is sent after a failed handshake.
+   */
+  public void testRenegotiatesAfterFailedHandshake() throws Exception {
+    TestProtocol protocol = new TestProtocol();
+    DefaultRemoteMemberCoordinator coordinator = createCompressingCoordinator(protocol);
+    TestProtocolClient client = protocol.clients.get(0);
+    client.next().future.completeExceptionally(new ProtocolException("Connection closed"));
+    handshake(sendDuringHandshake(coordinator, client), MessageCompression.ACCEPTS_COMPRESSED);
+    assertTrue(sendCompressed(coordinator, client, message(1024)));
+  }
+
+  /**
+   * Tests that compression is renegotiated when the connection is reestablished.
+   */
+  public void testRenegotiatesOnReconnect() throws Exception {
+    TestProtocol protocol = new TestProtocol();
+    DefaultRemoteMemberCoordinator coordinator = createCompressingCoordinator(protocol);
+    TestProtocolClient client = protocol.clients.get(0);
+    handshake(client.next(), MessageCompression.ACCEPTS_COMPRESSED);
+    assertTrue(sendCompressed(coordinator, client, message(1024)));
+    client.reconnect();
+    handshake(sendDuringHandshake(coordinator, client), MessageCompression.NONE);
+    assertFalse(sendCompressed(coordinator, client, message(1024)));
+  }
+
+  /**
+   * Tests that messages to a member over a client that never blocks are written on the calling thread rather than
+   * on the member's executor.
+   */
+  public void testNonBlockingClientWritesOnCallingThread() throws Exception {
+    LocalProtocol protocol = new LocalProtocol();
+    ProtocolServer server = protocol.createServer(new URI("local://foo"));
+    Thread caller = Thread.currentThread();
+    server.handler(request -> {
+      assertSame(Thread.currentThread(), caller);
+      request.position(13);
+      return CompletableFuture.completedFuture(response(MessageCompression.NONE, request.slice()));
+    });
+    server.listen().get(5, TimeUnit.SECONDS);
+
+    DefaultRemoteMemberCoordinator coordinator = new DefaultRemoteMemberCoordinator(new MemberInfo("local://foo", Member.Type.ACTIVE, Member.State.ALIVE), protocol, 1, r -> {
+      throw new AssertionError("Message sent on executor");
+    });
+    CompletableFuture<ByteBuffer> future = coordinator.send("test", 1, 1, ByteBuffer.wrap("Hello world!".getBytes()));
+    assertTrue(future.isDone());
+    assertEquals(future.get(), ByteBuffer.wrap("Hello world!".getBytes()));
+  }
+
+}
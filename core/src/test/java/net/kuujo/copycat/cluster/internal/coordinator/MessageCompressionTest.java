@@ -0,0 +1,105 @@
+/*
+ * Copyright 2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.kuujo.copycat.cluster.internal.coordinator;
+
+import net.kuujo.copycat.protocol.LocalProtocol;
+import net.kuujo.copycat.protocol.ProtocolException;
+import org.testng.annotations.Test;
+
+import java.nio.ByteBuffer;
+import java.util.Random;
+
+import static org.testng.Assert.*;
+
+/**
+ * Message compression test.
+ *
+ * @author <a href="http://github.com/kuujo">Jordan Halterman</a>
+ */
+@Test
+public class MessageCompressionTest {
+
+  /**
+   * Returns a compressible message of the given size.
+   */
+  private ByteBuffer message(int size) {
+    ByteBuffer buffer = ByteBuffer.allocate(size);
+    for (int i = 0; i < size; i++) {
+      buffer.put((byte) (i % 16));
+    }
+    buffer.flip();
+    return buffer;
+  }
+
+  /**
+   * Tests compressing and decompressing a message.
+   */
+  public void testCompressDecompress() {
+    ByteBuffer message = message(4096);
+    ByteBuffer compressed = MessageCompression.compress(message);
+    assertNotNull(compressed);
+    assertTrue(compressed.remaining() < message.remaining());
+    assertEquals(message.position(), 0);
+    assertEquals(MessageCompression.decompress(compressed), message);
+  }
+
+  /**
+   * Tests that only the remaining bytes of a message are compressed.
+   */
+  public void testCompressRemaining() {
+    ByteBuffer message = message(4096);
+    message.position(1024);
+    ByteBuffer compressed = MessageCompression.compress(message);
+    assertEquals(message.position(), 1024);
+    ByteBuffer decompressed = MessageCompression.decompress(compressed);
+    assertEquals(decompressed.remaining(), 3072);
+    assertEquals(decompressed, message);
+  }
+
+  /**
+   * Tests that a message that can't be made smaller isn't compressed.
+   */
+  public void testIncompressibleMessage() {
+    byte[] bytes = new byte[1024];
+    new Random(0).nextBytes(bytes);
+    assertNull(MessageCompression.compress(ByteBuffer.wrap(bytes)));
+  }
+
+  /**
+   * Tests that decompressing a malformed message fails.
+   */
+  @Test(expectedExceptions = ProtocolException.class)
+  public void testDecompressMalformedMessage() {
+    ByteBuffer buffer = ByteBuffer.allocate(16);
+    buffer.putInt(1024);
+    buffer.putLong(0x0123456789ABCDEFL);
+    buffer.flip();
+    MessageCompression.decompress(buffer);
+  }
+
+  /**
+   * Tests reading the compression configuration from a protocol.
+   */
+  public void testProtocolConfiguration() {
+    LocalProtocol protocol = new LocalProtocol();
+    assertFalse(MessageCompression.isEnabled(protocol));
+    protocol.setCompression(true);
+    protocol.setCompressionThreshold(64);
+    assertTrue(MessageCompression.isEnabled(protocol));
+    assertEquals(MessageCompression.threshold(protocol), 64);
+  }
+
+}
@@ -0,0 +1,367 @@
+/*
+ * Copyright 2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.kuujo.copycat.cluster.internal.coordinator;
+
+import net.kuujo.copycat.cluster.Member;
+import net.kuujo.copycat.cluster.internal.MemberInfo;
+import net.kuujo.copycat.protocol.LocalProtocol;
+import net.kuujo.copycat.protocol.ProtocolClient;
+import net.kuujo.copycat.protocol.ProtocolException;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.testng.Assert.*;
+
+/**
+ * Message streams test.
+ *
+ * @author <a href="http://github.com/kuujo">Jordan Halterman</a>
+ */
+@Test
+public class MessageStreamsTest {
+  private static final int CHUNK_SIZE = 16;
+  private static final int CHUNK_WINDOW = 2;
+  private DefaultRemoteMemberCoordinator coordinator;
+  private TestProtocolClient client;
+
+  @BeforeMethod
+  protected void createCoordinator() {
+    TestProtocol protocol = new TestProtocol();
+    protocol.setChunkSize(CHUNK_SIZE);
+    protocol.setChunkWindow(CHUNK_WINDOW);
+    coordinator = new DefaultRemoteMemberCoordinator(new MemberInfo("local://foo", Member.Type.ACTIVE, Member.State.ALIVE), protocol, Runnable::run);
+    client = protocol.clients.get(0);
+  }
+
+  /**
+   * Returns a message of the given size.
+   */
+  private static ByteBuffer message(int size) {
+    ByteBuffer buffer = ByteBuffer.allocate(size);
+    for (int i = 0; i < size; i++) {
+      buffer.put((byte) i);
+    }
+    buffer.flip();
+    return buffer;
+  }
+
+  /**
+   * Returns a response with the given flags and body.
+   */
+  private static ByteBuffer response(byte flags, ByteBuffer body) {
+    ByteBuffer response = ByteBuffer.allocate(body.remaining() + 1);
+    response.put(flags);
+    response.put(body.duplicate());
+    response.flip();
+    return response;
+  }
+
+  /**
+   * Returns the offset of a streamed request chunk, asserting the chunk header.
+   */
+  private static int chunkOffset(TestProtocolClient.Write write, int length) {
+    assertTrue((write.request.get(12) & MessageStreams.STREAM) != 0);
+    assertEquals(write.request.getInt(21), length);
+    return write.request.getInt(25);
+  }
+
+  /**
+   * Acknowledges a streamed request chunk.
+   */
+  private static void acknowledge(TestProtocolClient.Write write) {
+    write.respond(response(MessageCompression.NONE, ByteBuffer.allocate(0)));
+  }
+
+  /**
+   * Tests that no more than the chunk window of request chunks are unacknowledged at once.
+   */
+  public void testChunkWindow() throws Exception {
+    coordinator.send("test", 1, 1, message(CHUNK_SIZE * 6));
+    TestProtocolClient.Write first = client.next();
+    TestProtocolClient.Write second = client.next();
+    assertEquals(chunkOffset(first, CHUNK_SIZE * 6), 0);
+    assertEquals(chunkOffset(second, CHUNK_SIZE * 6), CHUNK_SIZE);
+    assertTrue(client.writes.isEmpty());
+
+    // Each acknowledgement opens the window to one more chunk.
+    acknowledge(second);
+    TestProtocolClient.Write third = client.next();
+    assertEquals(chunkOffset(third, CHUNK_SIZE * 6), CHUNK_SIZE * 2);
+    assertTrue(client.writes.isEmpty());
+    acknowledge(first);
+    assertEquals(chunkOffset(client.next(), CHUNK_SIZE * 6), CHUNK_SIZE * 3);
+    assertTrue(client.writes.isEmpty());
+  }
+
+  /**
+   * Tests that the final request chunk is only sent once every other chunk has been acknowledged.
+   */
+  public void testLastChunkSentAfterAllChunksAcknowledged() throws Exception {
+    int length = CHUNK_SIZE * 3 + 4;
+    ByteBuffer message = message(length);
+    CompletableFuture<ByteBuffer> future = coordinator.send("test", 1, 1, message.duplicate());
+    ByteBuffer received = ByteBuffer.allocate(length);
+
+    TestProtocolClient.Write first = client.next();
+    TestProtocolClient.Write second = client.next();
+    acknowledge(first);
+    TestProtocolClient.Write third = client.next();
+    acknowledge(third);
+    assertTrue(client.writes.isEmpty());
+    acknowledge(second);
+
+    TestProtocolClient.Write last = client.next();
+    assertEquals(chunkOffset(last, length), CHUNK_SIZE * 3);
+    assertFalse(future.isDone());
+    for (TestProtocolClient.Write write : new TestProtocolClient.Write[]{first, second, third, last}) {
+      write.request.position(29);
+      received.position(chunkOffset(write, length));
+      received.put(write.request);
+    }
+    received.clear();
+    assertEquals(received, message);
+
+    // The response to the final chunk is the response to the message.
+    last.respond(response(MessageCompression.NONE, ByteBuffer.wrap("Hello world!".getBytes())));
+    assertEquals(future.get(5, TimeUnit.SECONDS), ByteBuffer.wrap("Hello world!".getBytes()));
+  }
+
+  /**
+   * Tests that a failed request chunk fails the message without sending the final chunk.
+   */
+  public void testFailedChunkFailsMessage() throws Exception {
+    CompletableFuture<ByteBuffer> future = coordinator.send("test", 1, 1, message(CHUNK_SIZE * 2 + 4));
+    TestProtocolClient.Write first = client.next();
+    TestProtocolClient.Write second = client.next();
+    first.future.completeExceptionally(new ProtocolException("Request timed out"));
+    acknowledge(second);
+    assertTrue(client.writes.isEmpty());
+    try {
+      future.get(5, TimeUnit.SECONDS);
+      fail("Message did not fail");
+    } catch (ExecutionException e) {
+      assertTrue(e.getCause() instanceof ProtocolException);
+    }
+  }
+
+  /**
+   * Tests pulling a streamed response.
+   */
+  public void testPullStreamedResponse() throws Exception {
+    int length = CHUNK_SIZE * 3 + 4;
+    ByteBuffer body = message(length);
+    CompletableFuture<ByteBuffer> future = coordinator.send("test", 1, 1, message(4));
+    TestProtocolClient.Write write = client.next();
+
+    // Respond with the first chunk of a streamed response.
+    ByteBuffer response = ByteBuffer.allocate(13 + CHUNK_SIZE);
+    response.put(MessageStreams.STREAM);
+    response.putLong(1234);
+    response.putInt(length);
+    response.put((ByteBuffer) body.duplicate().limit(CHUNK_SIZE));
+    response.flip();
+    write.respond(response);
+
+    // The requester pulls the remaining chunks, limited by the chunk window.
+    TestProtocolClient.Write first = client.next();
+    TestProtocolClient.Write second = client.next();
+    assertTrue(client.writes.isEmpty());
+    for (TestProtocolClient.Write pull : new TestProtocolClient.Write[]{first, second}) {
+      assertEquals(pull.request.get(12), MessageStreams.PULL);
+      assertEquals(pull.request.getLong(13), 1234);
+    }
+    assertEquals(first.request.getInt(21), CHUNK_SIZE);
+    assertEquals(first.request.getInt(25), CHUNK_SIZE);
+    assertEquals(second.request.getInt(21), CHUNK_SIZE * 2);
+    assertEquals(second.request.getInt(25), CHUNK_SIZE);
+
+    // Chunks may be received out of order.
+    second.respond(response(MessageCompression.NONE, (ByteBuffer) body.duplicate().position(CHUNK_SIZE * 2).limit(CHUNK_SIZE * 3)));
+    TestProtocolClient.Write third = client.next();
+    assertEquals(third.request.getInt(21), CHUNK_SIZE * 3);
+    assertEquals(third.request.getInt(25), 4);
+    third.respond(response(MessageCompression.NONE, (ByteBuffer) body.duplicate().position(CHUNK_SIZE * 3)));
+    assertFalse(future.isDone());
+    first.respond(response(MessageCompression.NONE, (ByteBuffer) body.duplicate().position(CHUNK_SIZE).limit(CHUNK_SIZE * 2)));
+    assertEquals(future.get(5, TimeUnit.SECONDS), body);
+    assertTrue(client.writes.isEmpty());
+  }
+
+  /**
+   * Tests assembling an inbound stream.
+   */
+  public void testInboundStream() {
+    ByteBuffer message = message(CHUNK_SIZE + 4);
+    MessageStreams.InboundStream stream = new MessageStreams.InboundStream(CHUNK_SIZE + 4);
+    stream.write(CHUNK_SIZE, (ByteBuffer) message.duplicate().position(CHUNK_SIZE));
+    try {
+      stream.message();
+      fail("Incomplete stream returned a message");
+    } catch (ProtocolException e) {
+    }
+    stream.write(0, (ByteBuffer) message.duplicate().limit(CHUNK_SIZE));
+    assertEquals(stream.message(), message);
+  }
+
+  /**
+   * Tests that a chunk outside of the stream is rejected.
+   */
+  @Test(expectedExceptions = ProtocolException.class)
+  public void testInboundStreamRejectsInvalidOffset() {
+    new MessageStreams.InboundStream(CHUNK_SIZE).write(4, message(CHUNK_SIZE));
+  }
+
+  /**
+   * Tests reading an outbound stream.
+   */
+  public void testOutboundStream() {
+    ByteBuffer message = message(CHUNK_SIZE + 4);
+    MessageStreams.OutboundStream stream = new MessageStreams.OutboundStream(message);
+    assertEquals(stream.length(), CHUNK_SIZE + 4);
+    assertEquals(stream.read(0, CHUNK_SIZE), message.duplicate().limit(CHUNK_SIZE));
+    assertFalse(stream.isComplete());
+    assertEquals(stream.read(CHUNK_SIZE, 4), message.duplicate().position(CHUNK_SIZE));
+    assertTrue(stream.isComplete());
+  }
+
+  /**
+   * Tests that idle streams are expired.
+   */
+  public void testStreamExpiry() {
+    long now = System.currentTimeMillis();
+    Map<Long, MessageStreams.InboundStream> streams = new HashMap<>();
+    streams.put(1L, new MessageStreams.InboundStream(CHUNK_SIZE));
+    MessageStreams.expire(streams, now);
+    assertEquals(streams.size(), 1);
+    assertFalse(streams.get(1L).isExpired(now + MessageStreams.STREAM_TIMEOUT / 2));
+    assertTrue(streams.get(1L).isExpired(now + MessageStreams.STREAM_TIMEOUT + 1000));
+    MessageStreams.expire(streams, now + MessageStreams.STREAM_TIMEOUT + 1000);
+    assertTrue(streams.isEmpty());
+  }
+
+  /**
+   * Tests that writing to a stream resets its expiration.
+   */
+  public void testStreamActivityResetsExpiry() throws Exception {
+    MessageStreams.InboundStream stream = new MessageStreams.InboundStream(CHUNK_SIZE);
+    long start = System.currentTimeMillis();
+    Thread.sleep(50);
+    stream.write(0, message(4));
+    assertFalse(stream.isExpired(start + MessageStreams.STREAM_TIMEOUT + 10));
+  }
+
+  /**
+   * Tests that stream lengths beyond the maximum message size are rejected.
+   */
+  public void testCheckLength() {
+    assertEquals(MessageStreams.checkLength(CHUNK_SIZE, CHUNK_SIZE), CHUNK_SIZE);
+    for (int length : new int[]{CHUNK_SIZE + 1, -1}) {
+      try {
+        MessageStreams.checkLength(length, CHUNK_SIZE);
+        fail("Invalid stream length accepted");
+      } catch (ProtocolException e) {
+      }
+    }
+  }
+
+  /**
+   * Tests that the expiry timer runs until it's cancelled.
+   */
+  public void testScheduleExpiry() throws Exception {
+    CountDownLatch latch = new CountDownLatch(3);
+    ScheduledFuture<?> timer = MessageStreams.scheduleExpiry(latch::countDown, 10);
+    assertTrue(latch.await(5, TimeUnit.SECONDS));
+    timer.cancel(false);
+    assertTrue(timer.isCancelled());
+  }
+
+  /**
+   * Creates and opens a local member coordinator that echoes messages.
+   */
+  private static DefaultLocalMemberCoordinator createLocalCoordinator(LocalProtocol protocol) throws Exception {
+    DefaultLocalMemberCoordinator coordinator = new DefaultLocalMemberCoordinator(new MemberInfo("local://foo", Member.Type.ACTIVE, Member.State.ALIVE), protocol, Runnable::run);
+    coordinator.register("test", 1, 1, CompletableFuture::completedFuture);
+    coordinator.open().get(5, TimeUnit.SECONDS);
+    return coordinator;
+  }
+
+  /**
+   * Tests that the receiver rejects a stream longer than the maximum message size without buffering it.
+   */
+  public void testOversizedStreamRejected() throws Exception {
+    LocalProtocol protocol = new LocalProtocol();
+    protocol.setChunkSize(CHUNK_SIZE);
+    protocol.setMaxMessageSize(CHUNK_SIZE * 2);
+    DefaultLocalMemberCoordinator local = createLocalCoordinator(protocol);
+    DefaultRemoteMemberCoordinator remote = new DefaultRemoteMemberCoordinator(new MemberInfo("local://foo", Member.Type.ACTIVE, Member.State.ALIVE), protocol, Runnable::run);
+    try {
+      assertEquals(remote.send("test", 1, 1, message(CHUNK_SIZE * 2)).get(5, TimeUnit.SECONDS), message(CHUNK_SIZE * 2));
+      try {
+        remote.send("test", 1, 1, message(CHUNK_SIZE * 2 + 1)).get(5, TimeUnit.SECONDS);
+        fail("Oversized stream accepted");
+      } catch (ExecutionException e) {
+        assertTrue(e.getCause() instanceof ProtocolException);
+      }
+      assertEquals(local.streams(), 0);
+    } finally {
+      local.close().get(5, TimeUnit.SECONDS);
+    }
+  }
+
+  /**
+   * Tests that a stream abandoned by its sender is discarded by the receiver once it expires.
+   */
+  public void testAbandonedStreamExpires() throws Exception {
+    LocalProtocol protocol = new LocalProtocol();
+    protocol.setChunkSize(CHUNK_SIZE);
+    DefaultLocalMemberCoordinator local = createLocalCoordinator(protocol);
+    try {
+      // Send only the first chunk of a streamed message.
+      ByteBuffer chunk = ByteBuffer.allocate(29 + CHUNK_SIZE);
+      chunk.putInt("test".hashCode());
+      chunk.putInt(1);
+      chunk.putInt(1);
+      chunk.put(MessageStreams.STREAM);
+      chunk.putLong(1);
+      chunk.putInt(CHUNK_SIZE * 2);
+      chunk.putInt(0);
+      chunk.put(message(CHUNK_SIZE));
+      chunk.flip();
+      ProtocolClient client = protocol.createClient(new URI("local://foo"));
+      client.write(chunk).get(5, TimeUnit.SECONDS);
+      assertEquals(local.streams(), 1);
+
+      long now = System.currentTimeMillis();
+      local.expireStreams(now);
+      assertEquals(local.streams(), 1);
+      local.expireStreams(now + MessageStreams.STREAM_TIMEOUT + 1000);
+      assertEquals(local.streams(), 0);
+    } finally {
+      local.close().get(5, TimeUnit.SECONDS);
+    }
+  }
+
+}
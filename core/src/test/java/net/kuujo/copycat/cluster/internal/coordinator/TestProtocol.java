@@ -0,0 +1,51 @@
+/*
+ * Copyright 2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.kuujo.copycat.cluster.internal.coordinator;
+
+import net.kuujo.copycat.protocol.AbstractProtocol;
+import net.kuujo.copycat.protocol.ProtocolClient;
+import net.kuujo.copycat.protocol.ProtocolServer;
+
+import java.net.URI;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Test protocol that records the clients it creates.
+ *
+ * @author <a href="http://github.com/kuujo">Jordan Halterman</a>
+ */
+public class TestProtocol extends AbstractProtocol {
+  final List<TestProtocolClient> clients = new CopyOnWriteArrayList<>();
+
+  @Override
+  public TestProtocol copy() {
+    return this;
+  }
+
+  @Override
+  public ProtocolClient createClient(URI uri) {
+    TestProtocolClient client = new TestProtocolClient();
+    clients.add(client);
+    return client;
+  }
+
+  @Override
+  public ProtocolServer createServer(URI uri) {
+    throw new UnsupportedOperationException();
+  }
+
+}
@@ -0,0 +1,107 @@
+/*
+ * Copyright 2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.kuujo.copycat.cluster.internal.coordinator;
+
+import net.kuujo.copycat.protocol.ProtocolClient;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Test protocol client that queues written requests until the test responds to them.
+ *
+ * @author <a href="http://github.com/kuujo">Jordan Halterman</a>
+ */
+public class TestProtocolClient implements ProtocolClient {
+  final BlockingQueue<Write> writes = new LinkedBlockingQueue<>();
+  volatile boolean connected = true;
+  private volatile Runnable connectHandler;
+
+  @Override
+  public CompletableFuture<ByteBuffer> write(ByteBuffer request) {
+    ByteBuffer copy = ByteBuffer.allocate(request.remaining());
+    copy.put(request);
+    copy.flip();
+    Write write = new Write(copy);
+    writes.add(write);
+    return write.future;
+  }
+
+  /**
+   * Returns the next request written to the client.
+   */
+  Write next() throws InterruptedException {
+    Write write = writes.poll(5, TimeUnit.SECONDS);
+    if (write == null) {
+      throw new AssertionError("No request written");
+    }
+    return write;
+  }
+
+  @Override
+  public boolean isConnected() {
+    return connected;
+  }
+
+  @Override
+  public void connectHandler(Runnable handler) {
+    this.connectHandler = handler;
+  }
+
+  /**
+   * Simulates the client reestablishing its connection.
+   */
+  void reconnect() {
+    connected = true;
+    Runnable connectHandler = this.connectHandler;
+    if (connectHandler != null) {
+      connectHandler.run();
+    }
+  }
+
+  @Override
+  public CompletableFuture<Void> connect() {
+    return CompletableFuture.completedFuture(null);
+  }
+
+  @Override
+  public CompletableFuture<Void> close() {
+    return CompletableFuture.completedFuture(null);
+  }
+
+  /**
+   * Request written to the client.
+   */
+  static class Write {
+    final ByteBuffer request;
+    final CompletableFuture<ByteBuffer> future = new CompletableFuture<>();
+
+    private Write(ByteBuffer request) {
+      this.request = request;
+    }
+
+    /**
+     * Responds to the request.
+     */
+    void respond(ByteBuffer response) {
+      future.complete(response);
+    }
+  }
+
+}
@@ -296,6 +296,23 @@ public abstract class AbstractLogTest {
     assertEquals(log.lastIndex().longValue(), entriesPerSegment * 3);
   }
 
+  /**
+   * Tests {@link AbstractLogManager#compact(long)} removes only the segments preceding the given index.
+   */
+  public void testCompact() throws Exception {
+    appendEntries(entriesPerSegment * 3);
+    assertEquals(log.segments().size(), 3);
+    log.compact(entriesPerSegment + 1);
+    assertEquals(log.segments().size(), 2);
+    assertEquals(log.firstIndex().longValue(), entriesPerSegment + 1);
+    assertEquals(log.lastIndex().longValue(), entriesPerSegment * 3);
+    assertBytesEqual(log.getEntry(entriesPerSegment + 1), entriesPerSegment + 1);
+    log.compact(entriesPerSegment * 2 + 1);
+    assertEquals(log.segments().size(), 1);
+    assertEquals(log.firstIndex().longValue(), entriesPerSegment * 2 + 1);
+    assertBytesEqual(log.getEntry(entriesPerSegment * 3), entriesPerSegment * 3);
+  }
+
   /**
    * Appends {@code numEntries} increasingly numbered ByteBuffer wrapped entries to the log.
    */
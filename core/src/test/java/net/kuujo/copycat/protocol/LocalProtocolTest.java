@@ -0,0 +1,104 @@
+/*
+ * Copyright 2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.kuujo.copycat.protocol;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Local protocol test.
+ *
+ * @author <a href="http://github.com/kuujo">Jordan Halterman</a>
+ */
+@Test
+public class LocalProtocolTest {
+
+  /**
+   * Tests that a request is passed to the server's handler on the calling thread without being copied.
+   */
+  public void testRequestHandledOnCallingThread() throws Exception {
+    LocalProtocol protocol = new LocalProtocol();
+    ProtocolServer server = protocol.createServer(new URI("local://foo"));
+    AtomicReference<Thread> thread = new AtomicReference<>();
+    AtomicReference<ByteBuffer> received = new AtomicReference<>();
+    server.handler(request -> {
+      thread.set(Thread.currentThread());
+      received.set(request);
+      return CompletableFuture.completedFuture(request);
+    });
+    server.listen().get(5, TimeUnit.SECONDS);
+
+    ProtocolClient client = protocol.createClient(new URI("local://foo"));
+    Assert.assertFalse(client.isBlocking());
+    ByteBuffer request = ByteBuffer.wrap("Hello world!".getBytes());
+    CompletableFuture<ByteBuffer> future = client.write(request);
+    Assert.assertSame(thread.get(), Thread.currentThread());
+    Assert.assertSame(received.get(), request);
+    Assert.assertTrue(future.isDone());
+    Assert.assertEquals(future.get(), ByteBuffer.wrap("Hello world!".getBytes()));
+  }
+
+  /**
+   * Tests that a response completes on the thread that completes the handler's future.
+   */
+  public void testResponseCompletesOnHandlerThread() throws Exception {
+    LocalProtocol protocol = new LocalProtocol();
+    ProtocolServer server = protocol.createServer(new URI("local://foo"));
+    ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(r -> new Thread(r, "handler"));
+    try {
+      server.handler(request -> {
+        CompletableFuture<ByteBuffer> future = new CompletableFuture<>();
+        executor.schedule(() -> future.complete(ByteBuffer.wrap("Hello world!".getBytes())), 100, TimeUnit.MILLISECONDS);
+        return future;
+      });
+      server.listen().get(5, TimeUnit.SECONDS);
+
+      ProtocolClient client = protocol.createClient(new URI("local://foo"));
+      CompletableFuture<String> future = client.write(ByteBuffer.allocate(0)).thenApply(response -> Thread.currentThread().getName());
+      Assert.assertEquals(future.get(5, TimeUnit.SECONDS), "handler");
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  /**
+   * Tests that a write to an address with no listening server fails.
+   */
+  public void testWriteToClosedServerFails() throws Exception {
+    LocalProtocol protocol = new LocalProtocol();
+    ProtocolServer server = protocol.createServer(new URI("local://foo"));
+    server.handler(CompletableFuture::completedFuture);
+    server.listen().get(5, TimeUnit.SECONDS);
+    server.close().get(5, TimeUnit.SECONDS);
+
+    try {
+      protocol.createClient(new URI("local://foo")).write(ByteBuffer.allocate(0)).get(5, TimeUnit.SECONDS);
+      Assert.fail("Write to closed server succeeded");
+    } catch (ExecutionException e) {
+      Assert.assertTrue(e.getCause() instanceof ProtocolException);
+    }
+  }
+
+}
@@ -1204,6 +1204,24 @@ public class RequestResponseTest {
     assertEquals(request.term(), 1);
     assertEquals(request.logIndex().longValue(), 5);
     assertEquals(request.logTerm().longValue(), 1);
+    assertFalse(request.preVote());
+  }
+
+  /**
+   * Tests that the poll request builder succeeds when configured as a pre-vote.
+   */
+  public void testPollRequestBuilderSucceedsWithPreVote() {
+    PollRequest request = PollRequest.builder()
+      .withId("test")
+      .withUri("foo")
+      .withCandidate("bar")
+      .withTerm(2)
+      .withLogIndex(5L)
+      .withLogTerm(1L)
+      .withPreVote(true)
+      .build();
+    assertEquals(request.term(), 2);
+    assertTrue(request.preVote());
   }
 
   /**
@@ -1441,4 +1459,346 @@ public class RequestResponseTest {
     assertEquals(response.result(), "Hello world!");
   }
 
+
+  /**
+   * Tests that the transfer request builder fails when not configured.
+   */
+  @Test(expectedExceptions = NullPointerException.class)
+  public void testTransferRequestBuilderFailsWithoutConfiguration() {
+    TransferRequest.builder().build();
+  }
+
+  /**
+   * Tests that the transfer request builder fails without a leader.
+   */
+  @Test(expectedExceptions = NullPointerException.class)
+  public void testTransferRequestBuilderFailsWithoutLeader() {
+    TransferRequest.builder()
+      .withId("test")
+      .withUri("foo")
+      .withTerm(1)
+      .build();
+  }
+
+  /**
+   * Tests that the transfer request builder fails without a term.
+   */
+  @Test(expectedExceptions = IllegalArgumentException.class)
+  public void testTransferRequestBuilderFailsWithoutTerm() {
+    TransferRequest.builder()
+      .withId("test")
+      .withUri("foo")
+      .withLeader("bar")
+      .build();
+  }
+
+  /**
+   * Tests that the transfer request builder succeeds with a valid configuration.
+   */
+  public void testTransferRequestBuilderSucceedsWithValidConfiguration() {
+    TransferRequest request = TransferRequest.builder()
+      .withId("test")
+      .withUri("foo")
+      .withLeader("bar")
+      .withTerm(2)
+      .build();
+    assertEquals(request.id(), "test");
+    assertEquals(request.uri(), "foo");
+    assertEquals(request.leader(), "bar");
+    assertEquals(request.term(), 2);
+  }
+
+  /**
+   * Tests that the transfer response builder fails with an invalid term.
+   */
+  @Test(expectedExceptions = IllegalArgumentException.class)
+  public void testTransferResponseBuilderFailsWithInvalidTerm() {
+    TransferResponse.builder()
+      .withId("test")
+      .withUri("foo")
+      .withTerm(-1L)
+      .withSucceeded(true)
+      .build();
+  }
+
+  /**
+   * Tests that the transfer response builder succeeds with a valid configuration.
+   */
+  public void testTransferResponseBuilderSucceedsWithValidConfiguration() {
+    TransferResponse response = TransferResponse.builder()
+      .withId("test")
+      .withUri("foo")
+      .withTerm(1L)
+      .withSucceeded(true)
+      .build();
+    assertEquals(response.id(), "test");
+    assertEquals(response.uri(), "foo");
+    assertEquals(response.term(), 1);
+    assertTrue(response.succeeded());
+  }
+
+
+  /**
+   * Tests that the install request builder fails when not configured.
+   */
+  @Test(expectedExceptions = NullPointerException.class)
+  public void testInstallRequestBuilderFailsWithoutConfiguration() {
+    InstallRequest.builder().build();
+  }
+
+  /**
+   * Tests that the install request builder fails without data.
+   */
+  @Test(expectedExceptions = NullPointerException.class)
+  public void testInstallRequestBuilderFailsWithoutData() {
+    InstallRequest.builder()
+      .withId("test")
+      .withUri("foo")
+      .withLeader("bar")
+      .withTerm(1)
+      .withSnapshotIndex(10)
+      .withSnapshotTerm(1)
+      .build();
+  }
+
+  /**
+   * Tests that the install request builder fails with an invalid snapshot index.
+   */
+  @Test(expectedExceptions = IndexOutOfBoundsException.class)
+  public void testInstallRequestBuilderFailsWithInvalidSnapshotIndex() {
+    InstallRequest.builder()
+      .withId("test")
+      .withUri("foo")
+      .withLeader("bar")
+      .withTerm(1)
+      .withSnapshotIndex(0)
+      .withSnapshotTerm(1)
+      .withData(ByteBuffer.wrap("Hello world!".getBytes()))
+      .build();
+  }
+
+  /**
+   * Tests that the install request builder fails with a negative offset.
+   */
+  @Test(expectedExceptions = IllegalArgumentException.class)
+  public void testInstallRequestBuilderFailsWithInvalidOffset() {
+    InstallRequest.builder()
+      .withId("test")
+      .withUri("foo")
+      .withLeader("bar")
+      .withTerm(1)
+      .withSnapshotIndex(10)
+      .withSnapshotTerm(1)
+      .withOffset(-1)
+      .withData(ByteBuffer.wrap("Hello world!".getBytes()))
+      .build();
+  }
+
+  /**
+   * Tests that the install request builder succeeds with a valid configuration.
+   */
+  public void testInstallRequestBuilderSucceedsWithValidConfiguration() {
+    InstallRequest request = InstallRequest.builder()
+      .withId("test")
+      .withUri("foo")
+      .withLeader("bar")
+      .withTerm(2)
+      .withSnapshotIndex(10)
+      .withSnapshotTerm(1)
+      .withOffset(1024)
+      .withData(ByteBuffer.wrap("Hello world!".getBytes()))
+      .withComplete(true)
+      .build();
+    assertEquals(request.id(), "test");
+    assertEquals(request.uri(), "foo");
+    assertEquals(request.leader(), "bar");
+    assertEquals(request.term(), 2);
+    assertEquals(request.snapshotIndex(), 10);
+    assertEquals(request.snapshotTerm(), 1);
+    assertEquals(request.offset(), 1024);
+    assertEquals(new String(request.data().array()), "Hello world!");
+    assertTrue(request.complete());
+  }
+
+  /**
+   * Tests that the install response builder succeeds with a valid configuration.
+   */
+  public void testInstallResponseBuilderSucceedsWithValidConfiguration() {
+    InstallResponse response = InstallResponse.builder()
+      .withId("test")
+      .withUri("foo")
+      .withTerm(1L)
+      .withSucceeded(false)
+      .withOffset(2048)
+      .build();
+    assertEquals(response.id(), "test");
+    assertEquals(response.uri(), "foo");
+    assertEquals(response.term(), 1);
+    assertFalse(response.succeeded());
+    assertEquals(response.offset(), 2048);
+  }
+
+  /**
+   * Tests that the append response builder fails with an invalid conflict index.
+   */
+  @Test(expectedExceptions = IndexOutOfBoundsException.class)
+  public void testAppendResponseBuilderFailsWithInvalidConflictIndex() {
+    AppendResponse.builder()
+      .withId("test")
+      .withUri("foo")
+      .withTerm(2L)
+      .withSucceeded(false)
+      .withLogIndex(4L)
+      .withConflictTerm(1L)
+      .withConflictIndex(0L)
+      .build();
+  }
+
+  /**
+   * Tests that the append response builder succeeds with a conflicting term.
+   */
+  public void testAppendResponseBuilderSucceedsWithConflictTerm() {
+    AppendResponse response = AppendResponse.builder()
+      .withId("test")
+      .withUri("foo")
+      .withTerm(2L)
+      .withSucceeded(false)
+      .withLogIndex(4L)
+      .withConflictTerm(1L)
+      .withConflictIndex(2L)
+      .build();
+    assertEquals(response.id(), "test");
+    assertEquals(response.uri(), "foo");
+    assertEquals(response.term(), 2);
+    assertFalse(response.succeeded());
+    assertEquals(response.logIndex().longValue(), 4);
+    assertEquals(response.conflictTerm().longValue(), 1);
+    assertEquals(response.conflictIndex().longValue(), 2);
+  }
+
+  /**
+   * Tests that a reset append request builder builds a new request without modifying the previous request.
+   */
+  public void testAppendRequestBuilderResetBuildsNewRequest() {
+    AppendRequest.Builder builder = AppendRequest.builder();
+    AppendRequest first = builder.reset()
+      .withId("first")
+      .withUri("foo")
+      .withLeader("bar")
+      .withTerm(1)
+      .withEntries(ByteBuffer.wrap("Hello world!".getBytes()))
+      .withLogIndex(5L)
+      .withLogTerm(1L)
+      .withCommitIndex(4L)
+      .build();
+    AppendRequest second = builder.reset()
+      .withId("second")
+      .withUri("baz")
+      .withLeader("bar")
+      .withTerm(2)
+      .withEntries()
+      .build();
+    assertNotSame(first, second);
+    assertEquals(first.id(), "first");
+    assertEquals(first.uri(), "foo");
+    assertEquals(first.term(), 1);
+    assertEquals(first.entries().size(), 1);
+    assertEquals(first.logIndex().longValue(), 5);
+    assertEquals(second.id(), "second");
+    assertEquals(second.uri(), "baz");
+    assertEquals(second.term(), 2);
+    assertTrue(second.entries().isEmpty());
+    assertNull(second.logIndex());
+    assertNull(second.logTerm());
+    assertNull(second.commitIndex());
+  }
+
+  /**
+   * Tests that a reset ping request builder builds a new request without modifying the previous request.
+   */
+  public void testPingRequestBuilderResetBuildsNewRequest() {
+    PingRequest.Builder builder = PingRequest.builder();
+    PingRequest first = builder.reset()
+      .withId("first")
+      .withUri("foo")
+      .withLeader("bar")
+      .withTerm(1)
+      .withLogIndex(5L)
+      .withLogTerm(1L)
+      .withCommitIndex(4L)
+      .build();
+    PingRequest second = builder.reset()
+      .withId("second")
+      .withUri("foo")
+      .withLeader("bar")
+      .withTerm(1)
+      .build();
+    assertNotSame(first, second);
+    assertEquals(first.id(), "first");
+    assertEquals(first.logIndex().longValue(), 5);
+    assertEquals(first.commitIndex().longValue(), 4);
+    assertEquals(second.id(), "second");
+    assertNull(second.logIndex());
+    assertNull(second.commitIndex());
+  }
+
+  /**
+   * Tests that a reset append response builder does not carry fields over from the previous response.
+   */
+  public void testAppendResponseBuilderResetBuildsNewResponse() {
+    AppendResponse.Builder builder = AppendResponse.builder();
+    AppendResponse first = builder.reset()
+      .withId("first")
+      .withUri("foo")
+      .withTerm(2L)
+      .withSucceeded(false)
+      .withLogIndex(4L)
+      .withConflictTerm(1L)
+      .withConflictIndex(2L)
+      .build();
+    AppendResponse second = builder.reset()
+      .withId("second")
+      .withUri("foo")
+      .withTerm(2L)
+      .withSucceeded(true)
+      .withLogIndex(5L)
+      .build();
+    assertNotSame(first, second);
+    assertEquals(first.id(), "first");
+    assertFalse(first.succeeded());
+    assertEquals(first.logIndex().longValue(), 4);
+    assertEquals(first.conflictTerm().longValue(), 1);
+    assertEquals(second.id(), "second");
+    assertTrue(second.succeeded());
+    assertEquals(second.logIndex().longValue(), 5);
+    assertNull(second.conflictTerm());
+    assertNull(second.conflictIndex());
+  }
+
+  /**
+   * Tests that a reset ping response builder builds a new response without modifying the previous response.
+   */
+  public void testPingResponseBuilderResetBuildsNewResponse() {
+    PingResponse.Builder builder = PingResponse.builder();
+    PingResponse first = builder.reset()
+      .withId("first")
+      .withUri("foo")
+      .withTerm(1)
+      .withSucceeded(false)
+      .build();
+    PingResponse second = builder.reset()
+      .withId("second")
+      .withUri("foo")
+      .withTerm(2)
+      .withSucceeded(true)
+      .build();
+    assertNotSame(first, second);
+    assertEquals(first.id(), "first");
+    assertEquals(first.term(), 1);
+    assertFalse(first.succeeded());
+    assertEquals(second.id(), "second");
+    assertEquals(second.term(), 2);
+    assertTrue(second.succeeded());
+  }
+
 }
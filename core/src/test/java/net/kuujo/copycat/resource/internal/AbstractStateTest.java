@@ -0,0 +1,184 @@
+/*
+ * Copyright 2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.kuujo.copycat.resource.internal;
+
+import net.kuujo.copycat.cluster.MessageHandler;
+import net.kuujo.copycat.cluster.internal.coordinator.CoordinatedResourceConfig;
+import net.kuujo.copycat.log.BufferedLog;
+import net.kuujo.copycat.protocol.ProtocolException;
+import net.kuujo.copycat.protocol.rpc.CommitRequest;
+import net.kuujo.copycat.protocol.rpc.CommitResponse;
+import net.kuujo.copycat.protocol.rpc.Request;
+import net.kuujo.copycat.protocol.rpc.Response;
+import net.kuujo.copycat.util.concurrent.Futures;
+import org.testng.annotations.AfterMethod;
+
+import java.nio.ByteBuffer;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.function.BiFunction;
+import java.util.function.Consumer;
+
+/**
+ * Base test for Raft state tests.<p>
+ *
+ * Each member of the test cluster runs on its own executor, and requests are routed directly to the target member's
+ * state context. Members can be partitioned from the rest of the cluster, in which case all requests to and from
+ * the member fail.
+ *
+ * @author <a href="http://github.com/kuujo">Jordan Halterman</a>
+ */
+public abstract class AbstractStateTest {
+  protected static final long ELECTION_TIMEOUT = 500;
+  protected static final long HEARTBEAT_INTERVAL = 100;
+  protected final Map<String, CopycatStateContext> contexts = new ConcurrentHashMap<>();
+  protected final Set<String> partitions = Collections.newSetFromMap(new ConcurrentHashMap<>());
+
+  @AfterMethod
+  protected void closeCluster() throws Exception {
+    for (CopycatStateContext context : contexts.values()) {
+      try {
+        context.close().get(5, TimeUnit.SECONDS);
+      } catch (Exception e) {
+      }
+      context.executor().shutdownNow();
+    }
+    contexts.clear();
+    partitions.clear();
+  }
+
+  /**
+   * Creates a cluster of state contexts for the given members without opening them.
+   */
+  protected List<CopycatStateContext> createCluster(String... members) {
+    return createCluster(config -> {}, members);
+  }
+
+  /**
+   * Creates a cluster of state contexts for the given members without opening them, applying the given changes to
+   * the configuration of each member.
+   */
+  protected List<CopycatStateContext> createCluster(Consumer<CoordinatedResourceConfig> configurator, String... members) {
+    List<CopycatStateContext> cluster = new ArrayList<>();
+    for (String member : members) {
+      cluster.add(createContext(member, config -> configurator.accept(config.withReplicas(members))));
+    }
+    return cluster;
+  }
+
+  /**
+   * Creates a state context for the given member without opening it.
+   */
+  protected CopycatStateContext createContext(String member, Consumer<CoordinatedResourceConfig> configurator) {
+    CoordinatedResourceConfig config = new CoordinatedResourceConfig()
+      .withElectionTimeout(ELECTION_TIMEOUT)
+      .withHeartbeatInterval(HEARTBEAT_INTERVAL)
+      .withLog(new BufferedLog());
+    configurator.accept(config);
+    CopycatStateContext context = new CopycatStateContext("test", member, config, Executors.newSingleThreadScheduledExecutor());
+    context.consumer((index, entry) -> ByteBuffer.allocate(0));
+    context.syncHandler(route(member, CopycatStateContext::sync));
+    context.pingHandler(route(member, CopycatStateContext::ping));
+    context.pollHandler(route(member, CopycatStateContext::poll));
+    context.appendHandler(route(member, CopycatStateContext::append));
+    context.queryHandler(route(member, CopycatStateContext::query));
+    context.commitHandler(route(member, CopycatStateContext::commit));
+    context.transferHandler(route(member, CopycatStateContext::transfer));
+    context.installHandler(route(member, CopycatStateContext::install));
+    context.connectionHandler(uri -> !partitions.contains(member) && !partitions.contains(uri));
+    contexts.put(member, context);
+    return context;
+  }
+
+  /**
+   * Returns a message handler that routes requests from the given member to the target member's state context.
+   */
+  private <T extends Request, U extends Response> MessageHandler<T, U> route(String member, BiFunction<CopycatStateContext, T, CompletableFuture<U>> handler) {
+    return request -> deliver(member, request).thenCompose(r -> {
+      CopycatStateContext context = contexts.get(r.uri());
+      if (context == null || partitions.contains(member) || partitions.contains(r.uri())) {
+        return Futures.exceptionalFuture(new ProtocolException("Failed to connect to " + r.uri()));
+      }
+      return handler.apply(context, r);
+    });
+  }
+
+  /**
+   * Delivers a request from the given member. Tests can override this method to delay or drop requests.
+   */
+  protected <T extends Request> CompletableFuture<T> deliver(String member, T request) {
+    return CompletableFuture.completedFuture(request);
+  }
+
+  /**
+   * Submits a commit of the given entry to the given member.
+   */
+  protected CompletableFuture<CommitResponse> submit(CopycatStateContext context, ByteBuffer entry) {
+    return context.commit(CommitRequest.builder()
+      .withId(context.nextRequestId())
+      .withUri(context.getLocalMember())
+      .withEntry(entry)
+      .build());
+  }
+
+  /**
+   * Runs the given callable on the state context's thread and returns the result.
+   */
+  protected <T> T execute(CopycatStateContext context, Callable<T> callable) throws Exception {
+    return context.executor().submit(callable).get(5, TimeUnit.SECONDS);
+  }
+
+  /**
+   * Waits for the given condition to be met by every member of the cluster.
+   */
+  protected boolean await(BiFunction<CopycatStateContext, String, Boolean> condition, long timeout) throws Exception {
+    long end = System.currentTimeMillis() + timeout;
+    while (System.currentTimeMillis() < end) {
+      boolean met = true;
+      for (Map.Entry<String, CopycatStateContext> entry : contexts.entrySet()) {
+        if (!execute(entry.getValue(), () -> condition.apply(entry.getValue(), entry.getKey()))) {
+          met = false;
+          break;
+        }
+      }
+      if (met) {
+        return true;
+      }
+      Thread.sleep(10);
+    }
+    return false;
+  }
+
+  /**
+   * Waits for a single leader to be elected and known by every member of the cluster.
+   */
+  protected CopycatStateContext awaitLeader(long timeout) throws Exception {
+    long end = System.currentTimeMillis() + timeout;
+    while (System.currentTimeMillis() < end) {
+      for (CopycatStateContext context : contexts.values()) {
+        if (!partitions.contains(context.getLocalMember()) && execute(context, context::state) == CopycatState.LEADER) {
+          String leader = context.getLocalMember();
+          if (await((c, m) -> partitions.contains(m) || leader.equals(c.getLeader()), timeout)) {
+            return context;
+          }
+        }
+      }
+      Thread.sleep(10);
+    }
+    return null;
+  }
+
+}
@@ -0,0 +1,123 @@
+/*
+ * Copyright 2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.kuujo.copycat.resource.internal;
+
+import net.kuujo.copycat.protocol.rpc.CommitResponse;
+import net.kuujo.copycat.protocol.rpc.Response;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Leader commit batching test.
+ *
+ * @author <a href="http://github.com/kuujo">Jordan Halterman</a>
+ */
+@Test
+public class CommitBatchTest extends AbstractStateTest {
+
+  /**
+   * Submits the given number of commits to the given leader.
+   */
+  private List<CompletableFuture<CommitResponse>> submit(CopycatStateContext leader, int count) {
+    List<CompletableFuture<CommitResponse>> futures = new ArrayList<>(count);
+    for (int i = 0; i < count; i++) {
+      futures.add(submit(leader, ByteBuffer.wrap("Hello world!".getBytes())));
+    }
+    return futures;
+  }
+
+  /**
+   * Asserts that all of the given commits complete successfully.
+   */
+  private void assertCommitted(List<CompletableFuture<CommitResponse>> futures) throws Exception {
+    for (CompletableFuture<CommitResponse> future : futures) {
+      Assert.assertEquals(future.get(ELECTION_TIMEOUT, TimeUnit.MILLISECONDS).status(), Response.Status.OK);
+    }
+  }
+
+  /**
+   * Asserts that none of the given commits have completed.
+   */
+  private void assertPending(List<CompletableFuture<CommitResponse>> futures) {
+    for (CompletableFuture<CommitResponse> future : futures) {
+      Assert.assertFalse(future.isDone());
+    }
+  }
+
+  /**
+   * Tests that a batch is flushed as soon as it reaches the batch size.
+   */
+  public void testFlushOnBatchSize() throws Exception {
+    createCluster(config -> config.withCommitBatchSize(4).withCommitBatchWindow(ELECTION_TIMEOUT * 20), "local://foo").forEach(CopycatStateContext::open);
+    CopycatStateContext leader = awaitLeader(ELECTION_TIMEOUT * 10);
+    Assert.assertNotNull(leader);
+
+    // One commit short of the batch size, the batch waits on the batch window.
+    List<CompletableFuture<CommitResponse>> batch = submit(leader, 3);
+    Thread.sleep(HEARTBEAT_INTERVAL * 2);
+    assertPending(batch);
+    Assert.assertNull(execute(leader, () -> leader.log().lastIndex()));
+
+    // The commit that fills the batch flushes the entire batch at once.
+    batch.addAll(submit(leader, 1));
+    assertCommitted(batch);
+    Assert.assertEquals(execute(leader, () -> leader.log().lastIndex()), Long.valueOf(4));
+
+    // The next commit starts a new batch.
+    List<CompletableFuture<CommitResponse>> next = submit(leader, 1);
+    Thread.sleep(HEARTBEAT_INTERVAL * 2);
+    assertPending(next);
+  }
+
+  /**
+   * Tests that a partial batch is flushed once the batch window expires.
+   */
+  public void testFlushOnBatchWindow() throws Exception {
+    createCluster(config -> config.withCommitBatchSize(1024).withCommitBatchWindow(HEARTBEAT_INTERVAL * 3), "local://foo", "local://bar", "local://baz").forEach(CopycatStateContext::open);
+    CopycatStateContext leader = awaitLeader(ELECTION_TIMEOUT * 10);
+    Assert.assertNotNull(leader);
+
+    List<CompletableFuture<CommitResponse>> batch = submit(leader, 3);
+    Thread.sleep(HEARTBEAT_INTERVAL);
+    assertPending(batch);
+    assertCommitted(batch);
+    Assert.assertEquals(execute(leader, () -> leader.log().lastIndex()), Long.valueOf(3));
+  }
+
+  /**
+   * Tests that commits that have not yet been flushed are failed when the leader steps down.
+   */
+  public void testPendingCommitsFailedOnClose() throws Exception {
+    createCluster(config -> config.withCommitBatchWindow(ELECTION_TIMEOUT * 20), "local://foo").forEach(CopycatStateContext::open);
+    CopycatStateContext leader = awaitLeader(ELECTION_TIMEOUT * 10);
+    Assert.assertNotNull(leader);
+
+    List<CompletableFuture<CommitResponse>> batch = submit(leader, 3);
+    Thread.sleep(HEARTBEAT_INTERVAL);
+    assertPending(batch);
+    leader.close().get(5, TimeUnit.SECONDS);
+    for (CompletableFuture<CommitResponse> future : batch) {
+      Assert.assertEquals(future.get(5, TimeUnit.SECONDS).status(), Response.Status.ERROR);
+    }
+  }
+
+}
@@ -0,0 +1,198 @@
+/*
+ * Copyright 2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.kuujo.copycat.resource.internal;
+
+import net.kuujo.copycat.cluster.ClusterConfig;
+import net.kuujo.copycat.cluster.internal.coordinator.CoordinatedResourceConfig;
+import net.kuujo.copycat.cluster.internal.coordinator.CoordinatorConfig;
+import net.kuujo.copycat.cluster.internal.coordinator.DefaultClusterCoordinator;
+import net.kuujo.copycat.log.BufferedLog;
+import net.kuujo.copycat.protocol.LocalProtocol;
+import net.kuujo.copycat.resource.CommitOverflowPolicy;
+import net.kuujo.copycat.resource.ResourceException;
+import org.testng.Assert;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.Test;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Resource context commit backpressure test.
+ *
+ * @author <a href="http://github.com/kuujo">Jordan Halterman</a>
+ */
+@Test
+public class DefaultResourceContextTest {
+  private static final long COMMIT_WINDOW = 1000;
+  private DefaultClusterCoordinator coordinator;
+  private ResourceContext context;
+
+  @AfterMethod
+  public void closeCoordinator() throws Exception {
+    if (coordinator != null) {
+      coordinator.close().get(10, TimeUnit.SECONDS);
+      coordinator = null;
+    }
+    context = null;
+  }
+
+  /**
+   * Opens a single member resource context with the given pending commit limit and overflow policy.
+   *
+   * Commits are held in the leader's commit batch until the batch window expires, so each commit stays pending for
+   * roughly one commit window.
+   */
+  private ResourceContext createContext(int limit, CommitOverflowPolicy policy) throws Exception {
+    coordinator = new DefaultClusterCoordinator("local://foo", new CoordinatorConfig()
+      .withName("test")
+      .withClusterConfig(new ClusterConfig()
+        .withProtocol(new LocalProtocol())
+        .withMembers("local://foo")));
+    coordinator.open().get(10, TimeUnit.SECONDS);
+
+    coordinator.getResource("test", new CoordinatedResourceConfig()
+      .withResourceFactory(context -> {
+        this.context = context;
+        return null;
+      })
+      .withReplicas("local://foo")
+      .withElectionTimeout(500)
+      .withHeartbeatInterval(100)
+      .withCommitBatchWindow(COMMIT_WINDOW)
+      .withCommitPendingLimit(limit)
+      .withCommitOverflowPolicy(policy)
+      .withLog(new BufferedLog()));
+    context.open().get(10, TimeUnit.SECONDS);
+    context.consumer((index, entry) -> entry);
+
+    long start = System.currentTimeMillis();
+    while (context.state() != CopycatState.LEADER) {
+      Assert.assertTrue(System.currentTimeMillis() - start < 10000, "No leader elected");
+      Thread.sleep(10);
+    }
+    return context;
+  }
+
+  /**
+   * Returns a commit entry.
+   */
+  private ByteBuffer entry() {
+    return ByteBuffer.wrap("Hello world!".getBytes());
+  }
+
+  /**
+   * Returns the cause of a commit failure.
+   */
+  private Throwable failure(CompletableFuture<ByteBuffer> future) throws Exception {
+    try {
+      future.get(COMMIT_WINDOW * 5, TimeUnit.MILLISECONDS);
+    } catch (ExecutionException e) {
+      return e.getCause();
+    }
+    Assert.fail("Commit did not fail");
+    return null;
+  }
+
+  /**
+   * Tests that commits are rejected immediately once the pending commit limit is reached.
+   */
+  public void testRejectOverflowPolicy() throws Exception {
+    ResourceContext context = createContext(2, CommitOverflowPolicy.REJECT);
+    CompletableFuture<ByteBuffer> first = context.commit(entry());
+    CompletableFuture<ByteBuffer> second = context.commit(entry());
+    Assert.assertEquals(context.pendingCommits(), 2);
+
+    CompletableFuture<ByteBuffer> rejected = context.commit(entry());
+    Assert.assertTrue(rejected.isCompletedExceptionally());
+    Assert.assertTrue(failure(rejected) instanceof ResourceException);
+    Assert.assertEquals(context.pendingCommits(), 2);
+
+    // Once pending commits complete, new commits are accepted again.
+    first.get(COMMIT_WINDOW * 5, TimeUnit.MILLISECONDS);
+    second.get(COMMIT_WINDOW * 5, TimeUnit.MILLISECONDS);
+    context.commit(entry()).get(COMMIT_WINDOW * 5, TimeUnit.MILLISECONDS);
+  }
+
+  /**
+   * Tests that a blocked producer wakes up and commits once a pending commit is released.
+   */
+  public void testBlockOverflowPolicy() throws Exception {
+    ResourceContext context = createContext(2, CommitOverflowPolicy.BLOCK);
+    CompletableFuture<ByteBuffer> first = context.commit(entry());
+    CompletableFuture<ByteBuffer> second = context.commit(entry());
+
+    CompletableFuture<CompletableFuture<ByteBuffer>> blocked = new CompletableFuture<>();
+    Thread producer = new Thread(() -> blocked.complete(context.commit(entry())));
+    producer.start();
+
+    // The producer stays blocked while both commits are pending.
+    Thread.sleep(COMMIT_WINDOW / 4);
+    Assert.assertFalse(blocked.isDone());
+    Assert.assertTrue(producer.isAlive());
+    Assert.assertEquals(context.pendingCommits(), 2);
+
+    // Releasing the pending commits wakes the producer, and its commit is submitted rather than failed.
+    first.get(COMMIT_WINDOW * 5, TimeUnit.MILLISECONDS);
+    second.get(COMMIT_WINDOW * 5, TimeUnit.MILLISECONDS);
+    producer.join(COMMIT_WINDOW * 5);
+    Assert.assertFalse(producer.isAlive());
+    blocked.get().get(COMMIT_WINDOW * 5, TimeUnit.MILLISECONDS);
+  }
+
+  /**
+   * Tests that a producer blocked on the pending commit limit is failed when the context is closed.
+   */
+  public void testBlockedCommitFailedOnClose() throws Exception {
+    ResourceContext context = createContext(1, CommitOverflowPolicy.BLOCK);
+    context.commit(entry());
+
+    CompletableFuture<CompletableFuture<ByteBuffer>> blocked = new CompletableFuture<>();
+    Thread producer = new Thread(() -> blocked.complete(context.commit(entry())));
+    producer.start();
+    Thread.sleep(COMMIT_WINDOW / 4);
+    Assert.assertFalse(blocked.isDone());
+
+    context.close().get(10, TimeUnit.SECONDS);
+    producer.join(COMMIT_WINDOW * 5);
+    Assert.assertFalse(producer.isAlive());
+    Assert.assertTrue(failure(blocked.get()) instanceof IllegalStateException);
+  }
+
+  /**
+   * Tests that the oldest queued commit is shed once the queue is full.
+   */
+  public void testShedOverflowPolicy() throws Exception {
+    ResourceContext context = createContext(1, CommitOverflowPolicy.SHED);
+    CompletableFuture<ByteBuffer> inflight = context.commit(entry());
+    CompletableFuture<ByteBuffer> oldest = context.commit(entry());
+    Assert.assertFalse(oldest.isDone());
+    Assert.assertEquals(context.pendingCommits(), 2);
+
+    CompletableFuture<ByteBuffer> newest = context.commit(entry());
+    Assert.assertTrue(oldest.isCompletedExceptionally());
+    Assert.assertTrue(failure(oldest) instanceof ResourceException);
+    Assert.assertEquals(context.pendingCommits(), 2);
+
+    // The in-flight commit completes and the queued commit is submitted in its place.
+    inflight.get(COMMIT_WINDOW * 5, TimeUnit.MILLISECONDS);
+    newest.get(COMMIT_WINDOW * 5, TimeUnit.MILLISECONDS);
+    Assert.assertEquals(context.pendingCommits(), 0);
+  }
+
+}
@@ -0,0 +1,118 @@
+/*
+ * Copyright 2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.kuujo.copycat.resource.internal;
+
+import net.kuujo.copycat.protocol.rpc.PollRequest;
+import net.kuujo.copycat.protocol.rpc.Request;
+import net.kuujo.copycat.resource.ElectionMode;
+import org.testng.Assert;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.Test;
+
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Leader election test.
+ *
+ * @author <a href="http://github.com/kuujo">Jordan Halterman</a>
+ */
+@Test
+public class ElectionTest extends AbstractStateTest {
+  private volatile CompletableFuture<Void> votesCast;
+
+  @AfterMethod
+  protected void resetVotes() {
+    votesCast = null;
+  }
+
+  @Override
+  protected <T extends Request> CompletableFuture<T> deliver(String member, T request) {
+    // Hold vote requests for other members until every member has voted for itself.
+    CompletableFuture<Void> votesCast = this.votesCast;
+    if (votesCast != null && request instanceof PollRequest && !((PollRequest) request).preVote() && !request.uri().equals(member)) {
+      return votesCast.thenApply(v -> request);
+    }
+    return super.deliver(member, request);
+  }
+
+  /**
+   * Tests that a leader is elected when a new cluster is started.
+   */
+  public void testElectLeader() throws Exception {
+    createCluster("local://foo", "local://bar", "local://baz").forEach(CopycatStateContext::open);
+    Assert.assertNotNull(awaitLeader(ELECTION_TIMEOUT * 10));
+  }
+
+  /**
+   * Tests that a leader is elected after three candidates start an election at once and split the vote.
+   */
+  public void testSplitVoteElectsLeader() throws Exception {
+    votesCast = new CompletableFuture<>();
+    List<CopycatStateContext> cluster = createCluster("local://foo", "local://bar", "local://baz");
+    for (CopycatStateContext context : cluster) {
+      context.open();
+      context.executor().execute(() -> context.transition(CopycatState.CANDIDATE));
+    }
+
+    // Once every candidate has voted for itself, release the vote requests so that all three elections are rejected.
+    Assert.assertTrue(await((context, member) -> member.equals(context.getLastVotedFor()), ELECTION_TIMEOUT));
+    votesCast.complete(null);
+    Assert.assertTrue(await((context, member) -> context.state() == CopycatState.FOLLOWER, ELECTION_TIMEOUT * 2));
+
+    // Each candidate has backed off to follower having voted for itself in the current term. A leader must still be
+    // elected by the next pre-vote.
+    Assert.assertNotNull(awaitLeader(ELECTION_TIMEOUT * 10));
+  }
+
+  /**
+   * Tests that in the ranked election mode an up to date follower times out within the first half of the election
+   * timeout range and a lagging follower times out within the second half.
+   */
+  public void testRankedElectionTimeout() throws Exception {
+    createCluster(config -> config.withElectionMode(ElectionMode.RANKED), "local://foo", "local://bar", "local://baz").forEach(CopycatStateContext::open);
+    CopycatStateContext leader = awaitLeader(ELECTION_TIMEOUT * 10);
+    Assert.assertNotNull(leader);
+    submit(leader, ByteBuffer.wrap("Hello world!".getBytes())).get(5, TimeUnit.SECONDS);
+    Long lastIndex = execute(leader, () -> leader.log().lastIndex());
+    Assert.assertTrue(await((context, member) -> lastIndex.equals(context.log().lastIndex()), ELECTION_TIMEOUT * 2));
+
+    CopycatStateContext follower = contexts.values().stream().filter(c -> c != leader).findFirst().get();
+    Assert.assertTrue(execute(follower, () -> {
+      FollowerState state = new FollowerState(follower);
+      state.updateLeaderIndex(lastIndex);
+      for (int i = 0; i < 100; i++) {
+        long timeout = state.getRankedTimeout();
+        if (timeout < ELECTION_TIMEOUT || timeout >= ELECTION_TIMEOUT + ELECTION_TIMEOUT / 2) {
+          return false;
+        }
+      }
+
+      // Once the leader is known to have written entries the follower doesn't have, it backs off.
+      state.updateLeaderIndex(lastIndex + 1);
+      for (int i = 0; i < 100; i++) {
+        long timeout = state.getRankedTimeout();
+        if (timeout < ELECTION_TIMEOUT + ELECTION_TIMEOUT / 2 || timeout >= ELECTION_TIMEOUT * 2) {
+          return false;
+        }
+      }
+      return true;
+    }));
+  }
+
+}
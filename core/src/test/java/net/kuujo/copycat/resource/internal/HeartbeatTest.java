@@ -0,0 +1,103 @@
+/*
+ * Copyright 2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.kuujo.copycat.resource.internal;
+
+import net.kuujo.copycat.protocol.rpc.PingRequest;
+import net.kuujo.copycat.protocol.rpc.Request;
+import net.kuujo.copycat.protocol.rpc.Response;
+import org.testng.Assert;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.Test;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Leader heartbeat test.
+ *
+ * @author <a href="http://github.com/kuujo">Jordan Halterman</a>
+ */
+@Test
+public class HeartbeatTest extends AbstractStateTest {
+  private final Queue<Long> pings = new ConcurrentLinkedQueue<>();
+  private volatile boolean recording;
+
+  @AfterMethod
+  protected void resetPings() {
+    recording = false;
+    pings.clear();
+  }
+
+  @Override
+  protected <T extends Request> CompletableFuture<T> deliver(String member, T request) {
+    if (recording && request instanceof PingRequest && !request.uri().equals(member)) {
+      pings.add(System.currentTimeMillis());
+    }
+    return super.deliver(member, request);
+  }
+
+  /**
+   * Tests that the heartbeat interval of an idle leader stretches up to half the election timeout.
+   */
+  public void testIdleHeartbeatInterval() throws Exception {
+    createCluster("local://foo", "local://bar").forEach(CopycatStateContext::open);
+    CopycatStateContext leader = awaitLeader(ELECTION_TIMEOUT * 10);
+    Assert.assertNotNull(leader);
+    long term = leader.getTerm();
+
+    // Once the leader has been idle for a few intervals, its heartbeats are sent every half election timeout.
+    Thread.sleep(ELECTION_TIMEOUT * 2);
+    recording = true;
+    Thread.sleep(ELECTION_TIMEOUT * 2);
+    recording = false;
+
+    List<Long> times = new ArrayList<>(pings);
+    Assert.assertTrue(times.size() >= 3 && times.size() <= 5, "Unexpected number of heartbeats: " + times.size());
+    for (int i = 1; i < times.size(); i++) {
+      long interval = times.get(i) - times.get(i - 1);
+      Assert.assertTrue(interval > HEARTBEAT_INTERVAL * 3 / 2, "Heartbeat interval not stretched: " + interval);
+      Assert.assertTrue(interval < ELECTION_TIMEOUT / 2 + HEARTBEAT_INTERVAL / 2, "Heartbeat interval not capped: " + interval);
+    }
+
+    // The stretched interval never allows a follower's election timer to expire.
+    Assert.assertTrue(await((context, member) -> context.getTerm() == term && leader.getLocalMember().equals(context.getLeader()), ELECTION_TIMEOUT));
+  }
+
+  /**
+   * Tests that replicas that have recently received entries are not sent heartbeats.
+   */
+  public void testNoHeartbeatsWhileReplicating() throws Exception {
+    createCluster("local://foo", "local://bar", "local://baz").forEach(CopycatStateContext::open);
+    CopycatStateContext leader = awaitLeader(ELECTION_TIMEOUT * 10);
+    Assert.assertNotNull(leader);
+
+    // Commit entries more frequently than the heartbeat interval. Without skipping replicas that were just sent
+    // entries, each follower would receive a heartbeat every interval.
+    recording = true;
+    for (int i = 0; i < 20; i++) {
+      Assert.assertEquals(submit(leader, ByteBuffer.wrap("Hello world!".getBytes())).get(5, TimeUnit.SECONDS).status(), Response.Status.OK);
+      Thread.sleep(HEARTBEAT_INTERVAL / 2);
+    }
+    recording = false;
+    Assert.assertTrue(pings.size() < 5, "Unexpected number of heartbeats: " + pings.size());
+  }
+
+}
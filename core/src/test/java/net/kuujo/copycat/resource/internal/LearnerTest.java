@@ -0,0 +1,114 @@
+/*
+ * Copyright 2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.kuujo.copycat.resource.internal;
+
+import net.kuujo.copycat.cluster.ClusterConfig;
+import net.kuujo.copycat.cluster.internal.coordinator.CoordinatedResourceConfig;
+import net.kuujo.copycat.protocol.rpc.CommitResponse;
+import net.kuujo.copycat.protocol.rpc.Response;
+import net.kuujo.copycat.resource.ResourceConfig;
+import net.kuujo.copycat.util.ConfigurationException;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Learner replication test.
+ *
+ * @author <a href="http://github.com/kuujo">Jordan Halterman</a>
+ */
+@Test
+public class LearnerTest extends AbstractStateTest {
+
+  /**
+   * Tests that entries are streamed to a learner but the learner is never counted towards the commit quorum.
+   */
+  public void testLearnerNotCountedInQuorum() throws Exception {
+    createCluster(config -> config.withReplicas("local://foo", "local://bar").withLearners("local://baz"), "local://foo", "local://bar", "local://baz").forEach(CopycatStateContext::open);
+    CopycatStateContext leader = awaitLeader(ELECTION_TIMEOUT * 10);
+    Assert.assertNotNull(leader);
+    CopycatStateContext learner = contexts.get("local://baz");
+    Assert.assertEquals(execute(learner, learner::state), CopycatState.LEARNER);
+
+    // Committed entries are streamed to the learner.
+    Assert.assertEquals(submit(leader, ByteBuffer.wrap("Hello world!".getBytes())).get(5, TimeUnit.SECONDS).status(), Response.Status.OK);
+    Long lastIndex = execute(leader, () -> leader.log().lastIndex());
+    Assert.assertTrue(await((context, member) -> lastIndex.equals(context.log().lastIndex()), ELECTION_TIMEOUT * 2));
+
+    // With the other replica unreachable, the leader and the learner alone cannot commit entries.
+    String follower = leader.getLocalMember().equals("local://foo") ? "local://bar" : "local://foo";
+    partitions.add(follower);
+    CompletableFuture<CommitResponse> future = submit(leader, ByteBuffer.wrap("Hello world!".getBytes()));
+    Thread.sleep(ELECTION_TIMEOUT * 2);
+    Assert.assertFalse(future.isDone() && future.get().status() == Response.Status.OK);
+    Assert.assertEquals(execute(learner, learner::state), CopycatState.LEARNER);
+  }
+
+  /**
+   * Tests that a learner never votes in elections.
+   */
+  public void testLearnerNeverStartsElection() throws Exception {
+    createCluster(config -> config.withReplicas("local://foo", "local://bar").withLearners("local://baz"), "local://foo", "local://bar", "local://baz").forEach(CopycatStateContext::open);
+    CopycatStateContext leader = awaitLeader(ELECTION_TIMEOUT * 10);
+    Assert.assertNotNull(leader);
+
+    // With both replicas unreachable, the learner stays a learner rather than starting an election.
+    CopycatStateContext learner = contexts.get("local://baz");
+    long term = execute(learner, learner::getTerm);
+    partitions.add("local://foo");
+    partitions.add("local://bar");
+    Thread.sleep(ELECTION_TIMEOUT * 4);
+    Assert.assertEquals(execute(learner, learner::state), CopycatState.LEARNER);
+    Assert.assertEquals(execute(learner, learner::getTerm).longValue(), term);
+  }
+
+  /**
+   * Tests that a member configured as both a learner and a replica is rejected.
+   */
+  @Test(expectedExceptions = ConfigurationException.class)
+  public void testLearnerOverlappingReplicaRejected() {
+    createContext("local://bar", config -> config.withReplicas("local://foo", "local://bar").withLearners("local://bar"));
+  }
+
+  /**
+   * Tests that learners are excluded from the default set of replicas.
+   */
+  public void testLearnersExcludedFromDefaultReplicas() {
+    ClusterConfig cluster = new ClusterConfig().withMembers("local://foo", "local://bar", "local://baz");
+    CoordinatedResourceConfig config = new TestResourceConfig().withLearners("local://baz").resolve(cluster);
+    Assert.assertEquals(config.getReplicas(), new HashSet<>(Arrays.asList("local://foo", "local://bar")));
+
+    config = new TestResourceConfig().withReplicas("local://foo").withLearners("local://baz").resolve(cluster);
+    Assert.assertEquals(config.getReplicas(), new HashSet<>(Arrays.asList("local://foo")));
+  }
+
+  /**
+   * Test resource configuration.
+   */
+  private static class TestResourceConfig extends ResourceConfig<TestResourceConfig> {
+    @Override
+    public CoordinatedResourceConfig resolve(ClusterConfig cluster) {
+      return new CoordinatedResourceConfig(super.toMap())
+        .withReplicas(resolveReplicas(cluster));
+    }
+  }
+
+}
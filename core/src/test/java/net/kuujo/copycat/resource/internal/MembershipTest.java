@@ -0,0 +1,124 @@
+/*
+ * Copyright 2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.kuujo.copycat.resource.internal;
+
+import net.kuujo.copycat.protocol.rpc.CommitResponse;
+import net.kuujo.copycat.protocol.rpc.Response;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Membership change test.
+ *
+ * @author <a href="http://github.com/kuujo">Jordan Halterman</a>
+ */
+@Test
+public class MembershipTest extends AbstractStateTest {
+
+  /**
+   * Commits an entry to the given leader.
+   */
+  private CompletableFuture<CommitResponse> commit(CopycatStateContext leader) {
+    return submit(leader, ByteBuffer.wrap("Hello world!".getBytes()));
+  }
+
+  /**
+   * Returns a set of the given members.
+   */
+  private Set<String> members(String... members) {
+    return new HashSet<>(Arrays.asList(members));
+  }
+
+  /**
+   * Tests adding a voting member to the cluster.
+   */
+  public void testAddMember() throws Exception {
+    createCluster("local://foo", "local://bar", "local://baz").forEach(CopycatStateContext::open);
+    CopycatStateContext leader = awaitLeader(ELECTION_TIMEOUT * 10);
+    Assert.assertNotNull(leader);
+    Assert.assertEquals(commit(leader).get(5, TimeUnit.SECONDS).status(), Response.Status.OK);
+
+    // The new member is not configured as a replica, so it starts out passive. It isn't known to the cluster, so it
+    // doesn't find the leader until it has been added.
+    CopycatStateContext member = createContext("local://qux", config -> config.withReplicas("local://foo", "local://bar", "local://baz"));
+    CompletableFuture<Void> openFuture = member.open();
+    Thread.sleep(HEARTBEAT_INTERVAL * 2);
+    Assert.assertEquals(execute(member, member::state), CopycatState.PASSIVE);
+
+    leader.addActiveMember("local://qux").get(ELECTION_TIMEOUT * 10, TimeUnit.MILLISECONDS);
+    openFuture.get(ELECTION_TIMEOUT * 2, TimeUnit.MILLISECONDS);
+    Set<String> expected = members("local://foo", "local://bar", "local://baz", "local://qux");
+    Assert.assertTrue(await((context, uri) -> context.getActiveMembers().equals(expected) && !context.getMembership().isJoint(), ELECTION_TIMEOUT * 10));
+    Assert.assertEquals(execute(member, member::state), CopycatState.FOLLOWER);
+    Assert.assertEquals(member.getLeader(), leader.getLocalMember());
+
+    // The new member has caught up with the leader's log and stays a follower.
+    Assert.assertEquals(commit(leader).get(5, TimeUnit.SECONDS).status(), Response.Status.OK);
+    Long lastIndex = execute(leader, () -> leader.log().lastIndex());
+    Assert.assertTrue(await((context, uri) -> lastIndex.equals(context.log().lastIndex()), ELECTION_TIMEOUT * 4));
+    Thread.sleep(ELECTION_TIMEOUT * 2);
+    Assert.assertEquals(execute(member, member::state), CopycatState.FOLLOWER);
+  }
+
+  /**
+   * Tests removing a voting member from the cluster.
+   */
+  public void testRemoveMember() throws Exception {
+    createCluster("local://foo", "local://bar", "local://baz").forEach(CopycatStateContext::open);
+    CopycatStateContext leader = awaitLeader(ELECTION_TIMEOUT * 10);
+    Assert.assertNotNull(leader);
+
+    String[] followers = contexts.keySet().stream().filter(uri -> !uri.equals(leader.getLocalMember())).toArray(String[]::new);
+    leader.removeActiveMember(followers[0]).get(ELECTION_TIMEOUT * 10, TimeUnit.MILLISECONDS);
+    Assert.assertEquals(execute(leader, leader::getActiveMembers), members(leader.getLocalMember(), followers[1]));
+
+    // The removed member no longer counts towards the quorum, so with the remaining follower unreachable the leader
+    // can't commit entries even though the removed member is reachable.
+    partitions.add(followers[1]);
+    CompletableFuture<CommitResponse> future = commit(leader);
+    Thread.sleep(ELECTION_TIMEOUT * 2);
+    Assert.assertFalse(future.isDone() && future.get().status() == Response.Status.OK);
+  }
+
+  /**
+   * Tests the leader removing itself from the cluster.
+   */
+  public void testLeaderRemovesItself() throws Exception {
+    createCluster("local://foo", "local://bar", "local://baz").forEach(CopycatStateContext::open);
+    CopycatStateContext leader = awaitLeader(ELECTION_TIMEOUT * 10);
+    Assert.assertNotNull(leader);
+
+    String removed = leader.getLocalMember();
+    leader.removeActiveMember(removed).get(ELECTION_TIMEOUT * 10, TimeUnit.MILLISECONDS);
+    Assert.assertTrue(await((context, uri) -> !uri.equals(removed) || context.state() == CopycatState.PASSIVE, ELECTION_TIMEOUT * 4));
+
+    // The remaining members elect a new leader among themselves and can commit entries without the removed member.
+    partitions.add(removed);
+    CopycatStateContext newLeader = awaitLeader(ELECTION_TIMEOUT * 10);
+    Assert.assertNotNull(newLeader);
+    Assert.assertNotEquals(newLeader.getLocalMember(), removed);
+    Assert.assertFalse(execute(newLeader, newLeader::getActiveMembers).contains(removed));
+    Assert.assertEquals(commit(newLeader).get(5, TimeUnit.SECONDS).status(), Response.Status.OK);
+  }
+
+}
@@ -0,0 +1,117 @@
+/*
+ * Copyright 2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.kuujo.copycat.resource.internal;
+
+import net.kuujo.copycat.protocol.rpc.CommitResponse;
+import net.kuujo.copycat.protocol.rpc.Response;
+import net.kuujo.copycat.resource.ReplicationMode;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Replication mode test.
+ *
+ * @author <a href="http://github.com/kuujo">Jordan Halterman</a>
+ */
+@Test
+public class ReplicationModeTest extends AbstractStateTest {
+  private final Map<String, List<String>> applied = new ConcurrentHashMap<>();
+
+  /**
+   * Creates and opens a cluster in the given replication mode that records the entries each member applies.
+   */
+  private CopycatStateContext createCluster(ReplicationMode mode) throws Exception {
+    applied.clear();
+    for (CopycatStateContext context : createCluster(config -> config.withReplicationMode(mode), "local://foo", "local://bar", "local://baz")) {
+      List<String> entries = new CopyOnWriteArrayList<>();
+      applied.put(context.getLocalMember(), entries);
+      context.consumer((index, entry) -> {
+        byte[] bytes = new byte[entry.remaining()];
+        entry.get(bytes);
+        entries.add(new String(bytes));
+        return ByteBuffer.allocate(0);
+      });
+    }
+    contexts.values().forEach(CopycatStateContext::open);
+    CopycatStateContext leader = awaitLeader(ELECTION_TIMEOUT * 10);
+    Assert.assertNotNull(leader);
+    return leader;
+  }
+
+  /**
+   * Commits the given entry to the given leader.
+   */
+  private CommitResponse commit(CopycatStateContext leader, String entry) throws Exception {
+    return submit(leader, ByteBuffer.wrap(entry.getBytes())).get(5, TimeUnit.SECONDS);
+  }
+
+  /**
+   * Tests that an acknowledged commit is applied once it's committed.
+   */
+  public void testLocalCommitApplied() throws Exception {
+    CopycatStateContext leader = createCluster(ReplicationMode.LOCAL);
+    Assert.assertEquals(commit(leader, "foo").status(), Response.Status.OK);
+    Long lastIndex = execute(leader, () -> leader.log().lastIndex());
+    Assert.assertTrue(await((context, member) -> lastIndex.equals(context.getLastApplied()), ELECTION_TIMEOUT * 2));
+    applied.values().forEach(entries -> Assert.assertEquals(entries, Arrays.asList("foo")));
+  }
+
+  /**
+   * Tests that a deposed leader never applies acknowledged entries that were lost and applies the new leader's
+   * entries instead.
+   */
+  public void testDeposedLocalLeaderAppliesReplacementEntries() throws Exception {
+    CopycatStateContext leader = createCluster(ReplicationMode.LOCAL);
+    Assert.assertEquals(commit(leader, "base").status(), Response.Status.OK);
+    Long baseIndex = execute(leader, () -> leader.log().lastIndex());
+    Assert.assertTrue(await((context, member) -> baseIndex.equals(context.getLastApplied()), ELECTION_TIMEOUT * 2));
+
+    // The isolated leader acknowledges entries it can't replicate, but mustn't apply them.
+    String deposed = leader.getLocalMember();
+    partitions.add(deposed);
+    for (int i = 0; i < 3; i++) {
+      Assert.assertEquals(commit(leader, "lost" + i).status(), Response.Status.OK);
+    }
+    Assert.assertEquals(execute(leader, leader::getLastApplied), baseIndex);
+
+    // The rest of the cluster elects a new leader and commits replacement entries.
+    CopycatStateContext replacement = awaitLeader(ELECTION_TIMEOUT * 10);
+    Assert.assertNotNull(replacement);
+    Assert.assertNotEquals(replacement.getLocalMember(), deposed);
+    for (int i = 0; i < 2; i++) {
+      Assert.assertEquals(commit(replacement, "new" + i).status(), Response.Status.OK);
+    }
+
+    // Once healed, the deposed leader truncates its lost entries and applies the replacement entries.
+    partitions.remove(deposed);
+    Long lastIndex = execute(replacement, () -> replacement.log().lastIndex());
+    Assert.assertTrue(await((context, member) -> lastIndex.equals(context.getLastApplied()), ELECTION_TIMEOUT * 10));
+    List<String> expected = new ArrayList<>(applied.get(replacement.getLocalMember()));
+    Assert.assertTrue(expected.contains("new0") && expected.contains("new1"));
+    Assert.assertEquals(applied.get(deposed), expected);
+    Assert.assertEquals(execute(leader, leader::state), CopycatState.FOLLOWER);
+  }
+
+}
@@ -0,0 +1,189 @@
+/*
+ * Copyright 2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.kuujo.copycat.resource.internal;
+
+import net.kuujo.copycat.protocol.rpc.AppendRequest;
+import net.kuujo.copycat.protocol.rpc.CommitRequest;
+import net.kuujo.copycat.protocol.rpc.CommitResponse;
+import net.kuujo.copycat.protocol.rpc.Request;
+import net.kuujo.copycat.protocol.rpc.Response;
+import net.kuujo.copycat.resource.ElectionMode;
+import org.testng.Assert;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.Test;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Leadership transfer test.
+ *
+ * @author <a href="http://github.com/kuujo">Jordan Halterman</a>
+ */
+@Test
+public class TransferTest extends AbstractStateTest {
+  private volatile String unreachable;
+  private volatile String slow;
+  private volatile String stalled;
+
+  @AfterMethod
+  protected void resetUnreachable() {
+    unreachable = null;
+    slow = null;
+    stalled = null;
+  }
+
+  @Override
+  protected <T extends Request> CompletableFuture<T> deliver(String member, T request) {
+    // Requests to an unreachable member are never answered.
+    if (request.uri().equals(unreachable)) {
+      return new CompletableFuture<>();
+    }
+    // Append requests to a stalled member are never answered.
+    if (request.uri().equals(stalled) && request instanceof AppendRequest) {
+      return new CompletableFuture<>();
+    }
+    // Append requests to a slow member are delayed.
+    if (request.uri().equals(slow) && request instanceof AppendRequest) {
+      return CompletableFuture.supplyAsync(() -> {
+        try {
+          Thread.sleep(HEARTBEAT_INTERVAL);
+        } catch (InterruptedException e) {
+        }
+        return request;
+      });
+    }
+    return super.deliver(member, request);
+  }
+
+  /**
+   * Returns a member of the cluster other than the given leader.
+   */
+  private String follower(CopycatStateContext leader) {
+    return contexts.keySet().stream().filter(m -> !m.equals(leader.getLocalMember())).findFirst().get();
+  }
+
+  /**
+   * Submits a commit to the given leader.
+   */
+  private CommitResponse commit(CopycatStateContext leader) throws Exception {
+    return commit(leader, ByteBuffer.wrap("Hello world!".getBytes()));
+  }
+
+  /**
+   * Submits a commit of the given entry to the given leader.
+   */
+  private CommitResponse commit(CopycatStateContext leader, ByteBuffer entry) throws Exception {
+    return leader.commit(CommitRequest.builder()
+      .withId(1)
+      .withUri(leader.getLocalMember())
+      .withEntry(entry)
+      .build()).get(5, TimeUnit.SECONDS);
+  }
+
+  /**
+   * Tests transferring leadership to a follower.
+   */
+  public void testTransferLeadership() throws Exception {
+    createCluster("local://foo", "local://bar", "local://baz").forEach(CopycatStateContext::open);
+    CopycatStateContext leader = awaitLeader(ELECTION_TIMEOUT * 10);
+    Assert.assertNotNull(leader);
+    String target = follower(leader);
+    leader.transferLeadership(target).get(ELECTION_TIMEOUT * 2, TimeUnit.MILLISECONDS);
+    Assert.assertTrue(await((context, member) -> target.equals(context.getLeader()), ELECTION_TIMEOUT * 2));
+    Assert.assertEquals(execute(contexts.get(target), contexts.get(target)::state), CopycatState.LEADER);
+  }
+
+  /**
+   * Tests transferring leadership to a follower that takes longer than an election timeout to catch up.
+   */
+  public void testTransferLeadershipToLaggingFollower() throws Exception {
+    createCluster("local://foo", "local://bar", "local://baz").forEach(CopycatStateContext::open);
+    CopycatStateContext leader = awaitLeader(ELECTION_TIMEOUT * 10);
+    Assert.assertNotNull(leader);
+    String target = follower(leader);
+
+    // Commit entries while the target is down, and then slow down replication to it once it's restarted so that
+    // catching up takes several election timeouts.
+    partitions.add(target);
+    for (int i = 0; i < 20; i++) {
+      Assert.assertEquals(commit(leader, ByteBuffer.allocate(1024 * 512)).status(), Response.Status.OK);
+    }
+    slow = target;
+    partitions.remove(target);
+
+    leader.transferLeadership(target).get(ELECTION_TIMEOUT * 10, TimeUnit.MILLISECONDS);
+    Assert.assertTrue(await((context, member) -> target.equals(context.getLeader()), ELECTION_TIMEOUT * 2));
+    Assert.assertEquals(execute(contexts.get(target), contexts.get(target)::state), CopycatState.LEADER);
+  }
+
+  /**
+   * Tests that a transfer to an unreachable member is aborted within an election timeout.
+   */
+  public void testTransferAbortsWhenTargetUnreachable() throws Exception {
+    createCluster("local://foo", "local://bar", "local://baz").forEach(CopycatStateContext::open);
+    CopycatStateContext leader = awaitLeader(ELECTION_TIMEOUT * 10);
+    Assert.assertNotNull(leader);
+    unreachable = follower(leader);
+
+    try {
+      leader.transferLeadership(unreachable).get(ELECTION_TIMEOUT * 2, TimeUnit.MILLISECONDS);
+      Assert.fail("Transfer to unreachable member succeeded");
+    } catch (ExecutionException e) {
+    }
+
+    // Once the transfer has been aborted, the leader accepts commits and further transfers.
+    Assert.assertEquals(execute(leader, leader::state), CopycatState.LEADER);
+    Assert.assertEquals(commit(leader).status(), Response.Status.OK);
+    String target = contexts.keySet().stream().filter(m -> !m.equals(leader.getLocalMember()) && !m.equals(unreachable)).findFirst().get();
+    leader.transferLeadership(target).get(ELECTION_TIMEOUT * 2, TimeUnit.MILLISECONDS);
+  }
+
+  /**
+   * Tests that in the ranked election mode a leader that closes cleanly hands leadership off to the replica with the
+   * highest match index.
+   */
+  public void testRankedCloseHandsOffToMostUpToDateReplica() throws Exception {
+    createCluster(config -> config.withElectionMode(ElectionMode.RANKED), "local://foo", "local://bar", "local://baz").forEach(CopycatStateContext::open);
+    CopycatStateContext leader = awaitLeader(ELECTION_TIMEOUT * 10);
+    Assert.assertNotNull(leader);
+
+    // Replicate an entry to every follower, and then stall replication to one follower so that its match index is
+    // behind when the leader closes. It can still vote.
+    Assert.assertEquals(commit(leader).status(), Response.Status.OK);
+    Long index = execute(leader, () -> leader.log().lastIndex());
+    Assert.assertTrue(await((context, member) -> index.equals(context.log().lastIndex()), ELECTION_TIMEOUT * 2));
+    String lagging = follower(leader);
+    String target = contexts.keySet().stream().filter(m -> !m.equals(leader.getLocalMember()) && !m.equals(lagging)).findFirst().get();
+    stalled = lagging;
+    for (int i = 0; i < 3; i++) {
+      Assert.assertEquals(commit(leader).status(), Response.Status.OK);
+    }
+
+    // The up to date replica is told to start an election immediately rather than waiting for an election timeout.
+    long closed = System.currentTimeMillis();
+    contexts.remove(leader.getLocalMember());
+    leader.close().get(5, TimeUnit.SECONDS);
+    leader.executor().shutdownNow();
+    stalled = null;
+    Assert.assertTrue(await((context, member) -> target.equals(context.getLeader()), ELECTION_TIMEOUT));
+    Assert.assertTrue(System.currentTimeMillis() - closed < ELECTION_TIMEOUT);
+    Assert.assertEquals(execute(contexts.get(target), contexts.get(target)::state), CopycatState.LEADER);
+  }
+
+}
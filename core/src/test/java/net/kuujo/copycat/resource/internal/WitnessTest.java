@@ -0,0 +1,157 @@
+/*
+ * Copyright 2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.kuujo.copycat.resource.internal;
+
+import net.kuujo.copycat.protocol.rpc.CommitResponse;
+import net.kuujo.copycat.protocol.rpc.Response;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Witness replica test.
+ *
+ * @author <a href="http://github.com/kuujo">Jordan Halterman</a>
+ */
+@Test
+public class WitnessTest extends AbstractStateTest {
+  private static final String WITNESS = "local://baz";
+
+  /**
+   * Creates and opens a cluster of two replicas and a witness, returning the elected leader.
+   */
+  private CopycatStateContext createWitnessCluster() throws Exception {
+    createCluster(config -> config.withReplicas("local://foo", "local://bar").withWitnesses(WITNESS), "local://foo", "local://bar", WITNESS).forEach(CopycatStateContext::open);
+    CopycatStateContext leader = awaitLeader(ELECTION_TIMEOUT * 10);
+    Assert.assertNotNull(leader);
+    Assert.assertNotEquals(leader.getLocalMember(), WITNESS);
+    return leader;
+  }
+
+  /**
+   * Returns the replica that is neither the leader nor the witness.
+   */
+  private String replica(CopycatStateContext leader) {
+    return leader.getLocalMember().equals("local://foo") ? "local://bar" : "local://foo";
+  }
+
+  /**
+   * Commits an entry to the given leader.
+   */
+  private CommitResponse commit(CopycatStateContext leader) throws Exception {
+    return submit(leader, ByteBuffer.wrap("Hello world!".getBytes())).get(5, TimeUnit.SECONDS);
+  }
+
+  /**
+   * Tests that a witness stores only the term of each user entry.
+   */
+  public void testWitnessStoresOnlyHeaders() throws Exception {
+    CopycatStateContext leader = createWitnessCluster();
+    for (int i = 0; i < 3; i++) {
+      Assert.assertEquals(commit(leader).status(), Response.Status.OK);
+    }
+
+    CopycatStateContext witness = contexts.get(WITNESS);
+    Long lastIndex = execute(leader, () -> leader.log().lastIndex());
+    Assert.assertTrue(await((context, member) -> lastIndex.equals(context.log().lastIndex()), ELECTION_TIMEOUT * 2));
+    Assert.assertTrue(execute(witness, () -> {
+      for (long index = witness.log().firstIndex(); index <= witness.log().lastIndex(); index++) {
+        ByteBuffer entry = witness.log().getEntry(index);
+        ByteBuffer leaderEntry = leader.log().getEntry(index);
+        if (Membership.isConfiguration(entry) ? !entry.equals(leaderEntry) : entry.limit() != 8 || entry.getLong(0) != leaderEntry.getLong(0)) {
+          return false;
+        }
+      }
+      return true;
+    }));
+  }
+
+  /**
+   * Tests that a witness never applies entries to the state machine.
+   */
+  public void testWitnessNeverAppliesEntries() throws Exception {
+    AtomicInteger applied = new AtomicInteger();
+    createCluster(config -> config.withReplicas("local://foo", "local://bar").withWitnesses(WITNESS), "local://foo", "local://bar", WITNESS);
+    contexts.get(WITNESS).consumer((index, entry) -> {
+      applied.incrementAndGet();
+      return ByteBuffer.allocate(0);
+    });
+    contexts.values().forEach(CopycatStateContext::open);
+    CopycatStateContext leader = awaitLeader(ELECTION_TIMEOUT * 10);
+    Assert.assertNotNull(leader);
+
+    for (int i = 0; i < 3; i++) {
+      Assert.assertEquals(commit(leader).status(), Response.Status.OK);
+    }
+
+    // The witness advances its last applied index without applying entries to the state machine.
+    CopycatStateContext witness = contexts.get(WITNESS);
+    Long lastIndex = execute(leader, () -> leader.log().lastIndex());
+    Assert.assertTrue(await((context, member) -> !member.equals(WITNESS) || lastIndex.equals(context.getLastApplied()), ELECTION_TIMEOUT * 2));
+    Assert.assertEquals(applied.get(), 0);
+    Assert.assertTrue(execute(witness, witness::isWitness));
+  }
+
+  /**
+   * Tests that a witness never starts an election.
+   */
+  public void testWitnessNeverStartsElection() throws Exception {
+    CopycatStateContext leader = createWitnessCluster();
+    CopycatStateContext witness = contexts.get(WITNESS);
+    long term = execute(witness, witness::getTerm);
+
+    // With both replicas unreachable, the witness keeps following rather than polling for votes.
+    partitions.add(leader.getLocalMember());
+    partitions.add(replica(leader));
+    Thread.sleep(ELECTION_TIMEOUT * 4);
+    Assert.assertEquals(execute(witness, witness::state), CopycatState.FOLLOWER);
+    Assert.assertEquals(execute(witness, witness::getTerm).longValue(), term);
+  }
+
+  /**
+   * Tests that a witness acknowledgement counts towards the commit quorum.
+   */
+  public void testWitnessCountsTowardsQuorum() throws Exception {
+    CopycatStateContext leader = createWitnessCluster();
+    partitions.add(replica(leader));
+    Assert.assertEquals(commit(leader).status(), Response.Status.OK);
+  }
+
+  /**
+   * Tests that leadership is never transferred to a witness.
+   */
+  public void testWitnessNeverTransferTarget() throws Exception {
+    CopycatStateContext leader = createWitnessCluster();
+    try {
+      leader.transferLeadership(WITNESS).get(ELECTION_TIMEOUT * 2, TimeUnit.MILLISECONDS);
+      Assert.fail("Transfer to witness succeeded");
+    } catch (ExecutionException e) {
+    }
+    Assert.assertEquals(execute(leader, leader::state), CopycatState.LEADER);
+
+    // A leader that closes with only the witness reachable doesn't hand leadership off to it.
+    partitions.add(replica(leader));
+    CopycatStateContext witness = contexts.get(WITNESS);
+    leader.close().get(5, TimeUnit.SECONDS);
+    Thread.sleep(ELECTION_TIMEOUT * 2);
+    Assert.assertEquals(execute(witness, witness::state), CopycatState.FOLLOWER);
+  }
+
+}
@@ -146,7 +146,7 @@ public class EventLogConfig extends ResourceConfig<EventLogConfig> {
       .withSerializer(getSerializer())
       .withExecutor(getExecutor())
       .withResourceConfig(this)
-      .withReplicas(getReplicas().isEmpty() ? cluster.getMembers() : getReplicas());
+      .withReplicas(resolveReplicas(cluster));
   }
 
 }
@@ -63,7 +63,7 @@ public class LeaderElectionConfig extends ResourceConfig<LeaderElectionConfig> {
       .withResourceFactory(DefaultLeaderElection::new)
       .withLog(getLog())
       .withResourceConfig(this)
-      .withReplicas(getReplicas().isEmpty() ? cluster.getMembers() : getReplicas());
+      .withReplicas(resolveReplicas(cluster));
   }
 
 }
@@ -18,6 +18,7 @@ package net.kuujo.copycat.netty;
 import net.kuujo.copycat.protocol.AbstractProtocol;
 import net.kuujo.copycat.protocol.ProtocolClient;
 import net.kuujo.copycat.protocol.ProtocolServer;
+import net.kuujo.copycat.util.internal.Assert;
 
 import java.net.URI;
 
@@ -35,6 +36,12 @@ public class NettyTcpProtocol extends AbstractProtocol {
   private int trafficClass = -1;
   private int acceptBacklog = 1024;
   private int connectTimeout = 60000;
+  private int flushBytes = 64 * 1024;
+  private long flushDelay;
+  private long requestTimeout = 5000;
+  private long reconnectDelay = 100;
+  private long maxReconnectDelay = 5000;
+  private NettyTransport transport = NettyTransport.NIO;
 
   /**
    * Sets the number of server threads to run.
@@ -268,6 +275,202 @@ public class NettyTcpProtocol extends AbstractProtocol {
     return this;
   }
 
+  /**
+   * Sets the number of buffered bytes after which client writes are flushed.<p>
+   *
+   * Clients write requests to the channel without flushing and flush all buffered requests at once, either once the
+   * given number of bytes has been buffered or once the flush delay expires, whichever happens first.
+   *
+   * @param flushBytes The number of buffered bytes after which client writes are flushed.
+   */
+  public void setFlushBytes(int flushBytes) {
+    this.flushBytes = flushBytes;
+  }
+
+  /**
+   * Returns the number of buffered bytes after which client writes are flushed.
+   *
+   * @return The number of buffered bytes after which client writes are flushed.
+   */
+  public int getFlushBytes() {
+    return flushBytes;
+  }
+
+  /**
+   * Sets the number of buffered bytes after which client writes are flushed, returning the protocol for method
+   * chaining.
+   *
+   * @param flushBytes The number of buffered bytes after which client writes are flushed.
+   * @return The TCP protocol.
+   */
+  public NettyTcpProtocol withFlushBytes(int flushBytes) {
+    this.flushBytes = flushBytes;
+    return this;
+  }
+
+  /**
+   * Sets the maximum time in milliseconds for which client writes are buffered before being flushed.<p>
+   *
+   * With the default delay of {@code 0}, buffered writes are flushed once per event loop iteration, so all requests
+   * written while the event loop is busy are flushed with a single system call.
+   *
+   * @param flushDelay The maximum time in milliseconds for which client writes are buffered.
+   */
+  public void setFlushDelay(long flushDelay) {
+    this.flushDelay = flushDelay;
+  }
+
+  /**
+   * Returns the maximum time in milliseconds for which client writes are buffered before being flushed.
+   *
+   * @return The maximum time in milliseconds for which client writes are buffered.
+   */
+  public long getFlushDelay() {
+    return flushDelay;
+  }
+
+  /**
+   * Sets the maximum time in milliseconds for which client writes are buffered before being flushed, returning the
+   * protocol for method chaining.
+   *
+   * @param flushDelay The maximum time in milliseconds for which client writes are buffered.
+   * @return The TCP protocol.
+   */
+  public NettyTcpProtocol withFlushDelay(long flushDelay) {
+    this.flushDelay = flushDelay;
+    return this;
+  }
+
+  /**
+   * Sets the client request timeout in milliseconds.<p>
+   *
+   * Requests that have not received a response within the timeout are failed and their response futures released.
+   *
+   * @param requestTimeout The client request timeout in milliseconds.
+   */
+  public void setRequestTimeout(long requestTimeout) {
+    this.requestTimeout = requestTimeout;
+  }
+
+  /**
+   * Returns the client request timeout in milliseconds.
+   *
+   * @return The client request timeout in milliseconds.
+   */
+  public long getRequestTimeout() {
+    return requestTimeout;
+  }
+
+  /**
+   * Sets the client request timeout in milliseconds, returning the protocol for method chaining.
+   *
+   * @param requestTimeout The client request timeout in milliseconds.
+   * @return The TCP protocol.
+   */
+  public NettyTcpProtocol withRequestTimeout(long requestTimeout) {
+    this.requestTimeout = requestTimeout;
+    return this;
+  }
+
+  /**
+   * Sets the initial delay in milliseconds before a client attempts to reconnect a lost connection.<p>
+   *
+   * The delay is doubled after each failed attempt up to the maximum reconnect delay, and reset once the client
+   * reconnects.
+   *
+   * @param reconnectDelay The initial client reconnect delay in milliseconds.
+   */
+  public void setReconnectDelay(long reconnectDelay) {
+    this.reconnectDelay = reconnectDelay;
+  }
+
+  /**
+   * Returns the initial delay in milliseconds before a client attempts to reconnect a lost connection.
+   *
+   * @return The initial client reconnect delay in milliseconds.
+   */
+  public long getReconnectDelay() {
+    return reconnectDelay;
+  }
+
+  /**
+   * Sets the initial delay in milliseconds before a client attempts to reconnect a lost connection, returning the
+   * protocol for method chaining.
+   *
+   * @param reconnectDelay The initial client reconnect delay in milliseconds.
+   * @return The TCP protocol.
+   */
+  public NettyTcpProtocol withReconnectDelay(long reconnectDelay) {
+    this.reconnectDelay = reconnectDelay;
+    return this;
+  }
+
+  /**
+   * Sets the maximum delay in milliseconds between client reconnect attempts.
+   *
+   * @param maxReconnectDelay The maximum client reconnect delay in milliseconds.
+   */
+  public void setMaxReconnectDelay(long maxReconnectDelay) {
+    this.maxReconnectDelay = maxReconnectDelay;
+  }
+
+  /**
+   * Returns the maximum delay in milliseconds between client reconnect attempts.
+   *
+   * @return The maximum client reconnect delay in milliseconds.
+   */
+  public long getMaxReconnectDelay() {
+    return maxReconnectDelay;
+  }
+
+  /**
+   * Sets the maximum delay in milliseconds between client reconnect attempts, returning the protocol for method
+   * chaining.
+   *
+   * @param maxReconnectDelay The maximum client reconnect delay in milliseconds.
+   * @return The TCP protocol.
+   */
+  public NettyTcpProtocol withMaxReconnectDelay(long maxReconnectDelay) {
+    this.maxReconnectDelay = maxReconnectDelay;
+    return this;
+  }
+
+  /**
+   * Sets the channel transport.<p>
+   *
+   * The {@link NettyTransport#EPOLL} transport uses Netty's native epoll transport on Linux, falling back to the
+   * {@link NettyTransport#NIO} transport with a warning on platforms on which the native transport is unavailable.
+   * The native transport requires {@code io.netty:netty-transport-native-epoll} with the {@code linux-x86_64}
+   * classifier on the classpath.
+   *
+   * @param transport The channel transport.
+   * @throws java.lang.NullPointerException If the transport is {@code null}
+   */
+  public void setTransport(NettyTransport transport) {
+    this.transport = Assert.isNotNull(transport, "transport");
+  }
+
+  /**
+   * Returns the channel transport.
+   *
+   * @return The channel transport.
+   */
+  public NettyTransport getTransport() {
+    return transport;
+  }
+
+  /**
+   * Sets the channel transport, returning the protocol for method chaining.
+   *
+   * @param transport The channel transport.
+   * @return The TCP protocol.
+   * @throws java.lang.NullPointerException If the transport is {@code null}
+   */
+  public NettyTcpProtocol withTransport(NettyTransport transport) {
+    setTransport(transport);
+    return this;
+  }
+
   @Override
   public ProtocolServer createServer(URI uri) {
     return new NettyTcpProtocolServer(uri.getHost(), uri.getPort(), this);
@@ -17,19 +17,26 @@ package net.kuujo.copycat.netty;
 
 import io.netty.bootstrap.Bootstrap;
 import io.netty.channel.*;
-import io.netty.channel.nio.NioEventLoopGroup;
 import io.netty.channel.socket.SocketChannel;
-import io.netty.channel.socket.nio.NioSocketChannel;
+import io.netty.handler.codec.serialization.ClassResolvers;
+import io.netty.handler.codec.serialization.ObjectDecoder;
+import io.netty.handler.codec.serialization.ObjectEncoder;
 import io.netty.handler.ssl.SslContext;
 import io.netty.handler.ssl.util.InsecureTrustManagerFactory;
+import io.netty.util.HashedWheelTimer;
+import io.netty.util.Timeout;
+import io.netty.util.concurrent.DefaultThreadFactory;
 import net.kuujo.copycat.protocol.ProtocolClient;
 import net.kuujo.copycat.protocol.ProtocolException;
 
 import javax.net.ssl.SSLException;
 import java.nio.ByteBuffer;
-import java.util.HashMap;
+import java.util.Iterator;
 import java.util.Map;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * Netty TCP protocol client.
@@ -37,12 +44,20 @@ import java.util.concurrent.CompletableFuture;
  * @author <a href="http://github.com/kuujo">Jordan Halterman</a>
  */
 public class NettyTcpProtocolClient implements ProtocolClient {
+  private static final HashedWheelTimer TIMER = new HashedWheelTimer(new DefaultThreadFactory("copycat-netty-timer", true), 10, TimeUnit.MILLISECONDS);
   private final String host;
   private final int port;
   private final NettyTcpProtocol protocol;
-  private Channel channel;
-  private final Map<Object, CompletableFuture<ByteBuffer>> responseFutures = new HashMap<>(1000);
-  private long requestId;
+  private volatile EventLoopGroup group;
+  private volatile Bootstrap bootstrap;
+  private volatile Channel channel;
+  private volatile NettyWriteBatcher batcher;
+  private volatile boolean connected;
+  private volatile boolean closed;
+  private volatile Runnable connectHandler;
+  private long reconnectDelay;
+  private final Map<Object, PendingRequest> responseFutures = new ConcurrentHashMap<>(1000);
+  private final AtomicLong requestId = new AtomicLong();
 
   public NettyTcpProtocolClient(String host, int port, NettyTcpProtocol protocol) {
     this.host = host;
@@ -53,16 +68,21 @@ public class NettyTcpProtocolClient implements ProtocolClient {
   @Override
   public CompletableFuture<ByteBuffer> write(ByteBuffer request) {
     final CompletableFuture<ByteBuffer> future = new CompletableFuture<>();
-    if (channel != null) {
-      long requestId = ++this.requestId;
-      ByteBuffer requestBuffer = ByteBuffer.allocateDirect(8 + request.capacity());
+    NettyWriteBatcher batcher = this.batcher;
+    if (batcher != null) {
+      long requestId = this.requestId.incrementAndGet();
+      ByteBuffer requestBuffer = ByteBuffer.allocate(8 + request.remaining());
       requestBuffer.putLong(requestId);
       requestBuffer.put(request);
-      channel.writeAndFlush(requestBuffer.array()).addListener((channelFuture) -> {
-        if (channelFuture.isSuccess()) {
-          responseFutures.put(requestId, future);
-        } else {
-          future.completeExceptionally(new ProtocolException(channelFuture.cause()));
+
+      // Register the response future before writing the request since the response may be received as soon as the
+      // buffered request is flushed. Requests are written without flushing and flushed in batches. If no response is
+      // received before the request timeout then the request is failed and its future released.
+      Timeout timeout = TIMER.newTimeout(t -> failRequest(requestId, new ProtocolException("Request timed out")), protocol.getRequestTimeout(), TimeUnit.MILLISECONDS);
+      responseFutures.put(requestId, new PendingRequest(future, timeout));
+      batcher.write(requestBuffer.array(), requestBuffer.capacity(), channelFuture -> {
+        if (!channelFuture.isSuccess()) {
+          failRequest(requestId, new ProtocolException(channelFuture.cause()));
         }
       });
     } else {
@@ -71,10 +91,62 @@ public class NettyTcpProtocolClient implements ProtocolClient {
     return future;
   }
 
+  /**
+   * Completes the pending request with the given ID.
+   */
+  private void completeRequest(long requestId, ByteBuffer response) {
+    PendingRequest request = responseFutures.remove(requestId);
+    if (request != null) {
+      request.timeout.cancel();
+      request.future.complete(response);
+    }
+  }
+
+  /**
+   * Fails the pending request with the given ID.
+   */
+  private void failRequest(long requestId, Throwable error) {
+    PendingRequest request = responseFutures.remove(requestId);
+    if (request != null) {
+      request.timeout.cancel();
+      request.future.completeExceptionally(error);
+    }
+  }
+
+  /**
+   * Fails all pending requests.
+   */
+  private void failRequests(Throwable error) {
+    Iterator<Map.Entry<Object, PendingRequest>> iterator = responseFutures.entrySet().iterator();
+    while (iterator.hasNext()) {
+      PendingRequest request = iterator.next().getValue();
+      iterator.remove();
+      request.timeout.cancel();
+      request.future.completeExceptionally(error);
+    }
+  }
+
+  /**
+   * Returns the number of requests awaiting a response.
+   */
+  int pendingRequests() {
+    return responseFutures.size();
+  }
+
+  @Override
+  public boolean isConnected() {
+    return connected;
+  }
+
+  @Override
+  public void connectHandler(Runnable handler) {
+    this.connectHandler = handler;
+  }
+
   @Override
   public CompletableFuture<Void> connect() {
     final CompletableFuture<Void> future = new CompletableFuture<>();
-    if (channel != null) {
+    if (bootstrap != null) {
       future.complete(null);
       return future;
     }
@@ -91,10 +163,11 @@ public class NettyTcpProtocolClient implements ProtocolClient {
       sslContext = null;
     }
 
-    final EventLoopGroup group = new NioEventLoopGroup(protocol.getThreads());
-    Bootstrap bootstrap = new Bootstrap();
+    NettyTransport transport = protocol.getTransport().resolve();
+    group = transport.createEventLoopGroup(protocol.getThreads());
+    bootstrap = new Bootstrap();
     bootstrap.group(group)
-      .channel(NioSocketChannel.class)
+      .channel(transport.socketChannel())
       .handler(new ChannelInitializer<SocketChannel>() {
         @Override
         protected void initChannel(SocketChannel channel) throws Exception {
@@ -103,6 +176,8 @@ public class NettyTcpProtocolClient implements ProtocolClient {
             pipeline.addLast(sslContext.newHandler(channel.alloc(), host, port));
           }
           pipeline.addLast(
+            new ObjectEncoder(),
+            new ObjectDecoder(ClassResolvers.softCachingConcurrentResolver(getClass().getClassLoader())),
             new TcpProtocolClientHandler(NettyTcpProtocolClient.this)
           );
         }
@@ -125,28 +200,101 @@ public class NettyTcpProtocolClient implements ProtocolClient {
     bootstrap.option(ChannelOption.SO_KEEPALIVE, true);
     bootstrap.option(ChannelOption.CONNECT_TIMEOUT_MILLIS, protocol.getConnectTimeout());
 
+    closed = false;
+    reconnectDelay = protocol.getReconnectDelay();
+    doConnect(future);
+    return future;
+  }
+
+  /**
+   * Opens a connection to the server.<p>
+   *
+   * If a future is provided then it's completed with the result of the connection attempt. Whether or not this is
+   * the initial attempt, a failure schedules another attempt so that the client connects once the server is reachable.
+   */
+  private void doConnect(CompletableFuture<Void> future) {
+    Bootstrap bootstrap = this.bootstrap;
+    if (bootstrap == null) {
+      return;
+    }
     bootstrap.connect(host, port).addListener(new ChannelFutureListener() {
       @Override
       public void operationComplete(ChannelFuture channelFuture) throws Exception {
         if (channelFuture.isSuccess()) {
+          if (closed) {
+            channelFuture.channel().close();
+            return;
+          }
           channel = channelFuture.channel();
-          future.complete(null);
-        } else  {
-          future.completeExceptionally(channelFuture.cause());
+          batcher = new NettyWriteBatcher(channel, protocol.getFlushBytes(), protocol.getFlushDelay());
+          reconnectDelay = protocol.getReconnectDelay();
+          connected = true;
+          Runnable connectHandler = NettyTcpProtocolClient.this.connectHandler;
+          if (connectHandler != null) {
+            connectHandler.run();
+          }
+          if (future != null) {
+            future.complete(null);
+          }
+        } else {
+          if (future != null) {
+            future.completeExceptionally(channelFuture.cause());
+          }
+          scheduleReconnect();
         }
       }
     });
-    return future;
+  }
+
+  /**
+   * Schedules an attempt to reconnect to the server.<p>
+   *
+   * Reconnect attempts are backed off exponentially up to the configured maximum reconnect delay. While the client
+   * is disconnected writes are failed immediately rather than being buffered.
+   */
+  private void scheduleReconnect() {
+    EventLoopGroup group = this.group;
+    if (!closed && group != null) {
+      long delay = reconnectDelay;
+      reconnectDelay = Math.min(reconnectDelay * 2, protocol.getMaxReconnectDelay());
+      group.schedule(() -> {
+        if (!closed) {
+          doConnect(null);
+        }
+      }, delay, TimeUnit.MILLISECONDS);
+    }
+  }
+
+  /**
+   * Handles the loss of the connection to the server.
+   */
+  private void disconnected() {
+    connected = false;
+    channel = null;
+    batcher = null;
+
+    // Fail all in-flight requests at once so that callers can resend them as soon as the connection is lost
+    // rather than waiting for each request to time out.
+    failRequests(new ProtocolException("Connection closed"));
+    scheduleReconnect();
   }
 
   @Override
   public CompletableFuture<Void> close() {
     final CompletableFuture<Void> future = new CompletableFuture<>();
+    closed = true;
+    connected = false;
+    Channel channel = this.channel;
+    EventLoopGroup group = this.group;
+    this.channel = null;
+    this.batcher = null;
+    this.group = null;
+    this.bootstrap = null;
     if (channel != null) {
       channel.close().addListener(new ChannelFutureListener() {
         @Override
         public void operationComplete(ChannelFuture channelFuture) throws Exception {
-          channel = null;
+          group.shutdownGracefully();
           if (channelFuture.isSuccess()) {
             future.complete(null);
           } else {
@@ -155,11 +303,27 @@ public class NettyTcpProtocolClient implements ProtocolClient {
         }
       });
     } else {
+      if (group != null) {
+        group.shutdownGracefully();
+      }
       future.complete(null);
     }
     return future;
   }
 
+  /**
+   * Request awaiting a response.
+   */
+  private static class PendingRequest {
+    private final CompletableFuture<ByteBuffer> future;
+    private final Timeout timeout;
+
+    private PendingRequest(CompletableFuture<ByteBuffer> future, Timeout timeout) {
+      this.future = future;
+      this.timeout = timeout;
+    }
+  }
+
   /**
    * Client response handler.
    */
@@ -171,13 +335,20 @@ public class NettyTcpProtocolClient implements ProtocolClient {
     }
 
     @Override
-    @SuppressWarnings({"unchecked", "rawtypes"})
     public void channelRead(final ChannelHandlerContext context, Object message) {
       ByteBuffer response = ByteBuffer.wrap((byte[]) message);
-      CompletableFuture responseFuture = client.responseFutures.remove(response.getLong());
-      if (responseFuture != null) {
-        responseFuture.complete(response.slice());
-      }
+      client.completeRequest(response.getLong(), response.slice());
+    }
+
+    @Override
+    public void channelInactive(ChannelHandlerContext context) throws Exception {
+      client.disconnected();
+      super.channelInactive(context);
+    }
+
+    @Override
+    public void exceptionCaught(ChannelHandlerContext context, Throwable cause) {
+      context.close();
     }
   }
 
@@ -17,9 +17,7 @@ package net.kuujo.copycat.netty;
 
 import io.netty.bootstrap.ServerBootstrap;
 import io.netty.channel.*;
-import io.netty.channel.nio.NioEventLoopGroup;
 import io.netty.channel.socket.SocketChannel;
-import io.netty.channel.socket.nio.NioServerSocketChannel;
 import io.netty.handler.codec.serialization.ClassResolvers;
 import io.netty.handler.codec.serialization.ObjectDecoder;
 import io.netty.handler.codec.serialization.ObjectEncoder;
@@ -74,12 +72,13 @@ public class NettyTcpProtocolServer implements ProtocolServer {
       sslContext = null;
     }
 
-    final EventLoopGroup serverGroup = new NioEventLoopGroup();
-    final EventLoopGroup workerGroup = new NioEventLoopGroup(protocol.getThreads());
+    final NettyTransport transport = protocol.getTransport().resolve();
+    final EventLoopGroup serverGroup = transport.createEventLoopGroup(0);
+    final EventLoopGroup workerGroup = transport.createEventLoopGroup(protocol.getThreads());
 
     final ServerBootstrap bootstrap = new ServerBootstrap();
     bootstrap.group(serverGroup, workerGroup)
-    .channel(NioServerSocketChannel.class)
+    .channel(transport.serverSocketChannel())
     .childHandler(new ChannelInitializer<SocketChannel>() {
       @Override
       public void initChannel(SocketChannel channel) throws Exception {
@@ -0,0 +1,135 @@
+/*
+ * Copyright 2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.kuujo.copycat.netty;
+
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.epoll.Epoll;
+import io.netty.channel.epoll.EpollEventLoopGroup;
+import io.netty.channel.epoll.EpollServerSocketChannel;
+import io.netty.channel.epoll.EpollSocketChannel;
+import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.channel.socket.ServerSocketChannel;
+import io.netty.channel.socket.SocketChannel;
+import io.netty.channel.socket.nio.NioServerSocketChannel;
+import io.netty.channel.socket.nio.NioSocketChannel;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Netty channel transport.
+ *
+ * @author <a href="http://github.com/kuujo">Jordan Halterman</a>
+ */
+public enum NettyTransport {
+
+  /**
+   * Java NIO transport, available on all platforms.
+   */
+  NIO {
+    @Override
+    EventLoopGroup createEventLoopGroup(int threads) {
+      return new NioEventLoopGroup(threads);
+    }
+
+    @Override
+    Class<? extends SocketChannel> socketChannel() {
+      return NioSocketChannel.class;
+    }
+
+    @Override
+    Class<? extends ServerSocketChannel> serverSocketChannel() {
+      return NioServerSocketChannel.class;
+    }
+  },
+
+  /**
+   * Native epoll transport, available on Linux only.<p>
+   *
+   * The epoll transport avoids the selected key sets and wakeup overhead of the NIO selector. The native library
+   * isn't bundled with Copycat: it's shipped in the {@code io.netty:netty-transport-native-epoll} artifact with the
+   * {@code linux-x86_64} classifier, which must be added to the classpath at the same version as Netty. If the native
+   * library can't be loaded on the current platform then a warning is logged and the NIO transport is used instead.
+   */
+  EPOLL {
+    @Override
+    EventLoopGroup createEventLoopGroup(int threads) {
+      return new EpollEventLoopGroup(threads);
+    }
+
+    @Override
+    Class<? extends SocketChannel> socketChannel() {
+      return EpollSocketChannel.class;
+    }
+
+    @Override
+    Class<? extends ServerSocketChannel> serverSocketChannel() {
+      return EpollServerSocketChannel.class;
+    }
+  };
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(NettyTransport.class);
+  private static final AtomicBoolean WARNED = new AtomicBoolean();
+
+  /**
+   * Returns the transport to use on the current platform, falling back to NIO if this transport is unavailable.
+   */
+  NettyTransport resolve() {
+    return resolve(isEpollAvailable());
+  }
+
+  /**
+   * Returns the transport to use given whether the native epoll transport is available.
+   */
+  NettyTransport resolve(boolean epollAvailable) {
+    if (this == EPOLL && !epollAvailable) {
+      if (WARNED.compareAndSet(false, true)) {
+        LOGGER.warn("Native epoll transport is unavailable, falling back to NIO. Add io.netty:netty-transport-native-epoll "
+          + "with the linux-x86_64 classifier to the classpath to use it");
+      }
+      return NIO;
+    }
+    return this;
+  }
+
+  /**
+   * Returns a boolean indicating whether the native epoll transport can be loaded.
+   */
+  private static boolean isEpollAvailable() {
+    try {
+      return Epoll.isAvailable();
+    } catch (Throwable t) {
+      return false;
+    }
+  }
+
+  /**
+   * Creates an event loop group for the transport.
+   */
+  abstract EventLoopGroup createEventLoopGroup(int threads);
+
+  /**
+   * Returns the client socket channel class for the transport.
+   */
+  abstract Class<? extends SocketChannel> socketChannel();
+
+  /**
+   * Returns the server socket channel class for the transport.
+   */
+  abstract Class<? extends ServerSocketChannel> serverSocketChannel();
+
+}
@@ -0,0 +1,93 @@
+/*
+ * Copyright 2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.kuujo.copycat.netty;
+
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelFutureListener;
+import io.netty.channel.EventLoop;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Coalesces writes to a channel into batched flushes.<p>
+ *
+ * Messages are written to the channel without being flushed. Buffered messages are flushed together once the
+ * configured number of bytes has been buffered, or otherwise once the flush delay expires. With a flush delay of
+ * {@code 0}, buffered messages are flushed once per event loop iteration. All channel operations are performed on
+ * the channel's event loop.
+ *
+ * @author <a href="http://github.com/kuujo">Jordan Halterman</a>
+ */
+final class NettyWriteBatcher {
+  private final Channel channel;
+  private final int flushBytes;
+  private final long flushDelay;
+  private final Runnable flushTask = this::flush;
+  private int pendingBytes;
+  private boolean flushScheduled;
+
+  NettyWriteBatcher(Channel channel, int flushBytes, long flushDelay) {
+    this.channel = channel;
+    this.flushBytes = flushBytes;
+    this.flushDelay = flushDelay;
+  }
+
+  /**
+   * Writes a message to the channel, flushing it with other buffered messages.
+   *
+   * @param message The message to write.
+   * @param size The size of the message in bytes.
+   * @param listener A listener to be notified once the write completes.
+   */
+  void write(Object message, int size, ChannelFutureListener listener) {
+    EventLoop eventLoop = channel.eventLoop();
+    if (eventLoop.inEventLoop()) {
+      doWrite(message, size, listener);
+    } else {
+      eventLoop.execute(() -> doWrite(message, size, listener));
+    }
+  }
+
+  /**
+   * Writes a message to the channel from the event loop.
+   */
+  private void doWrite(Object message, int size, ChannelFutureListener listener) {
+    channel.write(message).addListener(listener);
+    pendingBytes += size;
+    if (pendingBytes >= flushBytes) {
+      flush();
+    } else if (!flushScheduled) {
+      flushScheduled = true;
+      if (flushDelay > 0) {
+        channel.eventLoop().schedule(flushTask, flushDelay, TimeUnit.MILLISECONDS);
+      } else {
+        channel.eventLoop().execute(flushTask);
+      }
+    }
+  }
+
+  /**
+   * Flushes all buffered messages.
+   */
+  private void flush() {
+    flushScheduled = false;
+    if (pendingBytes > 0) {
+      pendingBytes = 0;
+      channel.flush();
+    }
+  }
+
+}
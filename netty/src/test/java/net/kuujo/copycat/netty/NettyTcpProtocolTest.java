@@ -0,0 +1,201 @@
+/*
+ * Copyright 2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.kuujo.copycat.netty;
+
+import net.kuujo.copycat.protocol.ProtocolClient;
+import net.kuujo.copycat.protocol.ProtocolException;
+import net.kuujo.copycat.protocol.ProtocolServer;
+import org.testng.Assert;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Netty TCP protocol loopback test.
+ *
+ * @author <a href="http://github.com/kuujo">Jordan Halterman</a>
+ */
+@Test
+public class NettyTcpProtocolTest {
+  private URI uri;
+  private NettyTcpProtocol protocol;
+  private ProtocolServer server;
+  private ProtocolClient client;
+
+  @BeforeMethod
+  protected void createProtocol() throws Exception {
+    try (ServerSocket socket = new ServerSocket(0)) {
+      uri = new URI(String.format("tcp://localhost:%d", socket.getLocalPort()));
+    } catch (IOException e) {
+      throw new IllegalStateException(e);
+    }
+    protocol = new NettyTcpProtocol();
+  }
+
+  @AfterMethod
+  protected void closeProtocol() throws Exception {
+    if (client != null) {
+      client.close().get(5, TimeUnit.SECONDS);
+      client = null;
+    }
+    if (server != null) {
+      server.close().get(5, TimeUnit.SECONDS);
+      server = null;
+    }
+  }
+
+  /**
+   * Starts a server that echoes requests back to the client.
+   */
+  private ProtocolServer listen() throws Exception {
+    ProtocolServer server = protocol.createServer(uri);
+    server.handler(request -> CompletableFuture.completedFuture(ByteBuffer.wrap(toBytes(request))));
+    server.listen().get(5, TimeUnit.SECONDS);
+    return server;
+  }
+
+  /**
+   * Creates and connects a client.
+   */
+  private ProtocolClient connect() throws Exception {
+    ProtocolClient client = protocol.createClient(uri);
+    client.connect().get(5, TimeUnit.SECONDS);
+    return client;
+  }
+
+  /**
+   * Returns the remaining bytes in the given buffer.
+   */
+  private static byte[] toBytes(ByteBuffer buffer) {
+    byte[] bytes = new byte[buffer.remaining()];
+    buffer.get(bytes);
+    return bytes;
+  }
+
+  /**
+   * Tests that a payload containing null bytes round trips through the server.
+   */
+  public void testRoundTripPayloadWithNullBytes() throws Exception {
+    server = listen();
+    client = connect();
+    byte[] payload = new byte[]{1, 0, 2, 0, 0, 3, 0};
+    Assert.assertEquals(toBytes(client.write(ByteBuffer.wrap(payload)).get(5, TimeUnit.SECONDS)), payload);
+  }
+
+  /**
+   * Tests that requests written without waiting on responses are coalesced into flushes and each completed with
+   * its own response.
+   */
+  public void testCoalescedWritesRoundTrip() throws Exception {
+    protocol.withFlushDelay(10).withFlushBytes(1024);
+    server = listen();
+    client = connect();
+
+    List<CompletableFuture<ByteBuffer>> futures = new ArrayList<>();
+    for (int i = 0; i < 100; i++) {
+      futures.add(client.write(ByteBuffer.allocate(64).putInt(0, i)));
+    }
+    for (int i = 0; i < futures.size(); i++) {
+      Assert.assertEquals(futures.get(i).get(5, TimeUnit.SECONDS).getInt(0), i);
+    }
+  }
+
+  /**
+   * Tests that a request that's never answered is failed and released once it times out.
+   */
+  public void testRequestTimeout() throws Exception {
+    protocol.withRequestTimeout(100);
+    server = protocol.createServer(uri);
+    server.handler(request -> new CompletableFuture<>());
+    server.listen().get(5, TimeUnit.SECONDS);
+    client = connect();
+
+    CompletableFuture<ByteBuffer> future = client.write(ByteBuffer.allocate(8));
+    try {
+      future.get(5, TimeUnit.SECONDS);
+      Assert.fail("Request did not time out");
+    } catch (ExecutionException e) {
+      Assert.assertTrue(e.getCause() instanceof ProtocolException);
+    }
+    Assert.assertEquals(((NettyTcpProtocolClient) client).pendingRequests(), 0);
+  }
+
+  /**
+   * Tests that in-flight requests are failed as soon as the connection is lost rather than when they time out.
+   */
+  public void testDisconnectFailsPendingRequests() throws Exception {
+    protocol.withRequestTimeout(60000);
+    server = protocol.createServer(uri);
+    server.handler(request -> new CompletableFuture<>());
+    server.listen().get(5, TimeUnit.SECONDS);
+    client = connect();
+
+    CompletableFuture<ByteBuffer> future = client.write(ByteBuffer.allocate(8));
+    server.close().get(5, TimeUnit.SECONDS);
+    server = null;
+    try {
+      future.get(10, TimeUnit.SECONDS);
+      Assert.fail("Request did not fail");
+    } catch (ExecutionException e) {
+      Assert.assertTrue(e.getCause() instanceof ProtocolException);
+    }
+    Assert.assertEquals(((NettyTcpProtocolClient) client).pendingRequests(), 0);
+  }
+
+  /**
+   * Waits for the client's connection state to match the given state.
+   */
+  private boolean awaitConnected(boolean connected, long timeout) throws Exception {
+    long end = System.currentTimeMillis() + timeout;
+    while (System.currentTimeMillis() < end) {
+      if (client.isConnected() == connected) {
+        return true;
+      }
+      Thread.sleep(10);
+    }
+    return false;
+  }
+
+  /**
+   * Tests that a client transparently reconnects once a restarted server is listening again.
+   */
+  public void testReconnectAfterServerRestart() throws Exception {
+    protocol.withReconnectDelay(50).withMaxReconnectDelay(200);
+    server = listen();
+    client = connect();
+    byte[] payload = new byte[]{1, 2, 3};
+    Assert.assertEquals(toBytes(client.write(ByteBuffer.wrap(payload)).get(5, TimeUnit.SECONDS)), payload);
+
+    server.close().get(5, TimeUnit.SECONDS);
+    server = null;
+    Assert.assertTrue(awaitConnected(false, 10000));
+
+    server = listen();
+    Assert.assertTrue(awaitConnected(true, 10000));
+    Assert.assertEquals(toBytes(client.write(ByteBuffer.wrap(payload)).get(5, TimeUnit.SECONDS)), payload);
+  }
+
+}
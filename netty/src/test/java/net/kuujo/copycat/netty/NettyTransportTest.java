@@ -0,0 +1,51 @@
+/*
+ * Copyright 2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.kuujo.copycat.netty;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+/**
+ * Netty transport test.
+ *
+ * @author <a href="http://github.com/kuujo">Jordan Halterman</a>
+ */
+@Test
+public class NettyTransportTest {
+
+  /**
+   * Tests that the epoll transport falls back to NIO when the native transport is unavailable.
+   */
+  public void testEpollFallsBackToNio() {
+    Assert.assertEquals(NettyTransport.EPOLL.resolve(false), NettyTransport.NIO);
+  }
+
+  /**
+   * Tests that the epoll transport is used when the native transport is available.
+   */
+  public void testEpollResolvesToEpoll() {
+    Assert.assertEquals(NettyTransport.EPOLL.resolve(true), NettyTransport.EPOLL);
+  }
+
+  /**
+   * Tests that the NIO transport is always used as configured.
+   */
+  public void testNioResolvesToNio() {
+    Assert.assertEquals(NettyTransport.NIO.resolve(true), NettyTransport.NIO);
+    Assert.assertEquals(NettyTransport.NIO.resolve(false), NettyTransport.NIO);
+  }
+
+}
@@ -123,7 +123,7 @@ public class StateLogConfig extends ResourceConfig<StateLogConfig> {
       .withSerializer(getSerializer())
       .withExecutor(getExecutor())
       .withResourceConfig(this)
-      .withReplicas(getReplicas().isEmpty() ? cluster.getMembers() : getReplicas());
+      .withReplicas(resolveReplicas(cluster));
   }
 
 }
@@ -0,0 +1,95 @@
+/*
+ * Copyright 2014 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.kuujo.copycat.vertx;
+
+import org.vertx.java.core.Handler;
+import org.vertx.java.core.buffer.Buffer;
+import org.vertx.java.core.parsetools.RecordParser;
+
+/**
+ * Length prefixed binary frames for the Vert.x TCP protocol.<p>
+ *
+ * Each frame consists of a four byte length header followed by a body of the given length. Request bodies contain
+ * an eight byte request ID followed by the request payload. Response bodies contain the eight byte request ID, a
+ * one byte status, and either the response payload or a UTF-8 encoded error message.
+ *
+ * @author <a href="http://github.com/kuujo">Jordan Halterman</a>
+ */
+final class VertxTcpFrames {
+  static final int HEADER_SIZE = 4;
+  static final byte STATUS_OK = 0;
+  static final byte STATUS_ERROR = 1;
+
+  private VertxTcpFrames() {
+  }
+
+  /**
+   * Creates a parser that splits a stream of buffers into frame bodies.
+   *
+   * @param handler The handler to call with each complete frame body.
+   * @return The frame parser.
+   */
+  static Handler<Buffer> parser(final Handler<Buffer> handler) {
+    final RecordParser parser = RecordParser.newFixed(HEADER_SIZE, null);
+    parser.setOutput(new Handler<Buffer>() {
+      private int bodySize = -1;
+
+      @Override
+      public void handle(Buffer buffer) {
+        if (bodySize == -1) {
+          bodySize = buffer.getInt(0);
+          parser.fixedSizeMode(bodySize);
+        } else {
+          bodySize = -1;
+          parser.fixedSizeMode(HEADER_SIZE);
+          handler.handle(buffer);
+        }
+      }
+    });
+    return parser;
+  }
+
+  /**
+   * Encodes a request frame.
+   *
+   * @param id The request ID.
+   * @param request The request payload.
+   * @return The encoded frame.
+   */
+  static Buffer request(long id, byte[] request) {
+    return new Buffer(HEADER_SIZE + 8 + request.length)
+      .appendInt(8 + request.length)
+      .appendLong(id)
+      .appendBytes(request);
+  }
+
+  /**
+   * Encodes a response frame.
+   *
+   * @param id The request ID.
+   * @param status The response status.
+   * @param response The response payload or error message.
+   * @return The encoded frame.
+   */
+  static Buffer response(long id, byte status, byte[] response) {
+    return new Buffer(HEADER_SIZE + 9 + response.length)
+      .appendInt(9 + response.length)
+      .appendLong(id)
+      .appendByte(status)
+      .appendBytes(response);
+  }
+
+}
@@ -37,6 +37,9 @@ public class VertxTcpProtocol extends AbstractProtocol {
   public static final String VERTX_TCP_TRUST_STORE_PASSWORD = "trust-store-password";
   public static final String VERTX_TCP_ACCEPT_BACKLOG = "accept-backlog";
   public static final String VERTX_TCP_CONNECT_TIMEOUT = "connect-timeout";
+  public static final String VERTX_TCP_LENGTH_PREFIXED = "length-prefixed";
+  public static final String VERTX_TCP_RECONNECT_DELAY = "reconnect-delay";
+  public static final String VERTX_TCP_MAX_RECONNECT_DELAY = "max-reconnect-delay";
 
   private int DEFAULT_VERTX_TCP_SEND_BUFFER_SIZE = 8 * 1024;
   private int DEFAULT_VERTX_TCP_RECEIVE_BUFFER_SIZE = 32 * 1024;
@@ -47,6 +50,9 @@ public class VertxTcpProtocol extends AbstractProtocol {
   private String DEFAULT_VERTX_TCP_TRUST_STORE_PASSWORD;
   private int DEFAULT_VERTX_TCP_ACCEPT_BACKLOG = 1024;
   private int DEFAULT_VERTX_TCP_CONNECT_TIMEOUT = 60000;
+  private boolean DEFAULT_VERTX_TCP_LENGTH_PREFIXED;
+  private int DEFAULT_VERTX_TCP_RECONNECT_DELAY = 100;
+  private int DEFAULT_VERTX_TCP_MAX_RECONNECT_DELAY = 5000;
 
   public VertxTcpProtocol() {
   }
@@ -328,6 +334,107 @@ public class VertxTcpProtocol extends AbstractProtocol {
     return this;
   }
 
+  /**
+   * Sets whether to use length prefixed binary framing.<p>
+   *
+   * By default, messages are encoded as JSON objects with base64 encoded payloads and separated by a delimiter.
+   * With length prefixed framing, each message is written as a four byte length header followed by the binary message
+   * body, which avoids the base64 and JSON encoding overhead and allows payloads to contain any bytes. Clients and
+   * servers must be configured with the same framing.
+   *
+   * @param lengthPrefixed Whether to use length prefixed binary framing.
+   */
+  public void setLengthPrefixed(boolean lengthPrefixed) {
+    put(VERTX_TCP_LENGTH_PREFIXED, lengthPrefixed);
+  }
+
+  /**
+   * Returns a boolean indicating whether length prefixed binary framing is enabled.
+   *
+   * @return Indicates whether length prefixed binary framing is enabled.
+   */
+  public boolean isLengthPrefixed() {
+    return get(VERTX_TCP_LENGTH_PREFIXED, DEFAULT_VERTX_TCP_LENGTH_PREFIXED);
+  }
+
+  /**
+   * Sets whether to use length prefixed binary framing, returning the protocol for method chaining.
+   *
+   * @param lengthPrefixed Whether to use length prefixed binary framing.
+   * @return The TCP protocol.
+   */
+  public VertxTcpProtocol withLengthPrefixed(boolean lengthPrefixed) {
+    setLengthPrefixed(lengthPrefixed);
+    return this;
+  }
+
+  /**
+   * Sets the initial delay in milliseconds before a client attempts to reconnect a lost connection.<p>
+   *
+   * The delay is doubled after each failed attempt up to the maximum reconnect delay, and reset once the client
+   * reconnects.
+   *
+   * @param reconnectDelay The initial reconnect delay in milliseconds.
+   * @throws java.lang.IllegalArgumentException If the reconnect delay is not positive
+   */
+  public void setReconnectDelay(int reconnectDelay) {
+    put(VERTX_TCP_RECONNECT_DELAY, Assert.arg(reconnectDelay, reconnectDelay > 0, "reconnect delay must be greater than zero"));
+  }
+
+  /**
+   * Returns the initial delay in milliseconds before a client attempts to reconnect a lost connection.
+   *
+   * @return The initial reconnect delay in milliseconds.
+   */
+  public int getReconnectDelay() {
+    return get(VERTX_TCP_RECONNECT_DELAY, DEFAULT_VERTX_TCP_RECONNECT_DELAY);
+  }
+
+  /**
+   * Sets the initial delay in milliseconds before a client attempts to reconnect a lost connection, returning the
+   * protocol for method chaining.
+   *
+   * @param reconnectDelay The initial reconnect delay in milliseconds.
+   * @return The TCP protocol.
+   * @throws java.lang.IllegalArgumentException If the reconnect delay is not positive
+   */
+  public VertxTcpProtocol withReconnectDelay(int reconnectDelay) {
+    setReconnectDelay(reconnectDelay);
+    return this;
+  }
+
+  /**
+   * Sets the maximum delay in milliseconds between client reconnect attempts.
+   *
+   * @param maxReconnectDelay The maximum reconnect delay in milliseconds.
+   * @throws java.lang.IllegalArgumentException If the maximum reconnect delay is not positive
+   */
+  public void setMaxReconnectDelay(int maxReconnectDelay) {
+    put(VERTX_TCP_MAX_RECONNECT_DELAY, Assert.arg(maxReconnectDelay, maxReconnectDelay > 0, "max reconnect delay must be greater than zero"));
+  }
+
+  /**
+   * Returns the maximum delay in milliseconds between client reconnect attempts.
+   *
+   * @return The maximum reconnect delay in milliseconds.
+   */
+  public int getMaxReconnectDelay() {
+    return get(VERTX_TCP_MAX_RECONNECT_DELAY, DEFAULT_VERTX_TCP_MAX_RECONNECT_DELAY);
+  }
+
+  /**
+   * Sets the maximum delay in milliseconds between client reconnect attempts, returning the protocol for method
+   * chaining.
+   *
+   * @param maxReconnectDelay The maximum reconnect delay in milliseconds.
+   * @return The TCP protocol.
+   * @throws java.lang.IllegalArgumentException If the maximum reconnect delay is not positive
+   */
+  public VertxTcpProtocol withMaxReconnectDelay(int maxReconnectDelay) {
+    setMaxReconnectDelay(maxReconnectDelay);
+    return this;
+  }
+
   @Override
   public ProtocolServer createServer(URI uri) {
     return new VertxTcpProtocolServer(uri.getHost(), uri.getPort(), this);
@@ -29,9 +29,12 @@ import org.vertx.java.core.net.NetSocket;
 import org.vertx.java.core.parsetools.RecordParser;
 
 import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * Vert.x TCP protocol client.
@@ -47,7 +50,13 @@ public class VertxTcpProtocolClient implements ProtocolClient {
   private final VertxTcpProtocol protocol;
   private NetClient client;
   private NetSocket socket;
+  private volatile boolean connected;
+  private volatile boolean closed;
+  private volatile Runnable connectHandler;
+  private int reconnectDelay;
+  private long reconnectTimer = -1;
   private final Map<Object, ResponseHolder> responses = new HashMap<>(1000);
+  private final AtomicLong requestId = new AtomicLong();
 
   /**
    * Holder for response handlers.
@@ -100,7 +109,15 @@ public class VertxTcpProtocolClient implements ProtocolClient {
   public CompletableFuture<ByteBuffer> write(ByteBuffer request) {
     CompletableFuture<ByteBuffer> future = new CompletableFuture<>();
     if (socket != null) {
-      socket.write(new Buffer(request.array()).appendString(DELIMITER));
+      if (protocol.isLengthPrefixed()) {
+        long id = requestId.incrementAndGet();
+        byte[] bytes = new byte[request.remaining()];
+        request.get(bytes);
+        storeFuture(id, future);
+        socket.write(VertxTcpFrames.request(id, bytes));
+      } else {
+        socket.write(new Buffer(request.array()).appendString(DELIMITER));
+      }
     } else {
       future.completeExceptionally(new ProtocolException("Client not connected"));
     }
@@ -141,6 +158,23 @@ public class VertxTcpProtocolClient implements ProtocolClient {
     responses.put(id, holder);
   }
 
+  /**
+   * Returns the number of requests awaiting a response.
+   */
+  int pendingRequests() {
+    return responses.size();
+  }
+
+  @Override
+  public boolean isConnected() {
+    return connected;
+  }
+
+  @Override
+  public void connectHandler(Runnable handler) {
+    this.connectHandler = handler;
+  }
+
   @Override
   public CompletableFuture<Void> connect() {
     final CompletableFuture<Void> future = new CompletableFuture<>();
@@ -162,38 +196,131 @@ public class VertxTcpProtocolClient implements ProtocolClient {
       client.setTrustStorePassword(protocol.getTrustStorePassword());
       client.setTrustAll(trustAll);
       client.setUsePooledBuffers(true);
-      client.connect(port, host, new Handler<AsyncResult<NetSocket>>() {
-        @Override
-        public void handle(AsyncResult<NetSocket> result) {
-          if (result.failed()) {
+      closed = false;
+      reconnectDelay = protocol.getReconnectDelay();
+      doConnect(future);
+    } else {
+      future.complete(null);
+    }
+    return future;
+  }
+
+  /**
+   * Opens a connection to the server.<p>
+   *
+   * If a future is provided then it's completed with the result of the connection attempt. Whether or not this is
+   * the initial attempt, a failure schedules another attempt so that the client connects once the server is reachable.
+   */
+  private void doConnect(CompletableFuture<Void> future) {
+    client.connect(port, host, new Handler<AsyncResult<NetSocket>>() {
+      @Override
+      public void handle(AsyncResult<NetSocket> result) {
+        if (result.failed()) {
+          if (future != null) {
             future.completeExceptionally(result.cause());
-          } else {
-            socket = result.result();
-            socket.dataHandler(RecordParser.newDelimited(DELIMITER, new Handler<Buffer>() {
-              @Override
-              public void handle(Buffer buffer) {
-                JsonObject response = new JsonObject(buffer.toString());
-                Object id = response.getValue("id");
-                if (response.getString("status").equals("ok")) {
-                  handleResponse(id, ByteBuffer.wrap(response.getBinary("response")));
-                } else {
-                  handleError(id, new ProtocolException(response.getString("message")));
-                }
-              }
-            }));
+          }
+          scheduleReconnect();
+        } else if (closed) {
+          result.result().close();
+        } else {
+          socket = result.result();
+          setupSocket(socket);
+          reconnectDelay = protocol.getReconnectDelay();
+          connected = true;
+          Runnable connectHandler = VertxTcpProtocolClient.this.connectHandler;
+          if (connectHandler != null) {
+            connectHandler.run();
+          }
+          if (future != null) {
             future.complete(null);
           }
         }
-      });
+      }
+    });
+  }
+
+  /**
+   * Registers response and close handlers on a newly connected socket.
+   */
+  private void setupSocket(NetSocket socket) {
+    if (protocol.isLengthPrefixed()) {
+      socket.dataHandler(VertxTcpFrames.parser(new Handler<Buffer>() {
+        @Override
+        public void handle(Buffer buffer) {
+          long id = buffer.getLong(0);
+          byte[] body = buffer.getBytes(9, buffer.length());
+          if (buffer.getByte(8) == VertxTcpFrames.STATUS_OK) {
+            handleResponse(id, ByteBuffer.wrap(body));
+          } else {
+            handleError(id, new ProtocolException(new String(body, StandardCharsets.UTF_8)));
+          }
+        }
+      }));
     } else {
-      future.complete(null);
+      socket.dataHandler(RecordParser.newDelimited(DELIMITER, new Handler<Buffer>() {
+        @Override
+        public void handle(Buffer buffer) {
+          JsonObject response = new JsonObject(buffer.toString());
+          Object id = response.getValue("id");
+          if (response.getString("status").equals("ok")) {
+            handleResponse(id, ByteBuffer.wrap(response.getBinary("response")));
+          } else {
+            handleError(id, new ProtocolException(response.getString("message")));
+          }
+        }
+      }));
+    }
+    socket.closeHandler(new Handler<Void>() {
+      @Override
+      public void handle(Void event) {
+        disconnected();
+      }
+    });
+  }
+
+  /**
+   * Handles the loss of the connection to the server.
+   */
+  private void disconnected() {
+    connected = false;
+    socket = null;
+
+    // Fail all in-flight requests at once so that callers can resend them as soon as the connection is lost
+    // rather than waiting for each request to time out.
+    for (Object id : new ArrayList<>(responses.keySet())) {
+      handleError(id, new ProtocolException("Connection closed"));
+    }
+    scheduleReconnect();
+  }
+
+  /**
+   * Schedules an attempt to reconnect to the server.<p>
+   *
+   * Reconnect attempts are backed off exponentially up to the configured maximum reconnect delay. While the client
+   * is disconnected writes are failed immediately rather than being buffered.
+   */
+  private void scheduleReconnect() {
+    if (!closed && client != null) {
+      int delay = reconnectDelay;
+      reconnectDelay = Math.min(reconnectDelay * 2, protocol.getMaxReconnectDelay());
+      reconnectTimer = vertx.setTimer(delay, timer -> {
+        reconnectTimer = -1;
+        if (!closed && client != null) {
+          doConnect(null);
+        }
+      });
     }
-    return future;
   }
 
   @Override
   public CompletableFuture<Void> close() {
     final CompletableFuture<Void> future = new CompletableFuture<>();
+    closed = true;
+    connected = false;
+    if (reconnectTimer != -1) {
+      vertx.cancelTimer(reconnectTimer);
+      reconnectTimer = -1;
+    }
     if (client != null && socket != null) {
       socket.closeHandler(new Handler<Void>() {
         @Override
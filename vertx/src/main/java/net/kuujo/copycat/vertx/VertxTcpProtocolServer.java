@@ -28,6 +28,7 @@ import org.vertx.java.core.net.NetSocket;
 import org.vertx.java.core.parsetools.RecordParser;
 
 import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
 import java.util.concurrent.CompletableFuture;
 
 /**
@@ -111,18 +112,32 @@ public class VertxTcpProtocolServer implements ProtocolServer {
       server.connectHandler(new Handler<NetSocket>() {
         @Override
         public void handle(final NetSocket socket) {
-          socket.dataHandler(RecordParser.newDelimited(DELIMITER, new Handler<Buffer>() {
-            @Override
-            public void handle(Buffer buffer) {
-              JsonObject json = new JsonObject(buffer.toString());
-              Object id = json.getValue("id");
-              try {
-                handleRequest(id, socket, ByteBuffer.wrap(json.getBinary("request")));
-              } catch (Exception e) {
-                respond(socket, id, null, e);
+          if (protocol.isLengthPrefixed()) {
+            socket.dataHandler(VertxTcpFrames.parser(new Handler<Buffer>() {
+              @Override
+              public void handle(Buffer buffer) {
+                long id = buffer.getLong(0);
+                try {
+                  handleRequest(id, socket, ByteBuffer.wrap(buffer.getBytes(8, buffer.length())));
+                } catch (Exception e) {
+                  respond(socket, id, null, e);
+                }
               }
-            }
-          }));
+            }));
+          } else {
+            socket.dataHandler(RecordParser.newDelimited(DELIMITER, new Handler<Buffer>() {
+              @Override
+              public void handle(Buffer buffer) {
+                JsonObject json = new JsonObject(buffer.toString());
+                Object id = json.getValue("id");
+                try {
+                  handleRequest(id, socket, ByteBuffer.wrap(json.getBinary("request")));
+                } catch (Exception e) {
+                  respond(socket, id, null, e);
+                }
+              }
+            }));
+          }
         }
       }).listen(port, host, new Handler<AsyncResult<NetServer>>() {
         @Override
@@ -153,7 +168,16 @@ public class VertxTcpProtocolServer implements ProtocolServer {
    * Responds to a request from the given socket.
    */
   private void respond(NetSocket socket, Object id, ByteBuffer response, Throwable error) {
-    if (error != null) {
+    if (protocol.isLengthPrefixed()) {
+      if (error != null) {
+        String message = error.getMessage() != null ? error.getMessage() : error.getClass().getName();
+        socket.write(VertxTcpFrames.response((Long) id, VertxTcpFrames.STATUS_ERROR, message.getBytes(StandardCharsets.UTF_8)));
+      } else {
+        byte[] bytes = new byte[response.remaining()];
+        response.get(bytes);
+        socket.write(VertxTcpFrames.response((Long) id, VertxTcpFrames.STATUS_OK, bytes));
+      }
+    } else if (error != null) {
       socket.write(new JsonObject().putString("status", "error").putValue("id", id).putString("message", error.getMessage()).encode() + DELIMITER);
     } else {
       socket.write(new JsonObject().putString("status", "ok").putValue("id", id).putBinary("response", response.array()).encode() + DELIMITER);